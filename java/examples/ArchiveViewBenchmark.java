@@ -0,0 +1,82 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.ArchiveView;
+import com.vibrenthealth.apiclient.core.ExtractionEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmark of a consumer that reads one file from each export, with and without extraction.
+ *
+ * The extract path extracts every archive and then reads the files from disk; the view path reads
+ * the same entries in place through ArchiveView. Both report elapsed time and bytes written.
+ */
+public class ArchiveViewBenchmark {
+    private static final int ARCHIVES = 32;
+    private static final int ENTRIES_PER_ARCHIVE = 8;
+    private static final int ENTRY_BYTES = 2 * 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        Path workDir = Files.createTempDirectory("archive-view-benchmark");
+        Path archiveDir = Files.createDirectories(workDir.resolve("archives"));
+
+        try {
+            Random random = new Random(42);
+            byte[] content = new byte[ENTRY_BYTES];
+            for (int i = 0; i < content.length; i++) {
+                content[i] = (byte) ('a' + random.nextInt(16));
+            }
+            for (int i = 0; i < ARCHIVES; i++) {
+                createArchive(archiveDir.resolve("export_" + i + ".zip"), "survey_" + i + "_", content);
+            }
+            long contentBytes = (long) ARCHIVES * ENTRIES_PER_ARCHIVE * ENTRY_BYTES;
+
+            System.out.printf("%d archives of %d x %d MB, reading one entry per archive%n",
+                    ARCHIVES, ENTRIES_PER_ARCHIVE, ENTRY_BYTES >> 20);
+            System.out.printf("%10s %10s %12s %12s%n", "path", "seconds", "MB read", "MB written");
+
+            Path outputDir = Files.createDirectories(workDir.resolve("extracted"));
+            long begin = System.nanoTime();
+            try (Stream<Path> archives = Files.list(archiveDir)) {
+                new ExtractionEngine(1, 1, Long.MAX_VALUE, null).extractAll(archives.sorted().toList(), outputDir);
+            }
+            long read = 0;
+            for (int i = 0; i < ARCHIVES; i++) {
+                read += Files.readAllBytes(outputDir.resolve("survey_" + i + "_0.json")).length;
+            }
+            System.out.printf("%10s %10.2f %12d %12d%n", "extract", (System.nanoTime() - begin) / 1e9, read >> 20, contentBytes >> 20);
+
+            begin = System.nanoTime();
+            read = 0;
+            try (ArchiveView view = ArchiveView.open(archiveDir)) {
+                for (int i = 0; i < ARCHIVES; i++) {
+                    read += Files.readAllBytes(view.getPath("survey_" + i + "_0.json")).length;
+                }
+            }
+            System.out.printf("%10s %10.2f %12d %12d%n", "view", (System.nanoTime() - begin) / 1e9, read >> 20, 0);
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void createArchive(Path file, String prefix, byte[] content) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < ENTRIES_PER_ARCHIVE; i++) {
+                zip.putNextEntry(new ZipEntry(prefix + i + ".json"));
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+    }
+}
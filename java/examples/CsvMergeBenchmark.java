@@ -0,0 +1,213 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.CsvMerger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of merging CSV chunks whose column sets differ, buffering every row versus streaming.
+ *
+ * Each survey has chunks that add and drop columns. The buffered path reads all rows of a survey
+ * into memory before writing them under the union header; the streaming path is CsvMerger. Each
+ * reports elapsed time and peak heap in use, and the row counts are checked. Run with a small heap
+ * (for example -Xmx128m) to see the buffered path fail.
+ *
+ * Usage: CsvMergeBenchmark [MB per chunk] (defaults to 32)
+ */
+public class CsvMergeBenchmark {
+    private static final int SURVEYS = 3;
+    private static final int CHUNKS_PER_SURVEY = 3;
+
+    public static void main(String[] args) throws IOException {
+        int megabytesPerChunk = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        Path workDir = Files.createTempDirectory("csv-merge-benchmark");
+
+        try {
+            Random random = new Random(42);
+            long sourceRows = 0;
+            for (int survey = 1; survey <= SURVEYS; survey++) {
+                Path surveyDir = Files.createDirectories(workDir.resolve("responses").resolve((1000 + survey) + "_Survey"));
+                for (int chunk = 1; chunk <= CHUNKS_PER_SURVEY; chunk++) {
+                    sourceRows += writeChunk(surveyDir.resolve("resp_part_" + chunk + ".csv"), chunk,
+                            (long) megabytesPerChunk << 20, random);
+                }
+            }
+            CsvMerger merger = new CsvMerger(Runtime.getRuntime().availableProcessors(), false);
+            Map<Integer, List<Path>> filesBySurvey = merger.findSurveyFiles(workDir, List.of(1001, 1002, 1003));
+
+            System.out.printf("%d surveys of %d chunks of %d MB, %d MB max heap%n", SURVEYS, CHUNKS_PER_SURVEY,
+                    megabytesPerChunk, Runtime.getRuntime().maxMemory() >> 20);
+            System.out.printf("%10s %10s %14s%n", "path", "seconds", "peak heap MB");
+
+            Path bufferedDir = Files.createDirectories(workDir.resolve("buffered"));
+            HeapSampler sampler = HeapSampler.startSampling();
+            long begin = System.nanoTime();
+            try {
+                for (Map.Entry<Integer, List<Path>> entry : filesBySurvey.entrySet()) {
+                    mergeBuffered(entry.getValue(), bufferedDir.resolve("survey_" + entry.getKey() + ".csv"));
+                }
+                System.out.printf("%10s %10.2f %14d%n", "buffered", (System.nanoTime() - begin) / 1e9, sampler.finish() >> 20);
+            } catch (OutOfMemoryError e) {
+                System.out.printf("%10s %10s %14d%n", "buffered", "OOM", sampler.finish() >> 20);
+            }
+
+            Path streamDir = Files.createDirectories(workDir.resolve("stream"));
+            System.gc();
+            sampler = HeapSampler.startSampling();
+            begin = System.nanoTime();
+            Map<Integer, Path> merged = merger.mergeAll(filesBySurvey, streamDir);
+            System.out.printf("%10s %10.2f %14d%n", "stream", (System.nanoTime() - begin) / 1e9, sampler.finish() >> 20);
+
+            Map<String, Object> metrics = merger.getMetrics();
+            if (merged.size() != SURVEYS || ((Number) metrics.get("records")).longValue() != sourceRows) {
+                throw new IllegalStateException("Merged rows differ from the chunks");
+            }
+            try (BufferedReader reader = Files.newBufferedReader(merged.get(1001))) {
+                System.out.println("union header: " + reader.readLine());
+            }
+            System.out.println(metrics);
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * A chunk whose columns depend on its number: later chunks add question columns and drop
+     * "legacy_score"
+     *
+     * @return the number of rows written
+     */
+    private static long writeChunk(Path file, int chunk, long targetBytes, Random random) throws IOException {
+        List<String> columns = new ArrayList<>(List.of("participant_id", "submitted_at"));
+        if (chunk == 1) {
+            columns.add("legacy_score");
+        }
+        for (int question = 1; question <= 4 + chunk; question++) {
+            columns.add("q" + question);
+        }
+
+        long rows = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write(String.join(",", columns));
+            writer.write("\r\n");
+            long written = 0;
+            while (written < targetBytes) {
+                StringBuilder row = new StringBuilder();
+                row.append(random.nextInt(1_000_000)).append(",2026-01-").append(10 + random.nextInt(18)).append("T10:00:00Z");
+                for (int column = 2; column < columns.size(); column++) {
+                    row.append(',');
+                    if (random.nextInt(8) == 0) {
+                        row.append("\"free text, with \"\"quotes\"\"\"");
+                    } else {
+                        row.append(random.nextInt(10));
+                    }
+                }
+                row.append("\r\n");
+                writer.write(row.toString());
+                written += row.length();
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Read every chunk into memory, then write the rows under the union header
+     */
+    private static void mergeBuffered(List<Path> chunks, Path target) throws IOException {
+        Set<String> header = new LinkedHashSet<>();
+        List<Map<String, String>> rows = new ArrayList<>();
+        for (Path chunk : chunks) {
+            try (BufferedReader reader = Files.newBufferedReader(chunk)) {
+                String[] columns = reader.readLine().split(",");
+                header.addAll(List.of(columns));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] values = line.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", -1);
+                    Map<String, String> row = new LinkedHashMap<>();
+                    for (int i = 0; i < columns.length && i < values.length; i++) {
+                        row.put(columns[i], values[i]);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(target)) {
+            writer.write(String.join(",", header));
+            writer.write("\r\n");
+            for (Map<String, String> row : rows) {
+                List<String> values = new ArrayList<>(header.size());
+                for (String column : header) {
+                    values.add(row.getOrDefault(column, ""));
+                }
+                writer.write(String.join(",", values));
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    /**
+     * Samples the heap in use every few milliseconds and keeps the maximum
+     */
+    private static final class HeapSampler extends Thread {
+        private volatile boolean running = true;
+        private long peak;
+
+        static HeapSampler startSampling() {
+            HeapSampler sampler = new HeapSampler();
+            sampler.setDaemon(true);
+            sampler.start();
+            return sampler;
+        }
+
+        @Override
+        public void run() {
+            List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool);
+                }
+            }
+            while (running) {
+                long used = 0;
+                for (int i = 0; i < heapPools.size(); i++) {
+                    used += heapPools.get(i).getUsage().getUsed();
+                }
+                peak = Math.max(peak, used);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() {
+            running = false;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return peak;
+        }
+    }
+}
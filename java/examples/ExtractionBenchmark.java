@@ -0,0 +1,104 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.ExtractionEngine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmark of the fork/join extraction engine over many small archives and one large archive.
+ *
+ * Each configuration extracts the same archives; parallelism 1 with one write permit is the
+ * former one-archive-at-a-time behaviour. Extracted entries are compared with their source bytes.
+ *
+ * Usage: ExtractionBenchmark [max parallelism] (defaults to the number of processors)
+ */
+public class ExtractionBenchmark {
+    private static final int SMALL_ARCHIVES = 64;
+    private static final int SMALL_ENTRY_BYTES = 2 * 1024 * 1024;
+    private static final int LARGE_ENTRIES = 16;
+    private static final int LARGE_ENTRY_BYTES = 8 * 1024 * 1024;
+    private static final int MAX_CONCURRENT_WRITES = 4;
+    private static final long ENTRY_THRESHOLD_BYTES = 32L * 1024 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        int maxParallelism = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        Path workDir = Files.createTempDirectory("extraction-benchmark");
+
+        try {
+            Random random = new Random(42);
+            byte[] smallContent = content(random, SMALL_ENTRY_BYTES);
+            byte[] largeContent = content(random, LARGE_ENTRY_BYTES);
+
+            List<Path> archives = new ArrayList<>();
+            for (int i = 0; i < SMALL_ARCHIVES; i++) {
+                archives.add(createArchive(workDir.resolve("small_" + i + ".zip"), "small_" + i + "_", 1, smallContent));
+            }
+            archives.add(createArchive(workDir.resolve("large.zip"), "large_", LARGE_ENTRIES, largeContent));
+
+            System.out.printf("%d archives of %d MB and one of %d x %d MB, %d processors%n", SMALL_ARCHIVES,
+                    SMALL_ENTRY_BYTES >> 20, LARGE_ENTRIES, LARGE_ENTRY_BYTES >> 20, Runtime.getRuntime().availableProcessors());
+            System.out.printf("%12s %8s %10s %10s%n", "parallelism", "writes", "seconds", "MB/s");
+
+            for (int parallelism = 1; parallelism <= maxParallelism; parallelism *= 2) {
+                int writes = parallelism == 1 ? 1 : MAX_CONCURRENT_WRITES;
+                Path outputDir = Files.createDirectories(workDir.resolve("out_" + parallelism));
+                ExtractionEngine engine = new ExtractionEngine(parallelism, writes, ENTRY_THRESHOLD_BYTES, null);
+
+                long begin = System.nanoTime();
+                List<Path> extracted = engine.extractAll(archives, outputDir);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+
+                if (extracted.size() != archives.size()
+                        || !Arrays.equals(smallContent, Files.readAllBytes(outputDir.resolve("small_0_0.json")))
+                        || !Arrays.equals(largeContent, Files.readAllBytes(outputDir.resolve("large_" + (LARGE_ENTRIES - 1) + ".json")))) {
+                    throw new IllegalStateException("Extracted entries differ from the archives");
+                }
+                long totalBytes = (long) SMALL_ARCHIVES * SMALL_ENTRY_BYTES + (long) LARGE_ENTRIES * LARGE_ENTRY_BYTES;
+                System.out.printf("%12d %8d %10.2f %10.0f%n", parallelism, writes, seconds, (totalBytes >> 20) / seconds);
+                deleteRecursively(outputDir);
+            }
+        } finally {
+            deleteRecursively(workDir);
+        }
+    }
+
+    /**
+     * Partly compressible JSON-like bytes
+     */
+    private static byte[] content(Random random, int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) ('a' + random.nextInt(16));
+        }
+        return content;
+    }
+
+    private static Path createArchive(Path file, String prefix, int entries, byte[] content) throws IOException {
+        try (OutputStream outputStream = Files.newOutputStream(file);
+             ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (int i = 0; i < entries; i++) {
+                zip.putNextEntry(new ZipEntry(prefix + i + ".json"));
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.vibrenthealth.apiclient.core.NdjsonMerger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of merging extracted survey JSON files, reading each file as a tree versus streaming.
+ *
+ * The tree path reads every file into memory and writes the combined array, as the Python client
+ * does; the streaming path is NdjsonMerger. Each reports elapsed time and peak heap in use. Run
+ * with a small heap (for example -Xmx128m) to see the tree path fail on large files.
+ *
+ * Usage: NdjsonMergeBenchmark [MB per file] (defaults to 32)
+ */
+public class NdjsonMergeBenchmark {
+    private static final int SURVEYS = 4;
+    private static final int FILES_PER_SURVEY = 2;
+
+    public static void main(String[] args) throws IOException {
+        int megabytesPerFile = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        Path workDir = Files.createTempDirectory("ndjson-merge-benchmark");
+
+        try {
+            Random random = new Random(42);
+            for (int survey = 1; survey <= SURVEYS; survey++) {
+                int platformFormId = 1000 + survey;
+                Path surveyDir = Files.createDirectories(workDir.resolve("responses").resolve(platformFormId + "_Survey"));
+                for (int part = 1; part <= FILES_PER_SURVEY; part++) {
+                    Path file = surveyDir.resolve("resp_part_" + part + ".json");
+                    writeResponses(file, (long) megabytesPerFile << 20, random);
+                }
+            }
+            Map<Integer, List<Path>> filesBySurvey = new NdjsonMerger(1, false).findSurveyFiles(workDir, List.of(1001, 1002, 1003, 1004));
+
+            System.out.printf("%d surveys of %d files of %d MB, %d MB max heap%n", SURVEYS, FILES_PER_SURVEY,
+                    megabytesPerFile, Runtime.getRuntime().maxMemory() >> 20);
+            System.out.printf("%10s %10s %14s%n", "path", "seconds", "peak heap MB");
+
+            Path treeDir = Files.createDirectories(workDir.resolve("tree"));
+            HeapSampler sampler = HeapSampler.startSampling();
+            long begin = System.nanoTime();
+            try {
+                ObjectMapper objectMapper = new ObjectMapper();
+                for (Map.Entry<Integer, List<Path>> entry : filesBySurvey.entrySet()) {
+                    ArrayNode merged = objectMapper.createArrayNode();
+                    for (Path file : entry.getValue()) {
+                        for (JsonNode record : objectMapper.readTree(file.toFile())) {
+                            merged.add(record);
+                        }
+                    }
+                    objectMapper.writeValue(treeDir.resolve("survey_" + entry.getKey() + ".json").toFile(), merged);
+                }
+                System.out.printf("%10s %10.2f %14d%n", "tree", (System.nanoTime() - begin) / 1e9, sampler.finish() >> 20);
+            } catch (OutOfMemoryError e) {
+                System.out.printf("%10s %10s %14d%n", "tree", "OOM", sampler.finish() >> 20);
+            }
+
+            Path streamDir = Files.createDirectories(workDir.resolve("stream"));
+            System.gc();
+            sampler = HeapSampler.startSampling();
+            begin = System.nanoTime();
+            NdjsonMerger merger = new NdjsonMerger(Runtime.getRuntime().availableProcessors(), false);
+            Map<Integer, Path> merged = merger.mergeAll(filesBySurvey, streamDir);
+            System.out.printf("%10s %10.2f %14d%n", "stream", (System.nanoTime() - begin) / 1e9, sampler.finish() >> 20);
+            if (merged.size() != SURVEYS) {
+                throw new IllegalStateException("Not every survey was merged");
+            }
+            System.out.println(merger.getMetrics());
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * A JSON array of survey responses of about the given size
+     */
+    private static void writeResponses(Path file, long targetBytes, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write('[');
+            long written = 1;
+            for (int i = 0; written < targetBytes; i++) {
+                String record = String.format("%s{\"participantId\":%d,\"submittedAt\":\"2026-01-%02dT10:00:00Z\","
+                                + "\"answers\":[{\"question\":\"q1\",\"value\":%d},{\"question\":\"q2\",\"value\":\"%s\"}]}",
+                        i == 0 ? "" : ",", random.nextInt(1_000_000), 1 + random.nextInt(28), random.nextInt(10),
+                        Long.toHexString(random.nextLong()));
+                writer.write(record);
+                written += record.length();
+            }
+            writer.write(']');
+        }
+    }
+
+    /**
+     * Samples the heap in use every few milliseconds and keeps the maximum
+     */
+    private static final class HeapSampler extends Thread {
+        private volatile boolean running = true;
+        private long peak;
+
+        static HeapSampler startSampling() {
+            HeapSampler sampler = new HeapSampler();
+            sampler.setDaemon(true);
+            sampler.start();
+            return sampler;
+        }
+
+        @Override
+        public void run() {
+            List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    heapPools.add(pool);
+                }
+            }
+            while (running) {
+                long used = 0;
+                for (int i = 0; i < heapPools.size(); i++) {
+                    used += heapPools.get(i).getUsage().getUsed();
+                }
+                peak = Math.max(peak, used);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() {
+            running = false;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return peak;
+        }
+    }
+}
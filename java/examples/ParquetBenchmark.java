@@ -0,0 +1,90 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.ParquetConverter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of converting extracted survey JSON into Parquet, with and without a cached schema.
+ *
+ * The first conversion infers each survey's schema with an extra pass over its files; the second
+ * reuses the cached schema and reads the files once. Both report elapsed time and the size of the
+ * Parquet files relative to the JSON.
+ *
+ * Usage: ParquetBenchmark [MB per survey] (defaults to 32)
+ */
+public class ParquetBenchmark {
+    private static final int SURVEYS = 4;
+
+    public static void main(String[] args) throws IOException {
+        int megabytesPerSurvey = args.length > 0 ? Integer.parseInt(args[0]) : 32;
+        Path workDir = Files.createTempDirectory("parquet-benchmark");
+
+        try {
+            Random random = new Random(42);
+            long jsonBytes = 0;
+            for (int survey = 1; survey <= SURVEYS; survey++) {
+                Path surveyDir = Files.createDirectories(workDir.resolve("responses").resolve((1000 + survey) + "_Survey"));
+                Path file = surveyDir.resolve("resp_part_1.json");
+                writeResponses(file, (long) megabytesPerSurvey << 20, random);
+                jsonBytes += Files.size(file);
+            }
+            Path schemaCache = workDir.resolve(".parquet_schemas.json");
+
+            System.out.printf("%d surveys of %d MB JSON, %d processors%n", SURVEYS, megabytesPerSurvey,
+                    Runtime.getRuntime().availableProcessors());
+            System.out.printf("%14s %10s %12s %10s%n", "schema", "seconds", "records", "size %");
+
+            for (String run : List.of("inferred", "cached")) {
+                ParquetConverter converter = new ParquetConverter(Runtime.getRuntime().availableProcessors(), "JSON",
+                        64L * 1024 * 1024, 1024 * 1024, true, schemaCache);
+                Path outputDir = Files.createDirectories(workDir.resolve(run));
+                Map<Integer, List<Path>> filesBySurvey = converter.findSurveyFiles(workDir.resolve("responses"),
+                        List.of(1001, 1002, 1003, 1004));
+
+                long begin = System.nanoTime();
+                Map<Integer, Path> converted = converter.mergeAll(filesBySurvey, outputDir);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+
+                if (converted.size() != SURVEYS) {
+                    throw new IllegalStateException("Not every survey was converted");
+                }
+                Map<String, Object> metrics = converter.getMetrics();
+                System.out.printf("%14s %10.2f %12d %10.1f%n", run, seconds, metrics.get("records"),
+                        100.0 * ((Number) metrics.get("bytes")).longValue() / jsonBytes);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * A JSON array of survey responses of about the given size
+     */
+    private static void writeResponses(Path file, long targetBytes, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write('[');
+            long written = 1;
+            for (int i = 0; written < targetBytes; i++) {
+                String record = String.format("%s{\"participantId\":%d,\"submittedAt\":\"2026-01-%02dT10:00:00Z\","
+                                + "\"q1\":%d,\"q2\":%.2f,\"q3\":%s,\"q4\":\"%s\",\"answers\":[%d,%d]}",
+                        i == 0 ? "" : ",", random.nextInt(1_000_000), 1 + random.nextInt(28), random.nextInt(10),
+                        random.nextDouble() * 100, random.nextBoolean(), Long.toHexString(random.nextLong()),
+                        random.nextInt(5), random.nextInt(5));
+                writer.write(record);
+                written += record.length();
+            }
+            writer.write(']');
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibrenthealth.apiclient.core.PublisherRecordSink;
+import com.vibrenthealth.apiclient.core.RecordStreamer;
+import com.vibrenthealth.apiclient.core.StreamingExtractor;
+import com.vibrenthealth.apiclient.models.ExportRecord;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmark of handing export records to an embedding application, extracting the archive and
+ * re-reading the files versus streaming records from the archive to a sink.
+ *
+ * The extract path writes every entry to disk with StreamingExtractor and then parses the files;
+ * the sink path parses the entries as the archive is read and never writes. Both report elapsed
+ * time and bytes written to disk. A third run publishes the records to a subscriber that requests
+ * a few at a time and checks that no more than the buffer capacity was ever waiting for it.
+ *
+ * Usage: RecordSinkBenchmark [MB of JSON] (defaults to 64)
+ */
+public class RecordSinkBenchmark {
+    private static final int ENTRIES = 8;
+    private static final int BUFFER_CAPACITY = 256;
+
+    public static void main(String[] args) throws Exception {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        Path workDir = Files.createTempDirectory("record-sink-benchmark");
+
+        try {
+            Path archive = workDir.resolve("export.zip");
+            long sourceRecords = writeArchive(archive, (long) megabytes << 20, new Random(42));
+            System.out.printf("%d MB of JSON in %d entries, %d records, %d archive MB%n", megabytes, ENTRIES,
+                    sourceRecords, Files.size(archive) >> 20);
+            System.out.printf("%10s %10s %12s %14s%n", "path", "seconds", "records", "disk MB");
+
+            Path extractDir = Files.createDirectories(workDir.resolve("extracted"));
+            long begin = System.nanoTime();
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(archive))) {
+                StreamingExtractor.extract(in, extractDir, null, null);
+            }
+            long extractedRecords = 0;
+            long extractedBytes = 0;
+            try (Stream<Path> files = Files.list(extractDir)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    extractedRecords += rereadRecords(file);
+                    extractedBytes += Files.size(file);
+                }
+            }
+            System.out.printf("%10s %10.2f %12d %14d%n", "extract", (System.nanoTime() - begin) / 1e9,
+                    extractedRecords, extractedBytes >> 20);
+
+            AtomicLong sinkRecords = new AtomicLong();
+            begin = System.nanoTime();
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(archive))) {
+                RecordStreamer.stream(in, "benchmark", 1001, record -> sinkRecords.incrementAndGet(), null, new HashMap<>());
+            }
+            System.out.printf("%10s %10.2f %12d %14d%n", "sink", (System.nanoTime() - begin) / 1e9, sinkRecords.get(), 0);
+
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            PublisherRecordSink publisher = new PublisherRecordSink(executor, BUFFER_CAPACITY);
+            BatchingSubscriber subscriber = new BatchingSubscriber();
+            publisher.subscribe(subscriber);
+            begin = System.nanoTime();
+            try (BufferedInputStream in = new BufferedInputStream(Files.newInputStream(archive))) {
+                RecordStreamer.stream(in, "benchmark", 1001, record -> {
+                    subscriber.published.incrementAndGet();
+                    publisher.accept(record);
+                }, null, new HashMap<>());
+            }
+            publisher.close();
+            subscriber.done.await();
+            executor.shutdown();
+            System.out.printf("%10s %10.2f %12d %14d%n", "publisher", (System.nanoTime() - begin) / 1e9,
+                    subscriber.received.get(), 0);
+
+            if (extractedRecords != sourceRecords || sinkRecords.get() != sourceRecords
+                    || subscriber.received.get() != sourceRecords) {
+                throw new IllegalStateException("Record counts differ from the archive");
+            }
+            System.out.printf("most records waiting for the subscriber: %d (buffer capacity %d)%n",
+                    subscriber.maxWaiting, BUFFER_CAPACITY);
+        } finally {
+            try (Stream<Path> files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * An archive of JSON arrays of survey responses of about the given total size
+     *
+     * @return the number of records written
+     */
+    private static long writeArchive(Path archive, long targetBytes, Random random) throws IOException {
+        long records = 0;
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+            for (int entry = 1; entry <= ENTRIES; entry++) {
+                zip.putNextEntry(new ZipEntry("resp_part_" + entry + ".json"));
+                zip.write('[');
+                long written = 1;
+                for (int i = 0; written < targetBytes / ENTRIES; i++) {
+                    String record = String.format("%s{\"participantId\":%d,\"submittedAt\":\"2026-01-%02dT10:00:00Z\","
+                                    + "\"q1\":%d,\"q2\":%.2f,\"q3\":%s,\"answers\":[%d,%d]}",
+                            i == 0 ? "" : ",", random.nextInt(1_000_000), 1 + random.nextInt(28), random.nextInt(10),
+                            random.nextDouble() * 100, random.nextBoolean(), random.nextInt(5), random.nextInt(5));
+                    zip.write(record.getBytes(StandardCharsets.UTF_8));
+                    written += record.length();
+                    records++;
+                }
+                zip.write(']');
+                zip.closeEntry();
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Parse an extracted file into records, as an application reading the files would
+     */
+    private static long rereadRecords(Path file) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        long records = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(file.toFile())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array in " + file);
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                objectMapper.readValue(parser, Map.class);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Requests records a few at a time and tracks how many were published but not yet received
+     */
+    private static final class BatchingSubscriber implements Flow.Subscriber<ExportRecord> {
+        private static final int BATCH = 16;
+
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong received = new AtomicLong();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile long maxWaiting;
+        private Flow.Subscription subscription;
+        private int outstanding;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = BATCH;
+            subscription.request(BATCH);
+        }
+
+        @Override
+        public void onNext(ExportRecord record) {
+            maxWaiting = Math.max(maxWaiting, published.get() - received.incrementAndGet());
+            if (--outstanding == 0) {
+                outstanding = BATCH;
+                subscription.request(BATCH);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            error.printStackTrace();
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
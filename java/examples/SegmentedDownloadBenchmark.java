@@ -0,0 +1,122 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.vibrenthealth.apiclient.core.SegmentedDownloader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Executors;
+
+/**
+ * Benchmark comparing single-stream and segmented range downloads against a local stand-in
+ * export server.
+ *
+ * The server caps every connection at a fixed rate, the way round-trip time and window size cap
+ * a single TCP stream to the real API, and honours Range requests. Each mode downloads the same
+ * archive; segments=1 is the single-stream path.
+ */
+public class SegmentedDownloadBenchmark {
+    private static final int FILE_BYTES = 64 * 1024 * 1024;
+    private static final long PER_STREAM_BYTES_PER_SECOND = 16L * 1024 * 1024;
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int[] SEGMENTS = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws Exception {
+        byte[] archive = new byte[FILE_BYTES];
+        new Random(42).nextBytes(archive);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/export.zip", exchange -> serve(exchange, archive));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/export.zip");
+        Path target = Files.createTempFile("segmented-benchmark", ".zip.part");
+
+        try {
+            System.out.printf("%d MB archive, %d MB/s per stream%n", FILE_BYTES >> 20, PER_STREAM_BYTES_PER_SECOND >> 20);
+            System.out.printf("%10s %12s %12s%n", "segments", "seconds", "MB/s");
+            for (int segments : SEGMENTS) {
+                SegmentedDownloader downloader = new SegmentedDownloader(segments, null, null);
+                long begin = System.nanoTime();
+                downloader.download((start, end) -> open(httpClient, uri, start, end), FILE_BYTES, target);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+
+                if (!Arrays.equals(archive, Files.readAllBytes(target))) {
+                    throw new IllegalStateException("Downloaded file differs from the archive");
+                }
+                System.out.printf("%10d %12.2f %12.1f%n", segments, seconds, (FILE_BYTES >> 20) / seconds);
+            }
+        } finally {
+            Files.deleteIfExists(target);
+            server.stop(0);
+            System.exit(0);
+        }
+    }
+
+    private static ReadableByteChannel open(HttpClient httpClient, URI uri, long start, long end) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(uri).header("Range", "bytes=" + start + "-" + end).build();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 206) {
+                response.body().close();
+                throw new IOException("Expected HTTP 206, got " + response.statusCode());
+            }
+            return Channels.newChannel(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Serve the requested byte range at the per-stream rate
+     */
+    private static void serve(HttpExchange exchange, byte[] archive) throws IOException {
+        int start = 0;
+        int end = archive.length - 1;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-");
+            start = Integer.parseInt(bounds[0]);
+            if (bounds.length > 1 && !bounds[1].isEmpty()) {
+                end = Math.min(end, Integer.parseInt(bounds[1]));
+            }
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + archive.length);
+            exchange.sendResponseHeaders(206, end - start + 1L);
+        } else {
+            exchange.sendResponseHeaders(200, archive.length);
+        }
+
+        long begin = System.nanoTime();
+        long sent = 0;
+        try (OutputStream body = exchange.getResponseBody()) {
+            for (int offset = start; offset <= end; offset += CHUNK_BYTES) {
+                int length = Math.min(CHUNK_BYTES, end - offset + 1);
+                body.write(archive, offset, length);
+                sent += length;
+                long dueNanos = sent * 1_000_000_000L / PER_STREAM_BYTES_PER_SECOND;
+                long aheadMillis = (dueNanos - (System.nanoTime() - begin)) / 1_000_000L;
+                if (aheadMillis > 0) {
+                    Thread.sleep(aheadMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.StreamingExtractor;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Benchmark comparing extraction of a downloaded archive with extraction straight from the
+ * response stream.
+ *
+ * The spool path writes the archive to disk, reopens it with ZipFile and deletes it, as the
+ * exporter does with remove_zip_after_extract. The streaming path reads the same archive bytes
+ * through StreamingExtractor. Both report elapsed time, bytes written and peak disk usage.
+ */
+public class StreamingExtractBenchmark {
+    private static final int ENTRIES = 16;
+    private static final int ENTRY_BYTES = 16 * 1024 * 1024;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        byte[] archive = createArchive();
+        long contentBytes = (long) ENTRIES * ENTRY_BYTES;
+        Path outputDir = Files.createTempDirectory("streaming-extract-benchmark");
+
+        try {
+            System.out.printf("%d entries, %d MB extracted from a %d MB archive%n",
+                    ENTRIES, contentBytes >> 20, archive.length >> 20);
+            System.out.printf("%10s %10s %16s %16s%n", "path", "seconds", "MB written", "peak disk MB");
+            for (int round = 0; round <= ROUNDS; round++) {
+                boolean report = round == ROUNDS;
+
+                long begin = System.nanoTime();
+                spool(archive, outputDir);
+                double seconds = (System.nanoTime() - begin) / 1e9;
+                if (report) {
+                    System.out.printf("%10s %10.2f %16d %16d%n", "spool", seconds,
+                            (archive.length + contentBytes) >> 20, (archive.length + contentBytes) >> 20);
+                }
+
+                begin = System.nanoTime();
+                StreamingExtractor.extract(new ByteArrayInputStream(archive), outputDir, null, null);
+                seconds = (System.nanoTime() - begin) / 1e9;
+                if (report) {
+                    System.out.printf("%10s %10.2f %16d %16d%n", "stream", seconds, contentBytes >> 20, contentBytes >> 20);
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(outputDir)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void spool(byte[] archive, Path outputDir) throws IOException {
+        Path zipFile = outputDir.resolve("export.zip");
+        Files.write(zipFile, archive);
+        try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+            Enumeration<ZipArchiveEntry> entries = zip.getEntries();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                try (InputStream inputStream = zip.getInputStream(entry)) {
+                    Files.copy(inputStream, outputDir.resolve(entry.getName()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        Files.delete(zipFile);
+    }
+
+    /**
+     * Archive of partly compressible JSON-like entries
+     */
+    private static byte[] createArchive() throws IOException {
+        Random random = new Random(42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            byte[] content = new byte[ENTRY_BYTES];
+            for (int i = 0; i < ENTRIES; i++) {
+                for (int j = 0; j < content.length; j++) {
+                    content[j] = (byte) ('a' + random.nextInt(16));
+                }
+                zip.putNextEntry(new ZipEntry("survey_" + i + ".json"));
+                zip.write(content);
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,78 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.HashedTimingWheel;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing the per-tick bookkeeping cost of the status poll timing wheel with a full
+ * sweep over every pending export, as the number of outstanding exports grows.
+ *
+ * Each run schedules N checks with delays between 10 and 60 seconds, then measures ticks that
+ * fall before any of them are due, so only the scheduler's own overhead is timed.
+ */
+public class TimingWheelBenchmark {
+    private static final int[] OUTSTANDING = {1_000, 10_000, 50_000, 100_000};
+    private static final int MEASURED_TICKS = 2_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%12s %18s %18s %18s%n", "outstanding", "insert ns/op", "wheel ns/tick", "sweep ns/tick");
+        for (int outstanding : OUTSTANDING) {
+            double insertNanos = 0;
+            double wheelNanos = 0;
+            // Warm up once, then report the second run
+            for (int run = 0; run < 2; run++) {
+                HashedTimingWheel wheel = new HashedTimingWheel(1, TimeUnit.MILLISECONDS, 65_536,
+                        Runnable::run, runnable -> new Thread(runnable, "benchmark-wheel"));
+                long begin = System.nanoTime();
+                for (int i = 0; i < outstanding; i++) {
+                    wheel.schedule(() -> { }, ThreadLocalRandom.current().nextLong(10_000, 60_000), TimeUnit.MILLISECONDS);
+                }
+                insertNanos = (System.nanoTime() - begin) / (double) outstanding;
+
+                // Let the wheel absorb the inserts before measuring steady-state ticks
+                while (wheel.getPendingTimeouts() > 0 && wheel.getTicks() < 100) {
+                    Thread.sleep(10);
+                }
+                long startTicks = wheel.getTicks();
+                double startAverage = wheel.getAverageTickNanos();
+                while (wheel.getTicks() - startTicks < MEASURED_TICKS) {
+                    Thread.sleep(10);
+                }
+                long endTicks = wheel.getTicks();
+                double total = wheel.getAverageTickNanos() * endTicks - startAverage * startTicks;
+                wheelNanos = total / (endTicks - startTicks);
+                wheel.stop();
+            }
+
+            System.out.printf("%12d %18.1f %18.1f %18.1f%n", outstanding, insertNanos, wheelNanos, sweep(outstanding));
+        }
+    }
+
+    /**
+     * Per-tick cost of checking every pending export's deadline, as a set-plus-sweep poller does
+     */
+    private static double sweep(int outstanding) {
+        Map<String, Long> pending = new HashMap<>();
+        for (int i = 0; i < outstanding; i++) {
+            pending.put("export-" + i, ThreadLocalRandom.current().nextLong(10_000, 60_000));
+        }
+        int due = 0;
+        long begin = System.nanoTime();
+        for (int tick = 0; tick < MEASURED_TICKS; tick++) {
+            for (Map.Entry<String, Long> entry : pending.entrySet()) {
+                if (entry.getValue() <= tick) {
+                    due++;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (due > 0) {
+            throw new IllegalStateException("No check should be due during the benchmark");
+        }
+        return elapsed / (double) MEASURED_TICKS;
+    }
+}
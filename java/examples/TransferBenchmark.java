@@ -0,0 +1,134 @@
+package com.vibrenthealth.apiclient.examples;
+
+import com.vibrenthealth.apiclient.core.FileTransfer;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Benchmark comparing the former 8 KB byte[] copy loop with the NIO transfer layer used for
+ * downloads and zip extraction.
+ *
+ * Both paths copy the same in-memory payload from a source that hands out at most 8 KB per read,
+ * like a socket-backed Okio source, into a file. Throughput and heap allocated per file are
+ * reported for each path.
+ */
+public class TransferBenchmark {
+    private static final int FILE_BYTES = 32 * 1024 * 1024;
+    private static final int FILES = 32;
+    private static final int SOURCE_READ_BYTES = 8192;
+
+    public static void main(String[] args) throws IOException {
+        byte[] payload = new byte[FILE_BYTES];
+        new Random(42).nextBytes(payload);
+        Path target = Files.createTempFile("transfer-benchmark", ".zip");
+
+        try {
+            // Warm up both paths before measuring
+            run("byte[] loop", payload, target, false, false);
+            run("NIO transfer", payload, target, true, false);
+
+            System.out.printf("%d files of %d MB%n", FILES, FILE_BYTES >> 20);
+            System.out.printf("%14s %10s %18s%n", "path", "MB/s", "heap bytes/file");
+            run("byte[] loop", payload, target, false, true);
+            run("NIO transfer", payload, target, true, true);
+        } finally {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static void run(String name, byte[] payload, Path target, boolean nio, boolean report) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < FILES; i++) {
+            if (nio) {
+                try (ReadableByteChannel source = new ChunkedSource(payload);
+                     FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    FileTransfer.copy(source, channel, null);
+                }
+            } else {
+                try (InputStream inputStream = new ChunkedSource(payload).asInputStream();
+                     FileOutputStream outputStream = new FileOutputStream(target.toFile())) {
+                    byte[] buffer = new byte[8192];
+                    int bytesRead;
+                    while ((bytesRead = inputStream.read(buffer)) != -1) {
+                        outputStream.write(buffer, 0, bytesRead);
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        if (Files.size(target) != payload.length) {
+            throw new IllegalStateException(name + " wrote " + Files.size(target) + " bytes");
+        }
+        if (report) {
+            System.out.printf("%14s %10.0f %18d%n", name, (double) FILES * (FILE_BYTES >> 20) / seconds, allocated / FILES);
+        }
+    }
+
+    /**
+     * In-memory source returning at most 8 KB per read
+     */
+    private static class ChunkedSource implements ReadableByteChannel {
+        private final byte[] data;
+        private int position;
+
+        ChunkedSource(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read(ByteBuffer destination) {
+            if (position >= data.length) {
+                return -1;
+            }
+            int length = Math.min(Math.min(SOURCE_READ_BYTES, destination.remaining()), data.length - position);
+            destination.put(data, position, length);
+            position += length;
+            return length;
+        }
+
+        InputStream asInputStream() {
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return position < data.length ? data[position++] & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    if (position >= data.length) {
+                        return -1;
+                    }
+                    int count = Math.min(Math.min(SOURCE_READ_BYTES, length), data.length - position);
+                    System.arraycopy(data, position, buffer, offset, count);
+                    position += count;
+                    return count;
+                }
+            };
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -2,13 +2,21 @@ package com.vibrenthealth.apiclient;
 
 import com.vibrenthealth.apiclient.core.ConfigManager;
 import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.ExportOrchestrator;
+import com.vibrenthealth.apiclient.core.Exporter;
 import com.vibrenthealth.apiclient.core.SurveyDataExporter;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.exporters.ExporterFactory;
 import com.vibrenthealth.apiclient.utils.Helpers;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Main entry point for Vibrent Health API Client
@@ -18,10 +26,28 @@ public class RunExport {
 
     public static void main(String[] args) {
         try {
-            // Parse command line arguments
+            // Parse command line arguments: [config file] [--export-type <type>[,<type>...]] [--resume <session>]
             String configFile = null;
-            if (args.length > 0) {
-                configFile = args[0];
+            String resumeSession = null;
+            List<String> exportTypes = Collections.singletonList(Constants.ExportType.SURVEY);
+            for (int i = 0; i < args.length; i++) {
+                if ("--resume".equals(args[i])) {
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException("--resume needs the session to resume, e.g. export_16_10_2026_140512");
+                    }
+                    resumeSession = args[++i];
+                } else if ("--export-type".equals(args[i])) {
+                    if (i + 1 == args.length) {
+                        throw new IllegalArgumentException("--export-type needs one or more comma-separated types, e.g. survey,ehr,device");
+                    }
+                    exportTypes = Arrays.stream(args[++i].split(",")).map(String::trim)
+                            .filter(type -> !type.isEmpty()).distinct().collect(Collectors.toList());
+                    if (exportTypes.isEmpty()) {
+                        throw new IllegalArgumentException("--export-type needs one or more comma-separated types, e.g. survey,ehr,device");
+                    }
+                } else if (configFile == null) {
+                    configFile = args[i];
+                }
             }
 
             // Load configuration
@@ -40,8 +66,28 @@ public class RunExport {
                 environment = (String) configManager.get(Constants.ConfigKeys.ENVIRONMENT + "." + Constants.ConfigKeys.DEFAULT);
             }
 
-            SurveyDataExporter exporter = new SurveyDataExporter(configManager, environment, null);
-            exporter.runExport();
+            // All export types share one client: connection pool, access token and rate limiters
+            try (VibrentHealthAPIClient client = new VibrentHealthAPIClient(configManager, environment)) {
+                SurveyDataExporter surveyExporter = null;
+                List<Exporter<?, ?>> exporters = new ArrayList<>();
+                for (String exportType : exportTypes) {
+                    if (Constants.ExportType.SURVEY.equals(exportType)) {
+                        surveyExporter = new SurveyDataExporter(configManager, environment, client, null, null, resumeSession);
+                    } else {
+                        exporters.add(ExporterFactory.create(exportType, client, configManager));
+                    }
+                }
+                if (resumeSession != null && surveyExporter == null) {
+                    throw new IllegalArgumentException("--resume applies to survey exports only");
+                }
+
+                if (exporters.isEmpty()) {
+                    surveyExporter.runExport();
+                } else {
+                    // Survey exports run alongside the orchestrated types on the same client and poll scheduler
+                    new ExportOrchestrator(configManager, client, exporters, surveyExporter).runExport();
+                }
+            }
 
         } catch (ConfigManager.ConfigurationError e) {
             System.err.println("Configuration error: " + e.getMessage());
@@ -0,0 +1,148 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter with AIMD (additive increase, multiplicative decrease) rate control.
+ *
+ * Each permit costs one token. Tokens refill at the current rate up to the burst size. The rate
+ * grows by a fixed step for every successful call and is cut by the decrease factor when the API
+ * answers with HTTP 429 or 503.
+ */
+public class AdaptiveRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveRateLimiter.class);
+
+    private final String name;
+    private final double minRate;
+    private final double maxRate;
+    private final double burst;
+    private final double increaseStep;
+    private final double decreaseFactor;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastDecreaseNanos;
+    private long throttleCount;
+
+    public AdaptiveRateLimiter(String name, double initialRate, double minRate, double maxRate,
+                               double burst, double increaseStep, double decreaseFactor) {
+        if (minRate <= 0 || maxRate < minRate) {
+            throw new IllegalArgumentException("Invalid rate bounds for " + name + ": min=" + minRate + ", max=" + maxRate);
+        }
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) {
+            throw new IllegalArgumentException("decrease_factor must be between 0 and 1 for " + name);
+        }
+        this.name = name;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.burst = Math.max(1.0, burst);
+        this.increaseStep = increaseStep;
+        this.decreaseFactor = decreaseFactor;
+        this.rate = Math.min(maxRate, Math.max(minRate, initialRate));
+        this.tokens = this.burst;
+        this.lastRefillNanos = System.nanoTime();
+        this.lastDecreaseNanos = 0L;
+    }
+
+    /**
+     * Create a limiter from a rate limit configuration section, falling back to defaults for missing keys
+     */
+    public static AdaptiveRateLimiter fromConfig(String name, Map<String, Object> config) {
+        return new AdaptiveRateLimiter(
+            name,
+            getDouble(config, Constants.ConfigKeys.INITIAL_RATE, Constants.RateLimit.DEFAULT_INITIAL_RATE),
+            getDouble(config, Constants.ConfigKeys.MIN_RATE, Constants.RateLimit.DEFAULT_MIN_RATE),
+            getDouble(config, Constants.ConfigKeys.MAX_RATE, Constants.RateLimit.DEFAULT_MAX_RATE),
+            getDouble(config, Constants.ConfigKeys.BURST, Constants.RateLimit.DEFAULT_BURST),
+            getDouble(config, Constants.ConfigKeys.INCREASE_STEP, Constants.RateLimit.DEFAULT_INCREASE_STEP),
+            getDouble(config, Constants.ConfigKeys.DECREASE_FACTOR, Constants.RateLimit.DEFAULT_DECREASE_FACTOR)
+        );
+    }
+
+    private static double getDouble(Map<String, Object> config, String key, double defaultValue) {
+        Object value = config != null ? config.get(key) : null;
+        return value instanceof Number ? ((Number) value).doubleValue() : defaultValue;
+    }
+
+    /**
+     * Block until a permit is available
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a permit and return how long the caller must wait before using it, in nanoseconds.
+     * The bucket may go into debt so that concurrent callers are queued behind each other.
+     */
+    public synchronized long reserve() {
+        refill();
+        tokens -= 1.0;
+        if (tokens >= 0) {
+            return 0L;
+        }
+        return (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * Record a successful call: additive increase
+     */
+    public synchronized void onSuccess() {
+        refill();
+        rate = Math.min(maxRate, rate + increaseStep);
+    }
+
+    /**
+     * Record a throttled call (HTTP 429/503): multiplicative decrease.
+     * Responses to requests that were already in flight when the first throttle arrived are
+     * absorbed by allowing at most one decrease per current refill interval.
+     */
+    public synchronized void onThrottle() {
+        refill();
+        throttleCount++;
+        long now = System.nanoTime();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        if (lastDecreaseNanos != 0L && now - lastDecreaseNanos < interval) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        double previous = rate;
+        rate = Math.max(minRate, rate * decreaseFactor);
+        tokens = Math.min(tokens, 0.0);
+        logger.warn("API throttled {} requests; reducing rate from {} to {} req/s",
+            name, String.format("%.2f", previous), String.format("%.2f", rate));
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(burst, tokens + elapsedSeconds * rate);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * Current permitted rate in requests per second
+     */
+    public synchronized double getCurrentRate() {
+        return rate;
+    }
+
+    /**
+     * Number of throttled responses observed
+     */
+    public synchronized long getThrottleCount() {
+        return throttleCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
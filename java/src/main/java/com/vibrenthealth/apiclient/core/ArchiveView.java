@@ -0,0 +1,187 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Read-only view over downloaded export archives, used instead of extracting them.
+ *
+ * Each archive is opened as a zip FileSystem, which reads only its central directory; entry data
+ * is inflated when a consumer reads the entry. The entries of all archives are merged into one
+ * namespace of entry names, and each name resolves to an NIO Path that works with the standard
+ * {@link Files} API. When two archives contain the same entry name, the first archive wins.
+ *
+ * The zip provider rewrites an archive on close if anything was written through its paths. To keep
+ * downloaded exports unchanged, each archive is opened through a symbolic link in a private
+ * temporary directory, so such a rewrite replaces the link and never the archive. The directory is
+ * deleted when the view is closed. Where the platform cannot create symbolic links, the archive is
+ * opened in place.
+ */
+public class ArchiveView implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveView.class);
+
+    private final List<FileSystem> fileSystems;
+    private final Map<String, Path> entries;
+    private final Path linkDirectory;
+
+    private ArchiveView(List<FileSystem> fileSystems, Map<String, Path> entries, Path linkDirectory) {
+        this.fileSystems = fileSystems;
+        this.entries = entries;
+        this.linkDirectory = linkDirectory;
+    }
+
+    /**
+     * Open a view over every zip archive in a directory and its immediate subdirectories. The
+     * entries of an archive in a subdirectory, such as one window of a split date range, are named
+     * under that subdirectory's name.
+     */
+    public static ArchiveView open(Path directory) throws IOException {
+        Map<Path, String> archives = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(directory, 2)) {
+            paths.filter(path -> Files.isRegularFile(path) && path.getFileName().toString().endsWith(".zip"))
+                    .forEach(archive -> archives.put(archive, archive.getParent().equals(directory)
+                            ? "" : archive.getParent().getFileName() + "/"));
+        }
+        return open(archives);
+    }
+
+    /**
+     * Open a view over the given archives
+     */
+    public static ArchiveView open(List<Path> archives) throws IOException {
+        Map<Path, String> unprefixed = new LinkedHashMap<>();
+        for (Path archive : archives) {
+            unprefixed.put(archive, "");
+        }
+        return open(unprefixed);
+    }
+
+    /**
+     * Open a view over archives whose entry names are each given a prefix
+     */
+    private static ArchiveView open(Map<Path, String> archives) throws IOException {
+        List<FileSystem> fileSystems = new ArrayList<>();
+        Map<String, Path> entries = new TreeMap<>();
+        Path linkDirectory = Files.createTempDirectory(Constants.Extraction.ARCHIVE_VIEW_LINK_PREFIX);
+        try {
+            for (Map.Entry<Path, String> prefixedArchive : archives.entrySet()) {
+                Path archive = prefixedArchive.getKey();
+                FileSystem fileSystem = FileSystems.newFileSystem(link(linkDirectory, archive, fileSystems.size()));
+                fileSystems.add(fileSystem);
+
+                Path root = fileSystem.getPath("/");
+                try (Stream<Path> paths = Files.walk(root)) {
+                    paths.filter(Files::isRegularFile).forEach(path -> {
+                        Path existing = entries.putIfAbsent(prefixedArchive.getValue() + root.relativize(path), path);
+                        if (existing != null) {
+                            logger.warn("Entry {} in {} is hidden by the same entry in an earlier archive", path, archive);
+                        }
+                    });
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                closeAll(fileSystems, linkDirectory);
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        logger.info("Opened read-only view of {} entries in {} archives", entries.size(), fileSystems.size());
+        return new ArchiveView(fileSystems, entries, linkDirectory);
+    }
+
+    /**
+     * Symbolic link to an archive in the view's link directory, or the archive itself where links
+     * are not supported
+     */
+    private static Path link(Path linkDirectory, Path archive, int index) throws IOException {
+        Path link = linkDirectory.resolve(index + ".zip");
+        try {
+            return Files.createSymbolicLink(link, archive.toAbsolutePath());
+        } catch (UnsupportedOperationException | IOException e) {
+            logger.warn("Cannot link {} ({}); opening it in place", archive, e.getMessage());
+            return archive;
+        }
+    }
+
+    /**
+     * Names of all entries, relative to the archive roots, in sorted order
+     */
+    public List<String> getEntryNames() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Path of an entry for reading with the Files API
+     *
+     * @throws NoSuchFileException if no archive contains the entry
+     */
+    public Path getPath(String name) throws NoSuchFileException {
+        Path path = entries.get(name);
+        if (path == null) {
+            throw new NoSuchFileException(name);
+        }
+        return path;
+    }
+
+    /**
+     * Paths of the entries whose names match a glob pattern. A pattern without a '/', such as
+     * "*.json", is matched against the entry's file name in any directory; a pattern with one, such
+     * as "responses/**.csv", against the whole entry name.
+     */
+    public List<Path> find(String glob) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        boolean wholeName = glob.contains("/");
+        return entries.entrySet().stream()
+                .filter(entry -> {
+                    Path name = Path.of(entry.getKey());
+                    return matcher.matches(wholeName ? name : name.getFileName());
+                })
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeAll(fileSystems, linkDirectory);
+    }
+
+    private static void closeAll(List<FileSystem> fileSystems, Path linkDirectory) throws IOException {
+        IOException failure = null;
+        for (FileSystem fileSystem : fileSystems) {
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        try (Stream<Path> paths = Files.walk(linkDirectory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
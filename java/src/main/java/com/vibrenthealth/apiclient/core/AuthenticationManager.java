@@ -68,7 +68,7 @@ public class AuthenticationManager {
     /**
      * Authenticate and get access token
      */
-    public String authenticate() {
+    public synchronized String authenticate() {
         logger.info("Authenticating with {} environment", environment);
         logger.info("Token URL: {}", tokenUrl);
 
@@ -121,7 +121,7 @@ public class AuthenticationManager {
     /**
      * Get a valid access token, refreshing if necessary
      */
-    public String getValidToken() {
+    public synchronized String getValidToken() {
         if (accessToken == null || 
             (tokenExpiresAt != null && System.currentTimeMillis() / 1000 >= tokenExpiresAt - refreshBuffer)) {
             authenticate();
@@ -133,8 +133,22 @@ public class AuthenticationManager {
      * Custom exception for Vibrent Health API errors
      */
     public static class VibrentHealthAPIError extends RuntimeException {
+        private final Integer statusCode;
+
         public VibrentHealthAPIError(String message) {
+            this(message, null);
+        }
+
+        public VibrentHealthAPIError(String message, Integer statusCode) {
             super(message);
+            this.statusCode = statusCode;
+        }
+
+        /**
+         * HTTP status code of the failed response, or null for transport and client-side errors
+         */
+        public Integer getStatusCode() {
+            return statusCode;
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket that caps the combined byte rate of all downloads.
+ *
+ * Each chunk read from a download stream costs its size in bytes. The bucket holds at most one
+ * second of traffic, so concurrent transfers share the cap instead of each getting their own.
+ */
+public class BandwidthLimiter {
+    private final double bytesPerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public BandwidthLimiter(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("max_bytes_per_second must be positive: " + bytesPerSecond);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.tokens = bytesPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Block until the given number of bytes may be transferred
+     */
+    public void acquire(int bytes) throws InterruptedException {
+        long waitNanos = reserve(bytes);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take the bytes from the bucket and return how long the caller must wait, in nanoseconds.
+     * The bucket may go into debt so that concurrent transfers are queued behind each other.
+     */
+    private synchronized long reserve(int bytes) {
+        long now = System.nanoTime();
+        double elapsedSeconds = (now - lastRefillNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        tokens = Math.min(bytesPerSecond, tokens + elapsedSeconds * bytesPerSecond);
+        lastRefillNanos = now;
+
+        tokens -= bytes;
+        if (tokens >= 0) {
+            return 0L;
+        }
+        return (long) (-tokens / bytesPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    public long getBytesPerSecond() {
+        return (long) bytesPerSecond;
+    }
+}
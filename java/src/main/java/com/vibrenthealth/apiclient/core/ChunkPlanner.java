@@ -0,0 +1,278 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the date range windows of each survey's exports from window sizes learned in previous runs.
+ *
+ * A survey without a learned size is requested in windows of the initial size. An export that
+ * stays in progress longer than the duration budget, or fails for a reason that means its window
+ * is too large, has its window bisected and the halves requested in its place, down to the minimum
+ * window size and at most max bisections per survey and run. Other failures are not retried. The
+ * half size becomes the survey's learned size, kept per platformFormId in a local state file, so the
+ * next run requests windows that size from the start. After a run in which every window of a survey
+ * completed without a bisection, its learned size doubles, up to the initial size.
+ *
+ * The API cannot cancel an export, so an export bisected for running over budget keeps running on
+ * the server after its halves are requested; its result is not used. The duration budget should be
+ * well above the time a healthy export takes, so this costs server work only for exports that
+ * would have taken far longer.
+ */
+public class ChunkPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkPlanner.class);
+
+    /**
+     * A requested window awaiting its outcome
+     */
+    private static class Submission {
+        private final Integer platformFormId;
+        private final DateRangeChunk chunk;
+        private final long submitNanos = System.nanoTime();
+
+        Submission(Integer platformFormId, DateRangeChunk chunk) {
+            this.platformFormId = platformFormId;
+            this.chunk = chunk;
+        }
+    }
+
+    private final Path stateFile;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Map<String, Object>> forms;
+    private final int initialDays;
+    private final int minDays;
+    private final long durationBudgetMillis;
+    private final int maxBisections;
+    private final List<Pattern> sizeFailurePatterns;
+    private final Map<String, Submission> submissions = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> plannedDays = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> bisectionsBySurvey = new ConcurrentHashMap<>();
+    private final Set<Integer> completedSurveys = ConcurrentHashMap.newKeySet();
+    private final Set<Integer> failedSurveys = ConcurrentHashMap.newKeySet();
+    private final List<Map<String, Object>> bisections = Collections.synchronizedList(new ArrayList<>());
+
+    private ChunkPlanner(Path stateFile, Map<String, Map<String, Object>> forms, int initialDays, int minDays,
+                         long durationBudgetMillis, int maxBisections, List<String> sizeFailurePatterns) {
+        this.stateFile = stateFile;
+        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.forms = forms;
+        this.initialDays = initialDays;
+        this.minDays = minDays;
+        this.durationBudgetMillis = durationBudgetMillis;
+        this.maxBisections = maxBisections;
+        this.sizeFailurePatterns = sizeFailurePatterns.stream()
+                .map(pattern -> Pattern.compile(pattern, Pattern.CASE_INSENSITIVE))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Load the learned window sizes, starting empty if the state file is missing or unreadable
+     *
+     * @param durationBudgetMillis time an export may stay in progress before its window is bisected, or 0 for no limit
+     * @param maxBisections        windows of one survey bisected at most per run
+     * @param sizeFailurePatterns  regular expressions, matched case-insensitively, for the failure reasons of an
+     *                             export whose window is too large
+     */
+    public static ChunkPlanner load(Path stateFile, int initialDays, int minDays, long durationBudgetMillis,
+                                    int maxBisections, List<String> sizeFailurePatterns) {
+        Map<String, Map<String, Object>> forms = new TreeMap<>();
+        if (Files.exists(stateFile)) {
+            try {
+                forms.putAll(new ObjectMapper().readValue(stateFile.toFile(),
+                        new TypeReference<Map<String, Map<String, Object>>>() { }));
+                logger.debug("Loaded window sizes for {} forms from {}", forms.size(), stateFile);
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable chunk size state {}: {}", stateFile, e.getMessage());
+            }
+        }
+        return new ChunkPlanner(stateFile, forms, initialDays, minDays, durationBudgetMillis, maxBisections,
+                sizeFailurePatterns);
+    }
+
+    /**
+     * Window size in days to request a form's exports in: its learned size, or the initial size
+     */
+    public synchronized int getWindowDays(Integer platformFormId) {
+        Map<String, Object> entry = forms.get(String.valueOf(platformFormId));
+        Object windowDays = entry != null ? entry.get("window_days") : null;
+        return windowDays instanceof Number ? Math.max(minDays, ((Number) windowDays).intValue()) : initialDays;
+    }
+
+    /**
+     * Split a date range into the windows to request for a form
+     */
+    public List<DateRangeChunk> plan(Integer platformFormId, long startTime, long endTime) {
+        int windowDays = getWindowDays(platformFormId);
+        plannedDays.put(platformFormId, windowDays);
+        return DateRangeChunk.split(startTime, endTime, windowDays * Constants.TimeConstants.MS_PER_DAY);
+    }
+
+    /**
+     * Start the duration budget of a requested window
+     */
+    public void submitted(String exportId, Integer platformFormId, DateRangeChunk chunk) {
+        submissions.put(exportId, new Submission(platformFormId, chunk));
+    }
+
+    /**
+     * Whether an export has been in progress longer than the duration budget and its window can
+     * still be bisected
+     */
+    public boolean isOverBudget(String exportId) {
+        Submission submission = submissions.get(exportId);
+        return submission != null && durationBudgetMillis > 0 && canBisect(submission)
+                && TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submission.submitNanos) > durationBudgetMillis;
+    }
+
+    /**
+     * Bisect the window of an export that ran over budget or failed because its window is too
+     * large, shrinking its form's learned window size to the half
+     *
+     * @param outcome       FAILED or TIMED_OUT
+     * @param failureReason reason the server gave for a FAILED export, or null
+     * @return the halves to request in its place, or an empty list if the failure is not about the window size,
+     *         the window is already the minimum size or the survey has used up its bisections
+     */
+    public List<DateRangeChunk> bisect(String exportId, String outcome, String failureReason) {
+        Submission submission = submissions.remove(exportId);
+        if (submission == null) {
+            return Collections.emptyList();
+        }
+        synchronized (this) {
+            if (!canBisect(submission)
+                    || (Constants.ExportStatus.FAILED.equals(outcome) && !isSizeFailure(failureReason))) {
+                failedSurveys.add(submission.platformFormId);
+                return Collections.emptyList();
+            }
+            bisectionsBySurvey.computeIfAbsent(submission.platformFormId, id -> new AtomicInteger()).incrementAndGet();
+        }
+
+        List<DateRangeChunk> halves = submission.chunk.bisect();
+        int halfDays = (int) Math.max(minDays, halves.get(0).getDurationMillis() / Constants.TimeConstants.MS_PER_DAY);
+        synchronized (this) {
+            if (halfDays < getWindowDays(submission.platformFormId)) {
+                Map<String, Object> entry = forms.computeIfAbsent(String.valueOf(submission.platformFormId),
+                        key -> new LinkedHashMap<>());
+                entry.put("window_days", halfDays);
+            }
+        }
+
+        Map<String, Object> bisection = new LinkedHashMap<>();
+        bisection.put("platformFormId", submission.platformFormId);
+        bisection.put("exportId", exportId);
+        bisection.put("outcome", outcome);
+        if (failureReason != null) {
+            bisection.put("failureReason", failureReason);
+        }
+        // An export cannot be cancelled, so one that ran over budget is left running on the server
+        bisection.put("abandoned_on_server", Constants.ExportStatus.TIMED_OUT.equals(outcome));
+        bisection.putAll(submission.chunk.toMetadata());
+        bisections.add(bisection);
+        return halves;
+    }
+
+    /**
+     * Stop tracking a window whose export completed
+     */
+    public void finished(String exportId) {
+        Submission submission = submissions.remove(exportId);
+        if (submission != null) {
+            completedSurveys.add(submission.platformFormId);
+        }
+    }
+
+    private boolean canBisect(Submission submission) {
+        AtomicInteger used = bisectionsBySurvey.get(submission.platformFormId);
+        return submission.chunk.getDurationMillis() >= 2L * minDays * Constants.TimeConstants.MS_PER_DAY
+                && (used == null || used.get() < maxBisections);
+    }
+
+    private boolean isSizeFailure(String failureReason) {
+        if (failureReason == null) {
+            return false;
+        }
+        for (Pattern pattern : sizeFailurePatterns) {
+            if (pattern.matcher(failureReason).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Double the learned size of each survey whose windows all completed in this run without a
+     * bisection or failure, up to the initial size, at which point its entry is dropped. Each run
+     * grows a size at most once.
+     */
+    private void growLearnedSizes() {
+        Set<Integer> unfinished = new HashSet<>();
+        for (Submission submission : submissions.values()) {
+            unfinished.add(submission.platformFormId);
+        }
+        for (Integer platformFormId : completedSurveys) {
+            String key = String.valueOf(platformFormId);
+            if (!forms.containsKey(key) || bisectionsBySurvey.containsKey(platformFormId)
+                    || failedSurveys.contains(platformFormId) || unfinished.contains(platformFormId)) {
+                continue;
+            }
+            int grown = (int) Math.min(initialDays, 2L * getWindowDays(platformFormId));
+            if (grown >= initialDays) {
+                forms.remove(key);
+            } else {
+                forms.get(key).put("window_days", grown);
+            }
+            logger.info("Window size of survey {} grows to {} days after a run without bisections", platformFormId, grown);
+        }
+        completedSurveys.clear();
+    }
+
+    /**
+     * Planned window sizes and bisected windows for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("initial_days", initialDays);
+        metrics.put("min_days", minDays);
+        metrics.put("duration_budget_seconds", TimeUnit.MILLISECONDS.toSeconds(durationBudgetMillis));
+        metrics.put("max_bisections", maxBisections);
+        metrics.put("window_days_by_survey", new TreeMap<>(plannedDays));
+        synchronized (bisections) {
+            metrics.put("bisections", new ArrayList<>(bisections));
+        }
+        return metrics;
+    }
+
+    /**
+     * Grow the learned sizes of the surveys that exported without trouble, and write the learned
+     * window sizes back to disk
+     */
+    public synchronized void save() {
+        growLearnedSizes();
+        try {
+            Files.createDirectories(stateFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(stateFile.toFile(), forms);
+        } catch (IOException e) {
+            logger.warn("Failed to save chunk size state {}: {}", stateFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Locally persisted record of how long exports of each form took to complete in previous runs.
+ *
+ * Durations are kept as an exponentially weighted average per platformFormId, so the estimate
+ * follows a form whose data grows over time.
+ */
+public class CompletionHistory {
+    private static final Logger logger = LoggerFactory.getLogger(CompletionHistory.class);
+
+    private final Path historyFile;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Map<String, Object>> forms;
+
+    private CompletionHistory(Path historyFile, Map<String, Map<String, Object>> forms) {
+        this.historyFile = historyFile;
+        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.forms = forms;
+    }
+
+    /**
+     * Load the history file, starting empty if it is missing or unreadable
+     */
+    public static CompletionHistory load(Path historyFile) {
+        Map<String, Map<String, Object>> forms = new TreeMap<>();
+        if (Files.exists(historyFile)) {
+            try {
+                forms.putAll(new ObjectMapper().readValue(historyFile.toFile(),
+                        new TypeReference<Map<String, Map<String, Object>>>() { }));
+                logger.debug("Loaded completion history for {} forms from {}", forms.size(), historyFile);
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable completion history {}: {}", historyFile, e.getMessage());
+            }
+        }
+        return new CompletionHistory(historyFile, forms);
+    }
+
+    /**
+     * Expected completion time for a form in milliseconds, or null if it has no history
+     */
+    public synchronized Long getExpectedMillis(Integer platformFormId) {
+        if (platformFormId == null) {
+            return null;
+        }
+        Map<String, Object> entry = forms.get(String.valueOf(platformFormId));
+        Object average = entry != null ? entry.get("average_seconds") : null;
+        return average instanceof Number ? (long) (((Number) average).doubleValue() * 1000) : null;
+    }
+
+    /**
+     * Record an observed completion time for a form
+     */
+    public synchronized void record(Integer platformFormId, long durationMillis) {
+        if (platformFormId == null) {
+            return;
+        }
+        double seconds = durationMillis / 1000.0;
+        Map<String, Object> entry = forms.computeIfAbsent(String.valueOf(platformFormId), key -> new LinkedHashMap<>());
+        Object average = entry.get("average_seconds");
+        Object samples = entry.get("samples");
+        if (average instanceof Number) {
+            double alpha = Constants.Polling.HISTORY_SMOOTHING;
+            seconds = alpha * seconds + (1 - alpha) * ((Number) average).doubleValue();
+        }
+        entry.put("average_seconds", Math.round(seconds * 10) / 10.0);
+        entry.put("samples", (samples instanceof Number ? ((Number) samples).intValue() : 0) + 1);
+    }
+
+    /**
+     * Write the history back to disk
+     */
+    public synchronized void save() {
+        try {
+            Files.createDirectories(historyFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(historyFile.toFile(), forms);
+        } catch (IOException e) {
+            logger.warn("Failed to save completion history {}: {}", historyFile, e.getMessage());
+        }
+    }
+}
@@ -127,11 +127,13 @@ public class ConfigManager {
         Map<String, Object> staging = new LinkedHashMap<>();
         staging.put(Constants.ConfigKeys.BASE_URL, "YOUR_STAGING_BASE_URL_HERE");
         staging.put(Constants.ConfigKeys.TOKEN_URL, "YOUR_STAGING_TOKEN_URL_HERE");
+        staging.put(Constants.ConfigKeys.MAX_CONCURRENT_REQUESTS, Constants.Concurrency.DEFAULT_MAX_CONCURRENT_REQUESTS);
         environments.put(Constants.Environment.STAGING, staging);
         
         Map<String, Object> production = new LinkedHashMap<>();
         production.put(Constants.ConfigKeys.BASE_URL, "YOUR_PRODUCTION_BASE_URL_HERE");
         production.put(Constants.ConfigKeys.TOKEN_URL, "YOUR_PRODUCTION_TOKEN_URL_HERE");
+        production.put(Constants.ConfigKeys.MAX_CONCURRENT_REQUESTS, Constants.Concurrency.DEFAULT_MAX_CONCURRENT_REQUESTS);
         environments.put(Constants.Environment.PRODUCTION, production);
         
         environment.put(Constants.ConfigKeys.ENVIRONMENTS, environments);
@@ -315,13 +317,75 @@ public class ConfigManager {
         return result;
     }
 
+    /**
+     * Get the maximum number of export requests allowed in flight for an environment
+     */
+    public int getMaxConcurrentRequests(String environment) {
+        String value = getEnvironmentConfig(environment).get(Constants.ConfigKeys.MAX_CONCURRENT_REQUESTS);
+        if (value == null || "null".equals(value)) {
+            return Constants.Concurrency.DEFAULT_MAX_CONCURRENT_REQUESTS;
+        }
+
+        try {
+            int maxConcurrent = Integer.parseInt(value);
+            if (maxConcurrent < 1) {
+                throw new ConfigurationError("max_concurrent_requests must be at least 1 for environment: " + environment);
+            }
+            return maxConcurrent;
+        } catch (NumberFormatException e) {
+            throw new ConfigurationError(String.format(Constants.ErrorMessages.INVALID_CONFIG,
+                "max_concurrent_requests is not a number: " + value));
+        }
+    }
+
+    /**
+     * Get the rate limit configuration for an endpoint class (api.rate_limits.<class>)
+     */
+    public Map<String, Object> getRateLimitConfig(String endpointClass) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rateLimitConfig = (Map<String, Object>) get(
+            Constants.ConfigKeys.API + "." + Constants.ConfigKeys.RATE_LIMITS + "." + endpointClass
+        );
+        return rateLimitConfig != null ? rateLimitConfig : new HashMap<>();
+    }
+
+    /**
+     * Get the retry policy configuration (api.retry)
+     */
+    public Map<String, Object> getRetryConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> retryConfig = (Map<String, Object>) get(Constants.ConfigKeys.API + "." + Constants.ConfigKeys.RETRY);
+        return retryConfig != null ? retryConfig : new HashMap<>();
+    }
+
+    /**
+     * Get the asynchronous API configuration (api.async)
+     */
+    public Map<String, Object> getAsyncConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> asyncConfig = (Map<String, Object>) get(Constants.ConfigKeys.API + "." + Constants.ConfigKeys.ASYNC);
+        return asyncConfig != null ? asyncConfig : new HashMap<>();
+    }
+
     /**
      * Get the configured date range for exports
      */
     public Map<String, Long> getDateRange() {
         @SuppressWarnings("unchecked")
         Map<String, Object> dateConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.DATE_RANGE);
+        return toDateRange(dateConfig);
+    }
+
+    /**
+     * Get the configured date range of an export type (<type>_export.date_range)
+     */
+    public Map<String, Long> getDateRange(String exportType) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> dateConfig = (Map<String, Object>) getExportConfig(exportType).get(Constants.ConfigKeys.DATE_RANGE);
+        return toDateRange(dateConfig != null ? dateConfig : new HashMap<>());
+    }
 
+    private Map<String, Long> toDateRange(Map<String, Object> dateConfig) {
         // Check for absolute dates first
         String absoluteStart = (String) dateConfig.get(Constants.ConfigKeys.ABSOLUTE_START_DATE);
         String absoluteEnd = (String) dateConfig.get(Constants.ConfigKeys.ABSOLUTE_END_DATE);
@@ -352,6 +416,22 @@ public class ConfigManager {
         }
     }
 
+    /**
+     * Get the configuration section of an export type (<type>_export)
+     */
+    public Map<String, Object> getExportConfig(String exportType) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> exportConfig = (Map<String, Object>) get(exportType + Constants.ExportType.CONFIG_SECTION_SUFFIX);
+        return exportConfig != null ? exportConfig : new HashMap<>();
+    }
+
+    /**
+     * Whether the requests of an export type carry a date range (<type>_export.use_date_range)
+     */
+    public boolean shouldUseDateRange(String exportType) {
+        return (Boolean) getExportConfig(exportType).getOrDefault(Constants.ConfigKeys.USE_DATE_RANGE, true);
+    }
+
     /**
      * Get survey filtering configuration
      */
@@ -402,6 +482,70 @@ public class ConfigManager {
         return true;
     }
 
+    /**
+     * Get adaptive polling configuration (export.monitoring.adaptive_polling)
+     */
+    public Map<String, Object> getAdaptivePollingConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pollingConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." +
+                Constants.ConfigKeys.MONITORING + "." + Constants.ConfigKeys.ADAPTIVE_POLLING);
+        return pollingConfig != null ? pollingConfig : new HashMap<>();
+    }
+
+    /**
+     * Get download configuration (export.download)
+     */
+    public Map<String, Object> getDownloadConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> downloadConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.DOWNLOAD);
+        return downloadConfig != null ? downloadConfig : new HashMap<>();
+    }
+
+    /**
+     * Get extraction configuration (export.extraction)
+     */
+    public Map<String, Object> getExtractionConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> extractionConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.EXTRACTION);
+        return extractionConfig != null ? extractionConfig : new HashMap<>();
+    }
+
+    /**
+     * Get columnar output configuration (export.columnar)
+     */
+    public Map<String, Object> getColumnarConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> columnarConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.COLUMNAR);
+        return columnarConfig != null ? columnarConfig : new HashMap<>();
+    }
+
+    /**
+     * Get merge configuration (export.merge)
+     */
+    public Map<String, Object> getMergeConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> mergeConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.MERGE);
+        return mergeConfig != null ? mergeConfig : new HashMap<>();
+    }
+
+    /**
+     * Get journal configuration (export.journal)
+     */
+    public Map<String, Object> getJournalConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> journalConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.JOURNAL);
+        return journalConfig != null ? journalConfig : new HashMap<>();
+    }
+
+    /**
+     * Get pipeline configuration (export.pipeline)
+     */
+    public Map<String, Object> getPipelineConfig() {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pipelineConfig = (Map<String, Object>) get(Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.PIPELINE);
+        return pipelineConfig != null ? pipelineConfig : new HashMap<>();
+    }
+
     /**
      * Get output configuration
      */
@@ -415,9 +559,17 @@ public class ConfigManager {
      * Get the survey output directory path
      */
     public String getSurveyOutputDirectory() {
+        return getExportOutputDirectory(Constants.ExportType.SURVEY);
+    }
+
+    /**
+     * Get the output directory path of an export type (output.<type>_exports_dir, default <type>_exports)
+     */
+    public String getExportOutputDirectory(String exportType) {
         Map<String, Object> outputConfig = getOutputConfig();
         String baseDir = (String) outputConfig.getOrDefault(Constants.ConfigKeys.BASE_DIRECTORY, Constants.FileConstants.OUTPUT_BASE_DIR);
-        String surveyDir = (String) outputConfig.getOrDefault(Constants.ConfigKeys.SURVEY_EXPORTS_DIR, Constants.FileConstants.SURVEY_EXPORTS_DIR);
+        String exportDir = exportType + Constants.ExportType.OUTPUT_DIRECTORY_SUFFIX;
+        String typeDir = (String) outputConfig.getOrDefault(exportDir + "_dir", exportDir);
 
         // Get the repo root (same logic as findConfigFile)
         String currentDir = System.getProperty("user.dir");
@@ -426,7 +578,7 @@ public class ConfigManager {
         // Always use the repo root as the base, then add java/output
         String fullBaseDir = Paths.get(repoRoot, "java", baseDir).toString();
         
-        return Paths.get(fullBaseDir, surveyDir).toString();
+        return Paths.get(fullBaseDir, typeDir).toString();
     }
 
     /**
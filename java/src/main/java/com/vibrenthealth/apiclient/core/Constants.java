@@ -1,5 +1,7 @@
 package com.vibrenthealth.apiclient.core;
 
+import java.util.List;
+
 /**
  * Constants for Vibrent Health API Client
  * 
@@ -41,6 +43,15 @@ public class Constants {
         public static final String BULK_SURVEY_EXPORT_REQUEST = "/api/ext/export/survey/request";
     }
     
+    // Endpoint classes used for per-class rate limiting
+    public static class EndpointClass {
+        /** Endpoint class constants (also the keys under api.rate_limits) */
+        public static final String FORMS = "forms";
+        public static final String EXPORT_REQUEST = "export_request";
+        public static final String STATUS = "status";
+        public static final String DOWNLOAD = "download";
+    }
+
     // Export Status Constants
     public static class ExportStatus {
         /** Export status constants */
@@ -48,6 +59,9 @@ public class Constants {
         public static final String IN_PROGRESS = "IN_PROGRESS";
         public static final String COMPLETED = "COMPLETED";
         public static final String FAILED = "FAILED";
+
+        // Client-side outcome of an export that ran past its duration budget and was requested again in parts
+        public static final String TIMED_OUT = "TIMED_OUT";
     }
     
     // Export Format Constants
@@ -57,6 +71,28 @@ public class Constants {
         public static final String CSV = "CSV";
     }
     
+    // Export Type Constants
+    public static class ExportType {
+        /** Export type identifiers; each has a <type>_export config section and a <type>_exports output directory */
+        public static final String SURVEY = "survey";
+        public static final String EHR = "ehr";
+        public static final String DEVICE = "device";
+        public static final String PARTICIPANT_PROFILES = "participant_profiles";
+        public static final String COMMUNICATION_EVENTS = "communication_events";
+
+        public static final String CONFIG_SECTION_SUFFIX = "_export";
+        public static final String OUTPUT_DIRECTORY_SUFFIX = "_exports";
+        // Session directory under a type's output directory
+        public static final String SESSION_DIRECTORY_FORMAT = "%s_data_%s";
+    }
+
+    // Participant Batch Constants
+    public static class ParticipantBatch {
+        /** Most participants the API accepts in one export request; manifest-only requests are unlimited */
+        public static final int MAX_DATA_PARTICIPANTS = 100;
+        public static final int MAX_PROFILES_PARTICIPANTS = 1000;
+    }
+    
     // Environment Constants
     public static class Environment {
         /** Environment constants */
@@ -69,6 +105,9 @@ public class Constants {
         /** Request header constants */
         public static final String AUTHORIZATION = "Authorization";
         public static final String CONTENT_TYPE = "Content-Type";
+        public static final String RETRY_AFTER = "Retry-After";
+        public static final String RANGE = "Range";
+        public static final String CONTENT_RANGE = "Content-Range";
         
         // Content types
         public static final String APPLICATION_X_WWW_FORM_URLENCODED = "application/x-www-form-urlencoded";
@@ -87,6 +126,178 @@ public class Constants {
         // Token refresh buffer (5 minutes)
         public static final int TOKEN_REFRESH_BUFFER = 300;
     }
+
+    // Concurrency Constants
+    public static class Concurrency {
+        /** Concurrency-related constants */
+        // Maximum export requests in flight per environment
+        public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+        // Maximum export status checks in flight at once
+        public static final int DEFAULT_MAX_CONCURRENT_STATUS_CHECKS = 16;
+    }
+
+    // Rate Limit Constants
+    public static class RateLimit {
+        /** Adaptive rate limiter defaults (requests per second) */
+        public static final double DEFAULT_INITIAL_RATE = 2.0;
+        public static final double DEFAULT_MIN_RATE = 0.2;
+        public static final double DEFAULT_MAX_RATE = 20.0;
+        public static final double DEFAULT_BURST = 5.0;
+        public static final double DEFAULT_INCREASE_STEP = 0.1;
+        public static final double DEFAULT_DECREASE_FACTOR = 0.5;
+
+        // HTTP status codes that signal the API is overloaded
+        public static final int HTTP_TOO_MANY_REQUESTS = 429;
+        public static final int HTTP_SERVICE_UNAVAILABLE = 503;
+    }
+
+    // Polling Constants
+    public static class Polling {
+        /** Adaptive per-export status polling defaults (seconds) */
+        public static final int DEFAULT_INITIAL_DELAY = 2;
+        public static final double DEFAULT_BACKOFF_FACTOR = 1.5;
+        public static final int DEFAULT_MAX_INTERVAL = 60;
+
+        // First poll of a form with history happens at this fraction of its expected duration
+        public static final double EXPECTED_DURATION_FRACTION = 0.8;
+        // Weight of the newest observation in the completion time average
+        public static final double HISTORY_SMOOTHING = 0.3;
+        public static final String DEFAULT_HISTORY_FILE = ".export_history.json";
+
+        // Timing wheel granularity and size; 8192 ticks of 100 ms span about 13.6 minutes
+        public static final long WHEEL_TICK_MILLIS = 100L;
+        public static final int WHEEL_SIZE = 8192;
+    }
+
+    // Download Constants
+    public static class Download {
+        /** Export download defaults */
+        public static final int DEFAULT_MAX_CONCURRENT_DOWNLOADS = 4;
+
+        // Suffix of a download in progress; renamed to the final name once complete
+        public static final String PART_FILE_SUFFIX = ".part";
+
+        // Segmented download: files of at least this size are fetched as parallel byte ranges
+        public static final long DEFAULT_SEGMENT_THRESHOLD_BYTES = 256L * 1024 * 1024;
+        public static final int DEFAULT_SEGMENTS = 4;
+
+        // Extract archives from the response stream when they are not kept after extraction
+        public static final boolean DEFAULT_STREAM_EXTRACT = true;
+
+        // NIO transfer chunk sizes and number of idle direct buffers kept for reuse
+        public static final int TRANSFER_MIN_CHUNK_BYTES = 64 * 1024;
+        public static final int TRANSFER_MAX_CHUNK_BYTES = 1024 * 1024;
+        public static final int TRANSFER_BUFFER_POOL_SIZE = 16;
+
+        // HTTP status codes for range requests
+        public static final int HTTP_PARTIAL_CONTENT = 206;
+        public static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    }
+
+    // Pipeline Constants
+    public static class Pipeline {
+        /** Overlapped request/poll/download/extract pipeline defaults */
+        public static final int DEFAULT_QUEUE_CAPACITY = 64;
+    }
+
+    // Extraction Constants
+    public static class Extraction {
+        /** Fork/join archive extraction defaults; parallelism defaults to the number of processors */
+        public static final int DEFAULT_MAX_CONCURRENT_WRITES = 4;
+
+        // Archives of at least this size have their entries extracted concurrently
+        public static final long DEFAULT_ENTRY_THRESHOLD_BYTES = 64L * 1024 * 1024;
+
+        // Index of previously extracted entries, under the survey exports directory; off unless configured
+        public static final boolean DEFAULT_INCREMENTAL = false;
+        public static final String DEFAULT_INDEX_FILE = ".extract_index.json";
+
+        // Temporary directory of links an ArchiveView opens its archives through
+        public static final String ARCHIVE_VIEW_LINK_PREFIX = "archive-view";
+    }
+
+    // Columnar Output Constants
+    public static class Columnar {
+        /** Optional columnar copy of the extracted files, one file per survey */
+        public static final String FORMAT_NONE = "none";
+        public static final String FORMAT_PARQUET = "parquet";
+        public static final String PARQUET_FILENAME_FORMAT = "survey_%d.parquet";
+        // One file per run of another export type, in its session directory
+        public static final String EXPORT_TYPE_PARQUET_FILENAME_FORMAT = "%s_data.parquet";
+
+        // Row groups sized for scanning; each is buffered in memory while it is written
+        public static final long DEFAULT_ROW_GROUP_BYTES = 64L * 1024 * 1024;
+        public static final int DEFAULT_PAGE_BYTES = 1024 * 1024;
+
+        public static final String COMPRESSION_GZIP = "gzip";
+        public static final String COMPRESSION_NONE = "none";
+
+        // Inferred schema per survey, under the survey exports directory
+        public static final String DEFAULT_SCHEMA_CACHE_FILE = ".parquet_schemas.json";
+    }
+
+    // Merge Constants
+    public static class Merge {
+        /** Merge of extracted files per survey; parallelism defaults to the number of processors */
+        public static final String NDJSON_FILENAME_FORMAT = "survey_%d_merged.ndjson";
+        public static final String CSV_FILENAME_FORMAT = "survey_%d_merged.csv";
+        public static final String MERGED_FILENAME_PATTERN = "survey_\\d+_merged\\.[^.]+";
+
+        // Field added to every merged record
+        public static final String SURVEY_FIELD = "platformFormId";
+    }
+
+    // Date Range Splitting Constants
+    public static class DateRange {
+        /** Long date ranges are requested as windows of this many days, one export per survey and window */
+        public static final int DEFAULT_CHUNK_DAYS = 180;
+
+        // Directory, under the output directory, that a window's archives are downloaded to
+        public static final String CHUNK_DIRECTORY_FORMAT = "range_%s_%s";
+
+        /** Adaptive chunking: window sizes learned per survey */
+        // Surveys without a learned size start with one window of about ten years
+        public static final int DEFAULT_INITIAL_DAYS = 3650;
+        public static final int DEFAULT_MIN_DAYS = 1;
+        // Seconds an export may stay in progress before its window is bisected
+        public static final int DEFAULT_DURATION_BUDGET = 1800;
+        public static final String DEFAULT_STATE_FILE = ".chunk_sizes.json";
+        // Bisections per survey and run, so a window that keeps failing cannot fan out without bound
+        public static final int DEFAULT_MAX_BISECTIONS = 16;
+        // Failure reasons that mean an export's window is too large; other failures are not bisected
+        public static final List<String> DEFAULT_SIZE_FAILURE_PATTERNS = List.of(
+                "time(d)?[ -]?out", "too (large|big|many|much)", "exceed", "out of memory");
+
+        /** Incremental exports: each form's next range starts at its watermark less this overlap */
+        public static final int DEFAULT_OVERLAP_HOURS = 1;
+        public static final String DEFAULT_WATERMARK_FILE = ".export_watermarks.json";
+    }
+
+    // Journal Constants
+    public static class Journal {
+        /** Write-ahead journal of export state transitions, kept in the session's output directory */
+        public static final String FILENAME = "export_journal.ndjson";
+        // Appended events are forced to disk together at most this often; 0 forces every event
+        public static final int DEFAULT_SYNC_INTERVAL_MS = 200;
+    }
+
+    // Async Constants
+    public static class Async {
+        /** OkHttp dispatcher limits for the asynchronous API */
+        public static final int DEFAULT_MAX_REQUESTS = 64;
+        public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 16;
+    }
+
+    // Retry Constants
+    public static class Retry {
+        /** Retry policy defaults */
+        public static final int DEFAULT_MAX_ATTEMPTS = 4;
+        public static final long DEFAULT_BASE_DELAY_MS = 500L;
+        public static final long DEFAULT_MAX_DELAY_MS = 30000L;
+
+        // Maximum retries across the whole run
+        public static final int DEFAULT_RETRY_BUDGET = 200;
+    }
     
     // File Constants
     public static class FileConstants {
@@ -148,32 +359,117 @@ public class Constants {
         public static final String ENVIRONMENTS = "environments";
         public static final String BASE_URL = "base_url";
         public static final String TOKEN_URL = "token_url";
+        public static final String MAX_CONCURRENT_REQUESTS = "max_concurrent_requests";
         
         // Auth keys
         public static final String TIMEOUT = "timeout";
         public static final String REFRESH_BUFFER = "refresh_buffer";
+
+        // API keys
+        public static final String RATE_LIMITS = "rate_limits";
+        public static final String INITIAL_RATE = "initial_rate";
+        public static final String MIN_RATE = "min_rate";
+        public static final String MAX_RATE = "max_rate";
+        public static final String BURST = "burst";
+        public static final String INCREASE_STEP = "increase_step";
+        public static final String DECREASE_FACTOR = "decrease_factor";
+        public static final String RETRY = "retry";
+        public static final String MAX_ATTEMPTS = "max_attempts";
+        public static final String BASE_DELAY_MS = "base_delay_ms";
+        public static final String MAX_DELAY_MS = "max_delay_ms";
+        public static final String RETRY_BUDGET = "budget";
+        public static final String ASYNC = "async";
+        public static final String MAX_REQUESTS = "max_requests";
+        public static final String MAX_REQUESTS_PER_HOST = "max_requests_per_host";
         
         // Export keys
         public static final String DATE_RANGE = "date_range";
         public static final String FORMAT = "format";
         public static final String REQUEST = "request";
         public static final String MONITORING = "monitoring";
+        public static final String PIPELINE = "pipeline";
+        public static final String SPLIT_DATE_RANGE = "split_date_range";
+        public static final String USE_DATE_RANGE = "use_date_range";
         
         // Date range keys
         public static final String DEFAULT_DAYS_BACK = "default_days_back";
         public static final String ABSOLUTE_START_DATE = "absolute_start_date";
         public static final String ABSOLUTE_END_DATE = "absolute_end_date";
+        public static final String CHUNK_DAYS = "chunk_days";
+        public static final String ADAPTIVE_CHUNKING = "adaptive_chunking";
+        public static final String INITIAL_DAYS = "initial_days";
+        public static final String MIN_DAYS = "min_days";
+        public static final String DURATION_BUDGET = "duration_budget";
+        public static final String STATE_FILE = "state_file";
+        public static final String MAX_BISECTIONS = "max_bisections";
+        public static final String SIZE_FAILURE_PATTERNS = "size_failure_patterns";
+        public static final String OVERLAP_HOURS = "overlap_hours";
         
         // Request keys
         public static final String MAX_SURVEYS = "max_surveys";
         public static final String SURVEY_IDS = "survey_ids";
         public static final String EXCLUDE_SURVEY_IDS = "exclude_survey_ids";
+
+        // Participant export keys (ehr_export, device_export, participant_profiles_export, communication_events_export)
+        public static final String PARTICIPANT_IDS = "participant_ids";
+        public static final String MAX_PARTICIPANTS = "max_participants";
+        public static final String EXCLUDE_PARTICIPANT_IDS = "exclude_participant_ids";
+        public static final String MANIFEST_ONLY = "manifest_only";
+        public static final String DEVICE_TYPES = "device_types";
+        public static final String DATA_TYPES = "data_types";
+        public static final String EVENT_SOURCES = "event_sources";
+        public static final String EVENT_TYPES = "event_types";
         
         // Monitoring keys
         public static final String POLLING_INTERVAL = "polling_interval";
         public static final String MAX_WAIT_TIME = "max_wait_time";
         public static final String CONTINUE_ON_FAILURE = "continue_on_failure";
+        public static final String MAX_CONCURRENT_STATUS_CHECKS = "max_concurrent_status_checks";
+        public static final String ADAPTIVE_POLLING = "adaptive_polling";
+        public static final String INITIAL_DELAY = "initial_delay";
+        public static final String BACKOFF_FACTOR = "backoff_factor";
+        public static final String MAX_INTERVAL = "max_interval";
+        public static final String HISTORY_FILE = "history_file";
         
+        // Pipeline keys
+        public static final String ENABLED = "enabled";
+        public static final String QUEUE_CAPACITY = "queue_capacity";
+        public static final String DOWNLOAD_WORKERS = "download_workers";
+        public static final String EXTRACT_WORKERS = "extract_workers";
+
+        // Download keys
+        public static final String DOWNLOAD = "download";
+        public static final String MAX_CONCURRENT_DOWNLOADS = "max_concurrent_downloads";
+        public static final String MAX_BYTES_PER_SECOND = "max_bytes_per_second";
+        public static final String SEGMENTED = "segmented";
+        public static final String THRESHOLD_BYTES = "threshold_bytes";
+        public static final String SEGMENTS = "segments";
+        public static final String STREAM_EXTRACT = "stream_extract";
+
+        // Extraction keys
+        public static final String EXTRACTION = "extraction";
+        public static final String PARALLELISM = "parallelism";
+        public static final String MAX_CONCURRENT_WRITES = "max_concurrent_writes";
+        public static final String ENTRY_THRESHOLD_BYTES = "entry_threshold_bytes";
+        public static final String INCREMENTAL = "incremental";
+        public static final String INDEX_FILE = "index_file";
+        public static final String VIRTUAL_VIEW = "virtual_view";
+
+        // Columnar output keys
+        public static final String COLUMNAR = "columnar";
+        public static final String ROW_GROUP_BYTES = "row_group_bytes";
+        public static final String PAGE_BYTES = "page_bytes";
+        public static final String COMPRESSION = "compression";
+        public static final String SCHEMA_CACHE_FILE = "schema_cache_file";
+
+        // Journal keys
+        public static final String JOURNAL = "journal";
+        public static final String SYNC_INTERVAL_MS = "sync_interval_ms";
+
+        // Merge keys
+        public static final String MERGE = "merge";
+        public static final String REMOVE_SOURCE_FILES = "remove_source_files";
+
         // Output keys
         public static final String BASE_DIRECTORY = "base_directory";
         public static final String SURVEY_EXPORTS_DIR = "survey_exports_dir";
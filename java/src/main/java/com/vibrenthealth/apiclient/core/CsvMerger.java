@@ -0,0 +1,143 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the extracted CSV files of each survey into one CSV file under a union header.
+ *
+ * Chunks of one survey may have different column sets. A first pass reads only the header of
+ * every file and builds the union of their columns in order of first appearance; the second pass
+ * streams the rows of each file, moving every value to its union column and leaving columns the
+ * file does not have empty. Only the current row is held in memory. A column name repeated within
+ * a header is kept once per occurrence. Quoted fields follow RFC 4180.
+ */
+public class CsvMerger extends SurveyFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(CsvMerger.class);
+
+    private static final int BUFFER_CHARS = 64 * 1024;
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    public CsvMerger(int parallelism, boolean removeSourceFiles) {
+        super(parallelism, removeSourceFiles);
+    }
+
+    @Override
+    protected String getSourceExtension() {
+        return ".csv";
+    }
+
+    @Override
+    protected String getMergedFilename(int platformFormId) {
+        return String.format(Constants.Merge.CSV_FILENAME_FORMAT, platformFormId);
+    }
+
+    /**
+     * Write the rows of the source files to target under the union of their headers
+     *
+     * @return the number of rows written
+     */
+    @Override
+    public long merge(int platformFormId, List<Path> sources, Path target) throws IOException {
+        // Pass 1: union header, and where each file's columns go in it
+        List<String> header = new ArrayList<>();
+        Map<String, List<Integer>> columnsByName = new HashMap<>();
+        List<int[]> columnMappings = new ArrayList<>();
+        for (Path source : sources) {
+            try (CsvReader reader = new CsvReader(source)) {
+                List<String> fileHeader = reader.readRecord();
+                columnMappings.add(fileHeader != null ? mapColumns(fileHeader, header, columnsByName) : null);
+            }
+        }
+
+        // Pass 2: stream rows in union order
+        long count = 0;
+        String[] row = new String[header.size()];
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(target),
+                StandardCharsets.UTF_8), BUFFER_CHARS)) {
+            writeRecord(writer, header);
+            for (int i = 0; i < sources.size(); i++) {
+                int[] columnMapping = columnMappings.get(i);
+                if (columnMapping == null) {
+                    continue;
+                }
+                long truncatedRows = 0;
+                try (CsvReader reader = new CsvReader(sources.get(i))) {
+                    reader.readRecord();
+                    List<String> fields;
+                    while ((fields = reader.readRecord()) != null) {
+                        if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                            continue;
+                        }
+                        Arrays.fill(row, "");
+                        int width = Math.min(fields.size(), columnMapping.length);
+                        for (int column = 0; column < width; column++) {
+                            row[columnMapping[column]] = fields.get(column);
+                        }
+                        if (fields.size() > columnMapping.length) {
+                            truncatedRows++;
+                        }
+                        writeRecord(writer, Arrays.asList(row));
+                        count++;
+                    }
+                }
+                if (truncatedRows > 0) {
+                    logger.warn("{} rows of {} have more fields than its header; the extra fields were dropped",
+                            truncatedRows, sources.get(i).getFileName());
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Add the columns of a file header to the union header
+     *
+     * @return the union column of each file column
+     */
+    private static int[] mapColumns(List<String> fileHeader, List<String> header, Map<String, List<Integer>> columnsByName) {
+        int[] columnMapping = new int[fileHeader.size()];
+        Map<String, Integer> occurrences = new HashMap<>();
+        for (int column = 0; column < fileHeader.size(); column++) {
+            String name = fileHeader.get(column).trim();
+            int occurrence = occurrences.merge(name, 1, Integer::sum) - 1;
+            List<Integer> positions = columnsByName.computeIfAbsent(name, key -> new ArrayList<>());
+            if (occurrence == positions.size()) {
+                positions.add(header.size());
+                header.add(name);
+            }
+            columnMapping[column] = positions.get(occurrence);
+        }
+        return columnMapping;
+    }
+
+    private static void writeRecord(Writer writer, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String field = fields.get(i);
+            if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(field.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(field);
+            }
+        }
+        writer.write(LINE_SEPARATOR);
+    }
+}
@@ -0,0 +1,140 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One window of an export date range that is requested as a separate export.
+ *
+ * A range longer than the chunk size is split into consecutive windows of that size, the last one
+ * shorter; each window ends where the next begins, as in the Python client. A range that fits in
+ * one chunk is a single window covering all of it. A window can be bisected into two halves that
+ * are requested in its place; the halves keep the index of the window they were planned as.
+ */
+public final class DateRangeChunk {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneOffset.UTC);
+
+    private final int index;
+    private final int count;
+    private final long startTime;
+    private final long endTime;
+    private final int bisections;
+
+    private DateRangeChunk(int index, int count, long startTime, long endTime, int bisections) {
+        this.index = index;
+        this.count = count;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.bisections = bisections;
+    }
+
+    /**
+     * Split a date range into windows of at most chunkMillis
+     *
+     * @param chunkMillis window length, or 0 to keep the range whole
+     */
+    public static List<DateRangeChunk> split(long startTime, long endTime, long chunkMillis) {
+        if (chunkMillis <= 0 || endTime - startTime <= chunkMillis) {
+            return Collections.singletonList(new DateRangeChunk(0, 1, startTime, endTime, 0));
+        }
+
+        int count = (int) ((endTime - startTime + chunkMillis - 1) / chunkMillis);
+        List<DateRangeChunk> chunks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long chunkStart = startTime + i * chunkMillis;
+            chunks.add(new DateRangeChunk(i, count, chunkStart, Math.min(chunkStart + chunkMillis, endTime), 0));
+        }
+        return chunks;
+    }
+
+    /**
+     * The two halves of this window. Halves of the whole range are split windows too, so they are
+     * downloaded to directories of their own.
+     */
+    public List<DateRangeChunk> bisect() {
+        long middle = startTime + (endTime - startTime) / 2;
+        int halvesCount = Math.max(count, 2);
+        return List.of(new DateRangeChunk(index, halvesCount, startTime, middle, bisections + 1),
+                new DateRangeChunk(index, halvesCount, middle, endTime, bisections + 1));
+    }
+
+    public long getDurationMillis() {
+        return endTime - startTime;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * Number of times the planned window was halved to get this one
+     */
+    public int getBisections() {
+        return bisections;
+    }
+
+    /**
+     * Whether this window is one of several the range was split into
+     */
+    public boolean isSplit() {
+        return count > 1;
+    }
+
+    /**
+     * Directory name for this window's files; names sort in date order
+     */
+    public String getDirectoryName() {
+        return String.format(Constants.DateRange.CHUNK_DIRECTORY_FORMAT,
+                DATE_FORMAT.format(Instant.ofEpochMilli(startTime)), DATE_FORMAT.format(Instant.ofEpochMilli(endTime)));
+    }
+
+    /**
+     * Window boundaries for the export metadata
+     */
+    public Map<String, Object> toMetadata() {
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("chunk_index", index);
+        metadata.put("total_chunks", count);
+        metadata.put("chunk_start", startTime);
+        metadata.put("chunk_end", endTime);
+        if (bisections > 0) {
+            metadata.put("bisections", bisections);
+        }
+        return metadata;
+    }
+
+    /**
+     * Rebuild a window from its {@link #toMetadata()} boundaries
+     */
+    public static DateRangeChunk fromMetadata(Map<String, Object> metadata) {
+        Object bisections = metadata.get("bisections");
+        return new DateRangeChunk(((Number) metadata.get("chunk_index")).intValue(),
+                ((Number) metadata.get("total_chunks")).intValue(),
+                ((Number) metadata.get("chunk_start")).longValue(),
+                ((Number) metadata.get("chunk_end")).longValue(),
+                bisections instanceof Number ? ((Number) bisections).intValue() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return DATE_FORMAT.format(Instant.ofEpochMilli(startTime)) + " to " + DATE_FORMAT.format(Instant.ofEpochMilli(endTime));
+    }
+}
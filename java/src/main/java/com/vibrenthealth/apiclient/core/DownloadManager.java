@@ -0,0 +1,224 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportStatus;
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs export downloads concurrently and measures their aggregate throughput.
+ *
+ * Transfers are started largest-first when the export status carries a file size, so the longest
+ * downloads are not left running alone at the end. The global byte-rate cap is applied by the
+ * client while the files are written.
+ */
+public class DownloadManager {
+    private static final Logger logger = LoggerFactory.getLogger(DownloadManager.class);
+
+    /**
+     * Download of a single completed export
+     */
+    @FunctionalInterface
+    public interface Task {
+        /**
+         * @return the downloaded file, or null if the download failed or the export was extracted
+         *         or its records were delivered while downloading
+         */
+        Path download(String exportId, ExportStatus status, int position, int total);
+    }
+
+    private final VibrentHealthAPIClient client;
+    private final int maxConcurrentDownloads;
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicInteger streamedFiles = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong firstStartNanos = new AtomicLong();
+    private final AtomicLong lastEndNanos = new AtomicLong();
+
+    public DownloadManager(VibrentHealthAPIClient client, int maxConcurrentDownloads) {
+        this.client = client;
+        this.maxConcurrentDownloads = Math.max(1, maxConcurrentDownloads);
+    }
+
+    /**
+     * Download one export into the output directory, counting it in the throughput metrics
+     */
+    public Path transfer(String exportId, Path outputDir) {
+        long start = System.nanoTime();
+        firstStartNanos.compareAndSet(0L, start);
+
+        Path filePath = client.downloadExport(exportId, outputDir);
+
+        long size = 0L;
+        try {
+            size = Files.size(filePath);
+        } catch (IOException e) {
+            logger.debug("Could not read size of {}: {}", filePath, e.getMessage());
+        }
+        record(size);
+        return filePath;
+    }
+
+    /**
+     * Download one export into the output directory, extracting it while it arrives if extracting is set
+     *
+     * @param index index of previously extracted entries, or null to always extract
+     * @return null if the export was extracted while downloading, otherwise the downloaded archive
+     */
+    public Path transfer(String exportId, Path outputDir, boolean extracting, ExtractionIndex index) {
+        return extracting ? transferExtracting(exportId, outputDir, index) : transfer(exportId, outputDir);
+    }
+
+    /**
+     * Download one export and extract it into the output directory while it arrives. An archive
+     * that cannot be extracted from the stream is downloaded to a file instead.
+     *
+     * @param index index of previously extracted entries, or null to always extract
+     * @return null if the export was extracted while downloading, otherwise the downloaded archive
+     */
+    public Path transferExtracting(String exportId, Path outputDir, ExtractionIndex index) {
+        long start = System.nanoTime();
+        firstStartNanos.compareAndSet(0L, start);
+
+        try {
+            record(client.downloadAndExtractExport(exportId, outputDir, index));
+            streamedFiles.incrementAndGet();
+            return null;
+        } catch (StreamingExtractor.UnsupportedArchiveException e) {
+            logger.info("Export {} cannot be extracted while streaming ({}); downloading the archive first", exportId, e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Streaming extraction of {} failed ({}); downloading the archive first", exportId, e.getMessage());
+        }
+        return transfer(exportId, outputDir);
+    }
+
+    /**
+     * Download one export and deliver its records to the sink while it arrives. An archive that
+     * cannot be read from the stream is downloaded into the spool directory, streamed from there
+     * and deleted, skipping the records that were already delivered.
+     *
+     * @param platformFormId survey the export was requested for, or null if it is not known
+     * @return the number of records delivered
+     */
+    public long transferRecords(String exportId, Integer platformFormId, RecordSink sink, Path spoolDir) throws IOException {
+        long start = System.nanoTime();
+        firstStartNanos.compareAndSet(0L, start);
+
+        Map<String, Long> delivered = new HashMap<>();
+        try {
+            record(client.downloadAndStreamRecords(exportId, platformFormId, sink, delivered));
+            streamedFiles.incrementAndGet();
+        } catch (RecordStreamer.SinkException e) {
+            throw e;
+        } catch (StreamingExtractor.UnsupportedArchiveException e) {
+            logger.info("Export {} cannot be read while streaming ({}); downloading the archive first", exportId, e.getMessage());
+            streamFromFile(exportId, platformFormId, sink, spoolDir, delivered);
+        } catch (IOException e) {
+            logger.warn("Streaming records of {} failed ({}); downloading the archive first", exportId, e.getMessage());
+            streamFromFile(exportId, platformFormId, sink, spoolDir, delivered);
+        }
+
+        long records = 0;
+        for (long count : delivered.values()) {
+            records += count;
+        }
+        sink.exportComplete(exportId, platformFormId, records);
+        this.records.addAndGet(records);
+        return records;
+    }
+
+    private void streamFromFile(String exportId, Integer platformFormId, RecordSink sink, Path spoolDir,
+                                Map<String, Long> delivered) throws IOException {
+        Path archive = transfer(exportId, spoolDir);
+        try {
+            RecordStreamer.streamFile(archive, exportId, platformFormId, sink, delivered);
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    private void record(long size) {
+        files.incrementAndGet();
+        bytes.addAndGet(size);
+        lastEndNanos.accumulateAndGet(System.nanoTime(), Math::max);
+    }
+
+    /**
+     * Run the task for every completed export with up to maxConcurrentDownloads in flight,
+     * largest exports first
+     *
+     * @return the downloaded files, in the order the transfers were started
+     */
+    public List<Path> downloadAll(Map<String, ExportStatus> completedExports, Task task) {
+        List<Map.Entry<String, ExportStatus>> ordered = new ArrayList<>(completedExports.entrySet());
+        ordered.sort(Comparator.comparing((Map.Entry<String, ExportStatus> entry) -> entry.getValue().getFileSize(),
+                Comparator.nullsLast(Comparator.reverseOrder())));
+
+        int poolSize = Math.max(1, Math.min(maxConcurrentDownloads, ordered.size()));
+        logger.info("Downloading {} exports with up to {} in flight", ordered.size(), poolSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, Helpers.namedThreadFactory("export-download"));
+        List<Path> downloadedFiles = new ArrayList<>();
+        try {
+            List<Future<Path>> downloads = new ArrayList<>();
+            for (int i = 0; i < ordered.size(); i++) {
+                Map.Entry<String, ExportStatus> entry = ordered.get(i);
+                int position = i + 1;
+                downloads.add(executor.submit(() -> task.download(entry.getKey(), entry.getValue(), position, ordered.size())));
+            }
+
+            for (Future<Path> download : downloads) {
+                Path filePath = download.get();
+                if (filePath != null) {
+                    downloadedFiles.add(filePath);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Downloads interrupted; {} files were downloaded", downloadedFiles.size());
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return downloadedFiles;
+    }
+
+    /**
+     * Snapshot of download throughput for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        long elapsedNanos = Math.max(0L, lastEndNanos.get() - firstStartNanos.get());
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        long totalBytes = bytes.get();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("files", files.get());
+        metrics.put("streamed_files", streamedFiles.get());
+        metrics.put("records", records.get());
+        metrics.put("bytes", totalBytes);
+        metrics.put("seconds", Math.round(seconds * 100) / 100.0);
+        metrics.put("throughput_mbps", seconds > 0 ? Math.round(totalBytes * 8 / seconds / 1e4) / 100.0 : null);
+        metrics.put("max_concurrent_downloads", maxConcurrentDownloads);
+        metrics.put("max_bytes_per_second", client.getDownloadBandwidthLimit());
+        return metrics;
+    }
+}
@@ -0,0 +1,397 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibrenthealth.apiclient.models.ExportStatus;
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only write-ahead journal of an export session's state transitions.
+ *
+ * Each line is one JSON event: the windows planned for each survey, then every export's
+ * submission, completion or failure, replacement by the halves of its window, download and
+ * extraction. A line is written as soon as its transition happens, so it survives the JVM dying;
+ * lines are forced to disk in batches, once per sync interval, so a run does not wait on the disk
+ * for every event. A restarted run replays the journal to request only the windows that were never
+ * submitted or whose export failed, resume polling the exports that were, and skip those already
+ * downloaded. An export whose status could not be checked is not recorded as failed, so it is
+ * polled again.
+ */
+public class ExportJournal implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ExportJournal.class);
+
+    private static final String PLANNED = "planned";
+    private static final String SUBMITTED = "submitted";
+    private static final String COMPLETED = "completed";
+    private static final String FAILED = "failed";
+    private static final String REPLACED = "replaced";
+    private static final String DOWNLOADED = "downloaded";
+    private static final String EXTRACTED = "extracted";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> EVENT_TYPE = new TypeReference<>() {
+    };
+
+    private final Path journalFile;
+    private final FileChannel channel;
+    private final ScheduledExecutorService syncer;
+    private boolean dirty;
+    private boolean failed;
+
+    private ExportJournal(Path journalFile, FileChannel channel, ScheduledExecutorService syncer) {
+        this.journalFile = journalFile;
+        this.channel = channel;
+        this.syncer = syncer;
+    }
+
+    /**
+     * Open a journal for appending, creating it if it does not exist. An incomplete last line is
+     * ended first, so the events appended after it stay readable.
+     *
+     * @param syncIntervalMillis how often appended events are forced to disk, or 0 to force each one
+     */
+    public static ExportJournal open(Path journalFile, long syncIntervalMillis) throws IOException {
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        boolean endLine = false;
+        if (Files.exists(journalFile) && Files.size(journalFile) > 0) {
+            try (FileChannel reader = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                reader.read(last, reader.size() - 1);
+                endLine = last.get(0) != '\n';
+            }
+        }
+        FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (endLine) {
+            channel.write(ByteBuffer.wrap(new byte[] {'\n'}));
+        }
+        ScheduledExecutorService syncer = null;
+        if (syncIntervalMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(Helpers.namedThreadFactory("export-journal"));
+        }
+        ExportJournal journal = new ExportJournal(journalFile, channel, syncer);
+        if (syncer != null) {
+            syncer.scheduleWithFixedDelay(journal::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return journal;
+    }
+
+    /**
+     * Record the windows planned for each survey, forcing them to disk before any is requested
+     */
+    public void planned(Map<Integer, List<DateRangeChunk>> chunksBySurvey) {
+        for (Map.Entry<Integer, List<DateRangeChunk>> survey : chunksBySurvey.entrySet()) {
+            for (DateRangeChunk chunk : survey.getValue()) {
+                Map<String, Object> event = event(PLANNED, null);
+                event.put("platformFormId", survey.getKey());
+                event.putAll(chunk.toMetadata());
+                append(event);
+            }
+        }
+        sync();
+    }
+
+    public void submitted(String exportId, Integer platformFormId, DateRangeChunk chunk) {
+        Map<String, Object> event = event(SUBMITTED, exportId);
+        event.put("platformFormId", platformFormId);
+        event.putAll(chunk.toMetadata());
+        append(event);
+    }
+
+    public void completed(String exportId, ExportStatus status) {
+        Map<String, Object> event = event(COMPLETED, exportId);
+        event.put("status", OBJECT_MAPPER.convertValue(status, EVENT_TYPE));
+        append(event);
+    }
+
+    /**
+     * Record that the server reported an export as failed; a resumed run requests its window again
+     */
+    public void failed(String exportId) {
+        append(event(FAILED, exportId));
+    }
+
+    /**
+     * Record that an export's window was bisected and its halves are requested in its place
+     */
+    public void replaced(String exportId) {
+        append(event(REPLACED, exportId));
+    }
+
+    /**
+     * @param file the downloaded archive, or null if it was extracted or its records delivered while downloading
+     */
+    public void downloaded(String exportId, Path file) {
+        Map<String, Object> event = event(DOWNLOADED, exportId);
+        event.put("file", file != null ? file.toAbsolutePath().toString() : null);
+        append(event);
+    }
+
+    public void extracted(Path file) {
+        Map<String, Object> event = event(EXTRACTED, null);
+        event.put("file", file.toAbsolutePath().toString());
+        append(event);
+    }
+
+    private static Map<String, Object> event(String type, String exportId) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("event", type);
+        if (exportId != null) {
+            event.put("exportId", exportId);
+        }
+        event.put("time", System.currentTimeMillis());
+        return event;
+    }
+
+    private synchronized void append(Map<String, Object> event) {
+        try {
+            byte[] json = OBJECT_MAPPER.writeValueAsBytes(event);
+            ByteBuffer line = ByteBuffer.allocate(json.length + 1).put(json).put((byte) '\n').flip();
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            dirty = true;
+            if (syncer == null) {
+                channel.force(false);
+                dirty = false;
+            }
+        } catch (IOException e) {
+            warnOnce(e);
+        }
+    }
+
+    /**
+     * Force the events appended since the last sync to disk
+     */
+    private void sync() {
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            dirty = false;
+        }
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            warnOnce(e);
+        }
+    }
+
+    private synchronized void warnOnce(IOException e) {
+        if (!failed) {
+            failed = true;
+            logger.warn("Failed to write export journal {}; a resumed run may request exports again: {}",
+                    journalFile, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        sync();
+        channel.close();
+    }
+
+    /**
+     * Rebuild the state of a session from its journal. An incomplete last line, left by a run that
+     * died while writing it, is ignored.
+     */
+    public static State replay(Path journalFile) throws IOException {
+        State state = new State();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    lines.add(line);
+                }
+            }
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            try {
+                state.apply(OBJECT_MAPPER.readValue(lines.get(i), EVENT_TYPE));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Skipping unreadable {}event {} of {}: {}", i == lines.size() - 1 ? "last " : "",
+                        i + 1, journalFile, e.getMessage());
+            }
+        }
+        return state;
+    }
+
+    /**
+     * An export recorded in the journal, at its latest transition
+     */
+    public static class JournalExport {
+        private final String exportId;
+        private final Integer platformFormId;
+        private final DateRangeChunk chunk;
+        private String event = SUBMITTED;
+        private ExportStatus status;
+        private Path file;
+
+        JournalExport(String exportId, Integer platformFormId, DateRangeChunk chunk) {
+            this.exportId = exportId;
+            this.platformFormId = platformFormId;
+            this.chunk = chunk;
+        }
+
+        public String getExportId() {
+            return exportId;
+        }
+
+        public Integer getPlatformFormId() {
+            return platformFormId;
+        }
+
+        public DateRangeChunk getChunk() {
+            return chunk;
+        }
+
+        public ExportStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * The downloaded archive, or null if it was extracted or its records delivered while downloading
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Submitted or completed but not downloaded; polling resumes
+         */
+        public boolean isPending() {
+            return SUBMITTED.equals(event) || COMPLETED.equals(event);
+        }
+
+        public boolean isDownloaded() {
+            return DOWNLOADED.equals(event) || EXTRACTED.equals(event);
+        }
+
+        /**
+         * Downloaded to an archive that was not extracted yet
+         */
+        public boolean needsExtraction() {
+            return DOWNLOADED.equals(event) && file != null;
+        }
+    }
+
+    /**
+     * State of a session rebuilt from its journal
+     */
+    public static class State {
+        private final Map<Integer, List<DateRangeChunk>> plannedChunks = new LinkedHashMap<>();
+        // Windows that must be exported: the planned ones, with bisected windows replaced by their halves
+        private final Map<String, DateRangeChunk> requiredChunks = new LinkedHashMap<>();
+        private final Map<String, Integer> requiredSurveys = new LinkedHashMap<>();
+        private final Map<String, String> exportIdsByWindow = new LinkedHashMap<>();
+        private final Map<String, JournalExport> exports = new LinkedHashMap<>();
+        private final Map<Path, JournalExport> exportsByFile = new LinkedHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        private void apply(Map<String, Object> event) {
+            String type = (String) event.get("event");
+            String exportId = (String) event.get("exportId");
+            JournalExport export = exportId != null ? exports.get(exportId) : null;
+
+            if (PLANNED.equals(type) || SUBMITTED.equals(type)) {
+                Integer platformFormId = ((Number) event.get("platformFormId")).intValue();
+                DateRangeChunk chunk = DateRangeChunk.fromMetadata(event);
+                if (PLANNED.equals(type)) {
+                    plannedChunks.computeIfAbsent(platformFormId, id -> new ArrayList<>()).add(chunk);
+                    require(platformFormId, chunk);
+                } else {
+                    exports.put(exportId, new JournalExport(exportId, platformFormId, chunk));
+                    exportIdsByWindow.put(windowKey(platformFormId, chunk), exportId);
+                }
+            } else if (EXTRACTED.equals(type)) {
+                JournalExport extracted = exportsByFile.get(Paths.get((String) event.get("file")));
+                if (extracted != null) {
+                    extracted.event = EXTRACTED;
+                }
+            } else if (export != null) {
+                export.event = type;
+                if (COMPLETED.equals(type)) {
+                    export.status = ExportStatus.fromMap((Map<String, Object>) event.get("status"));
+                } else if (DOWNLOADED.equals(type) && event.get("file") != null) {
+                    export.file = Paths.get((String) event.get("file"));
+                    exportsByFile.put(export.file, export);
+                } else if (REPLACED.equals(type)) {
+                    String key = windowKey(export.platformFormId, export.chunk);
+                    requiredChunks.remove(key);
+                    requiredSurveys.remove(key);
+                    for (DateRangeChunk half : export.chunk.bisect()) {
+                        require(export.platformFormId, half);
+                    }
+                }
+            }
+        }
+
+        private void require(Integer platformFormId, DateRangeChunk chunk) {
+            String key = windowKey(platformFormId, chunk);
+            requiredChunks.put(key, chunk);
+            requiredSurveys.put(key, platformFormId);
+        }
+
+        private static String windowKey(Integer platformFormId, DateRangeChunk chunk) {
+            return platformFormId + ":" + chunk.getStartTime() + "-" + chunk.getEndTime();
+        }
+
+        /**
+         * Windows planned for each survey when the session started
+         */
+        public Map<Integer, List<DateRangeChunk>> getPlannedChunks() {
+            return plannedChunks;
+        }
+
+        /**
+         * Windows of each planned survey that no export was requested for, or whose latest export
+         * failed, in date order
+         */
+        public Map<Integer, List<DateRangeChunk>> getUnsubmittedChunks() {
+            Map<Integer, List<DateRangeChunk>> unsubmitted = new LinkedHashMap<>();
+            for (Integer platformFormId : plannedChunks.keySet()) {
+                unsubmitted.put(platformFormId, new ArrayList<>());
+            }
+            for (Map.Entry<String, DateRangeChunk> window : requiredChunks.entrySet()) {
+                String exportId = exportIdsByWindow.get(window.getKey());
+                if (exportId == null || FAILED.equals(exports.get(exportId).event)) {
+                    unsubmitted.get(requiredSurveys.get(window.getKey())).add(window.getValue());
+                }
+            }
+            unsubmitted.values().forEach(chunks -> chunks.sort(Comparator.comparingLong(DateRangeChunk::getStartTime)));
+            return unsubmitted;
+        }
+
+        /**
+         * Every export requested in the session, in the order it was requested
+         */
+        public List<JournalExport> getExports() {
+            return new ArrayList<>(exports.values());
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportStatus;
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the exports of several export types concurrently in one process.
+ *
+ * Each {@link Exporter} lists, filters and requests its items on a thread of its own, so a slow
+ * type does not hold back the others. All types share one API client, and with it the HTTP
+ * connection pool, the access token, the rate limiters and the retry budget, and one status
+ * poller, so their status checks are spread over a single schedule. A completed export is
+ * downloaded as soon as its status is seen, on a download pool shared by all types, into
+ * <type>_exports/<type>_data_<timestamp>; each type's directory gets its own export metadata.
+ *
+ * Per-type settings (date range, split_date_range, monitoring) come from the <type>_export
+ * section. The poll scheduler, downloads and extraction are shared, so they use the export
+ * section's monitoring, download and extraction settings.
+ *
+ * A survey export given alongside runs on a thread of its own as well, with its checks on the
+ * same poll scheduler; it keeps its own pipeline, journal, output directory and metadata.
+ */
+public class ExportOrchestrator {
+    private static final Logger logger = LoggerFactory.getLogger(ExportOrchestrator.class);
+
+    /**
+     * State of one export type's run
+     */
+    private static class TypeRun {
+        private final Exporter<?, ?> exporter;
+        private final String exportType;
+        private final Path outputDir;
+        private final Integer maxWaitTime;
+        private final boolean continueOnFailure;
+        private final List<String> items = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, Map<String, Object>> exports = new ConcurrentHashMap<>();
+        private final Map<String, DateRangeChunk> windows = new ConcurrentHashMap<>();
+        private final List<Map<String, Object>> failures = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger successful = new AtomicInteger();
+        private final Map<String, Object> columnar = new LinkedHashMap<>();
+        private volatile Throwable error;
+
+        TypeRun(Exporter<?, ?> exporter, Path outputDir, Map<String, Object> monitoringConfig) {
+            this.exporter = exporter;
+            this.exportType = exporter.getExportType();
+            this.outputDir = outputDir;
+            Object maxWaitTime = monitoringConfig.get(Constants.ConfigKeys.MAX_WAIT_TIME);
+            this.maxWaitTime = maxWaitTime instanceof Number ? ((Number) maxWaitTime).intValue() : null;
+            this.continueOnFailure = (Boolean) monitoringConfig.getOrDefault(Constants.ConfigKeys.CONTINUE_ON_FAILURE, true);
+        }
+
+        Path getDirectory(DateRangeChunk window) {
+            return window != null && window.isSplit() ? outputDir.resolve(window.getDirectoryName()) : outputDir;
+        }
+
+        void recordFailure(String exportId, String item, String reason) {
+            Map<String, Object> failure = new LinkedHashMap<>();
+            failure.put("exportId", exportId);
+            failure.put("item", item);
+            failure.put("failureReason", reason);
+            failures.add(failure);
+        }
+
+        void fail(Throwable cause) {
+            if (error == null) {
+                error = cause;
+            }
+        }
+    }
+
+    private final ConfigManager configManager;
+    private final VibrentHealthAPIClient client;
+    private final List<TypeRun> runs;
+    private final SurveyDataExporter surveyExporter;
+    private final StatusPoller statusPoller;
+    private final DownloadManager downloadManager;
+    private final ExecutorService downloadExecutor;
+    private final List<Future<?>> downloads = Collections.synchronizedList(new ArrayList<>());
+    private final ExtractionEngine extractionEngine;
+    private final boolean extractFiles;
+    private final boolean removeZipAfterExtract;
+    private final boolean streamExtract;
+    private final String exportSessionId;
+    private final LocalDateTime startTime;
+
+    /**
+     * @param client    client shared by all export types
+     * @param exporters one exporter per export type to run
+     */
+    public ExportOrchestrator(ConfigManager configManager, VibrentHealthAPIClient client, List<Exporter<?, ?>> exporters) {
+        this(configManager, client, exporters, null);
+    }
+
+    /**
+     * @param client         client shared by all export types, including the survey export
+     * @param exporters      one exporter per export type to run
+     * @param surveyExporter survey export to run alongside on the shared poll scheduler, or null
+     */
+    @SuppressWarnings("unchecked")
+    public ExportOrchestrator(ConfigManager configManager, VibrentHealthAPIClient client, List<Exporter<?, ?>> exporters,
+                              SurveyDataExporter surveyExporter) {
+        if (exporters.isEmpty()) {
+            throw new IllegalArgumentException("No export types to run");
+        }
+        this.configManager = configManager;
+        this.client = client;
+        this.surveyExporter = surveyExporter;
+        this.startTime = LocalDateTime.now();
+        String timestamp = startTime.format(DateTimeFormatter.ofPattern("dd_MM_yyyy_HHmmss"));
+        this.exportSessionId = "export_" + timestamp;
+
+        // Per-type output directory and monitoring settings
+        this.runs = new ArrayList<>();
+        int pollingInterval = Integer.MAX_VALUE;
+        for (Exporter<?, ?> exporter : exporters) {
+            String exportType = exporter.getExportType();
+            Map<String, Object> monitoringConfig = (Map<String, Object>) configManager.getExportConfig(exportType)
+                    .getOrDefault(Constants.ConfigKeys.MONITORING, Collections.emptyMap());
+            pollingInterval = Math.min(pollingInterval, (Integer) monitoringConfig.getOrDefault(
+                    Constants.ConfigKeys.POLLING_INTERVAL, Constants.TimeConstants.DEFAULT_POLLING_INTERVAL));
+            Path outputDir = Paths.get(configManager.getExportOutputDirectory(exportType),
+                    String.format(Constants.ExportType.SESSION_DIRECTORY_FORMAT, exportType, timestamp));
+            try {
+                Files.createDirectories(outputDir);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to create output directory: " + e.getMessage());
+            }
+            runs.add(new TypeRun(exporter, outputDir, monitoringConfig));
+        }
+
+        // One poll scheduler for every type; a fixed schedule uses the shortest configured interval
+        Map<String, Object> sharedMonitoringConfig = (Map<String, Object>) configManager.get(
+                Constants.ConfigKeys.EXPORT + "." + Constants.ConfigKeys.MONITORING, Collections.emptyMap());
+        int maxConcurrentStatusChecks = (Integer) sharedMonitoringConfig.getOrDefault(
+                Constants.ConfigKeys.MAX_CONCURRENT_STATUS_CHECKS, Constants.Concurrency.DEFAULT_MAX_CONCURRENT_STATUS_CHECKS);
+        this.statusPoller = new StatusPoller(maxConcurrentStatusChecks, pollingInterval * 1000L,
+                PollingPolicy.fromConfig(configManager.getAdaptivePollingConfig(), pollingInterval), null);
+
+        // One download pool and extraction engine for every type
+        Map<String, Object> outputConfig = configManager.getOutputConfig();
+        this.extractFiles = (Boolean) outputConfig.getOrDefault(Constants.ConfigKeys.EXTRACT_FILES, true);
+        this.removeZipAfterExtract = (Boolean) outputConfig.getOrDefault(Constants.ConfigKeys.REMOVE_ZIP_AFTER_EXTRACT, true);
+        Map<String, Object> downloadConfig = configManager.getDownloadConfig();
+        int maxConcurrentDownloads = (Integer) downloadConfig.getOrDefault(
+                Constants.ConfigKeys.MAX_CONCURRENT_DOWNLOADS, Constants.Download.DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+        this.streamExtract = this.extractFiles && this.removeZipAfterExtract && (Boolean) downloadConfig.getOrDefault(
+                Constants.ConfigKeys.STREAM_EXTRACT, Constants.Download.DEFAULT_STREAM_EXTRACT);
+        this.downloadManager = new DownloadManager(client, maxConcurrentDownloads);
+        this.downloadExecutor = Executors.newFixedThreadPool(Math.max(1, maxConcurrentDownloads),
+                Helpers.namedThreadFactory("export-download"));
+        this.extractionEngine = ExtractionEngine.fromConfig(configManager.getExtractionConfig(), null);
+    }
+
+    /**
+     * Run every export type to completion
+     *
+     * @throws RuntimeException if a type failed and its continue_on_failure is off, or the survey export failed
+     */
+    public void runExport() {
+        List<String> exportTypes = getExportTypes();
+        logger.info("Starting {} exports (Session: {})", String.join(", ", exportTypes), exportSessionId);
+        long startWaitTime = System.currentTimeMillis();
+
+        ExecutorService requesters = Executors.newFixedThreadPool(exportTypes.size(), Helpers.namedThreadFactory("export-request"));
+        Throwable surveyError = null;
+        try {
+            Future<?> surveys = surveyExporter != null
+                    ? requesters.submit(() -> surveyExporter.runExport(statusPoller))
+                    : null;
+            List<Future<?>> requests = new ArrayList<>();
+            for (TypeRun run : runs) {
+                requests.add(requesters.submit(() -> requestExports(run, run.exporter)));
+            }
+            for (int i = 0; i < requests.size(); i++) {
+                try {
+                    requests.get(i).get();
+                } catch (ExecutionException e) {
+                    logger.error("Requesting {} exports failed: {}", runs.get(i).exportType, e.getCause().getMessage());
+                    runs.get(i).fail(e.getCause());
+                }
+            }
+
+            Integer maxWaitTime = getMaxWaitTime();
+            if (!statusPoller.awaitCompletion(maxWaitTime, startWaitTime)) {
+                logger.warn("Maximum wait time of {} seconds exceeded; {} exports are still in progress",
+                        maxWaitTime, statusPoller.getPendingCount());
+            }
+            awaitDownloads();
+            for (TypeRun run : runs) {
+                convertExportFiles(run);
+            }
+
+            // The survey export polls on the shared scheduler, so it must finish before it stops
+            if (surveys != null) {
+                try {
+                    surveys.get();
+                } catch (ExecutionException e) {
+                    surveyError = e.getCause();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Export interrupted", e);
+        } finally {
+            requesters.shutdownNow();
+            downloadExecutor.shutdownNow();
+            statusPoller.shutdown();
+        }
+
+        for (TypeRun run : runs) {
+            saveExportMetadata(run);
+        }
+        for (TypeRun run : runs) {
+            if (run.error != null && (!run.continueOnFailure || run.error instanceof ConfigManager.ConfigurationError)) {
+                throw new RuntimeException(run.exportType + " export failed: " + run.error.getMessage(), run.error);
+            }
+        }
+        if (surveyError != null) {
+            throw new RuntimeException(Constants.ExportType.SURVEY + " export failed: " + surveyError.getMessage(), surveyError);
+        }
+        logger.info(Constants.SuccessMessages.EXPORT_COMPLETED);
+    }
+
+    /**
+     * The export types run together, the survey export first if there is one
+     */
+    private List<String> getExportTypes() {
+        List<String> exportTypes = new ArrayList<>();
+        if (surveyExporter != null) {
+            exportTypes.add(Constants.ExportType.SURVEY);
+        }
+        runs.forEach(run -> exportTypes.add(run.exportType));
+        return exportTypes;
+    }
+
+    /**
+     * The longest max_wait_time of the types, or null if any type waits without limit
+     */
+    private Integer getMaxWaitTime() {
+        Integer maxWaitTime = 0;
+        for (TypeRun run : runs) {
+            if (run.maxWaitTime == null) {
+                return null;
+            }
+            maxWaitTime = Math.max(maxWaitTime, run.maxWaitTime);
+        }
+        return maxWaitTime;
+    }
+
+    /**
+     * List, filter and request the items of one export type, handing each export to the shared poller
+     */
+    private <I, R> void requestExports(TypeRun run, Exporter<I, R> exporter) {
+        List<I> items = exporter.filterItems(exporter.getItems());
+        if (items.isEmpty()) {
+            logger.warn("No {} items match the filter criteria", run.exportType);
+            return;
+        }
+
+        List<DateRangeChunk> windows = getWindows(run.exportType);
+        int total = items.size() * windows.size();
+        int position = 0;
+        for (I item : items) {
+            String itemName = exporter.getItemDisplayName(item);
+            run.items.add(itemName);
+            for (DateRangeChunk window : windows) {
+                position++;
+                String exportId;
+                try {
+                    exportId = exporter.requestExport(item, exporter.createExportRequest(item, window));
+                } catch (RuntimeException e) {
+                    logger.error("[{}/{}] Failed to request {} export for {}: {}", position, total, run.exportType,
+                            itemName, e.getMessage());
+                    run.recordFailure(null, itemName, e.getMessage());
+                    if (!run.continueOnFailure) {
+                        throw e;
+                    }
+                    continue;
+                }
+                logger.info("[{}/{}] Requested {} export for {}{}: {}", position, total, run.exportType, itemName,
+                        window != null && window.isSplit() ? " (" + window + ")" : "", exportId);
+
+                Map<String, Object> exportDetail = Collections.synchronizedMap(new LinkedHashMap<>());
+                exportDetail.put("exportId", exportId);
+                exportDetail.put("item", itemName);
+                if (window != null) {
+                    exportDetail.putAll(window.toMetadata());
+                    run.windows.put(exportId, window);
+                }
+                exportDetail.put("status", Constants.ExportStatus.SUBMITTED);
+                run.exports.put(exportId, exportDetail);
+                statusPoller.track(exportId, null, id -> checkExportStatus(run, id), (id, outcome) -> exportFinished(run, id, outcome));
+            }
+        }
+    }
+
+    /**
+     * Date range windows to request each item for: none when the type does not use a date range,
+     * chunk_days windows when split_date_range is on, otherwise the whole range
+     */
+    @SuppressWarnings("unchecked")
+    private List<DateRangeChunk> getWindows(String exportType) {
+        if (!configManager.shouldUseDateRange(exportType)) {
+            return Collections.singletonList(null);
+        }
+        Map<String, Object> exportConfig = configManager.getExportConfig(exportType);
+        Map<String, Long> dateRange = configManager.getDateRange(exportType);
+        long chunkMillis = 0L;
+        if ((Boolean) exportConfig.getOrDefault(Constants.ConfigKeys.SPLIT_DATE_RANGE, false)) {
+            Map<String, Object> dateRangeConfig = (Map<String, Object>) exportConfig.getOrDefault(
+                    Constants.ConfigKeys.DATE_RANGE, Collections.emptyMap());
+            int chunkDays = (Integer) dateRangeConfig.getOrDefault(Constants.ConfigKeys.CHUNK_DAYS, Constants.DateRange.DEFAULT_CHUNK_DAYS);
+            if (chunkDays <= 0) {
+                throw new ConfigManager.ConfigurationError(exportType + Constants.ExportType.CONFIG_SECTION_SUFFIX
+                        + ".date_range.chunk_days must be positive, got " + chunkDays);
+            }
+            chunkMillis = chunkDays * Constants.TimeConstants.MS_PER_DAY;
+        }
+        return DateRangeChunk.split(dateRange.get("start_time"), dateRange.get("end_time"), chunkMillis);
+    }
+
+    /**
+     * @return COMPLETED, FAILED or IN_PROGRESS, or null for a status that is neither finished nor running
+     */
+    private String checkExportStatus(TypeRun run, String exportId) {
+        Map<String, Object> exportDetail = run.exports.get(exportId);
+        try {
+            ExportStatus status = client.getExportStatus(exportId);
+            exportDetail.put("status", status.getStatus());
+
+            if (Constants.ExportStatus.COMPLETED.equals(status.getStatus())) {
+                exportDetail.put("fileName", status.getFileName());
+                exportDetail.put("completedOn", status.getCompletedOn());
+                return Constants.ExportStatus.COMPLETED;
+            } else if (Constants.ExportStatus.FAILED.equals(status.getStatus())) {
+                logger.error("{} export {} failed: {}", run.exportType, exportId, status.getFailureReason());
+                run.recordFailure(exportId, (String) exportDetail.get("item"), status.getFailureReason());
+                return Constants.ExportStatus.FAILED;
+            } else if (Constants.ExportStatus.SUBMITTED.equals(status.getStatus())
+                    || Constants.ExportStatus.IN_PROGRESS.equals(status.getStatus())) {
+                return Constants.ExportStatus.IN_PROGRESS;
+            }
+            return null;
+
+        } catch (Exception e) {
+            // A status error ends this export only, so the other types keep running
+            logger.error("Error checking status for {}: {}", exportId, e.getMessage());
+            exportDetail.put("status", Constants.ExportStatus.FAILED);
+            run.recordFailure(exportId, (String) exportDetail.get("item"), e.getMessage());
+            if (!run.continueOnFailure) {
+                run.fail(e);
+            }
+            return Constants.ExportStatus.FAILED;
+        }
+    }
+
+    private void exportFinished(TypeRun run, String exportId, String outcome) {
+        if (Constants.ExportStatus.COMPLETED.equals(outcome)) {
+            downloads.add(downloadExecutor.submit(() -> downloadExport(run, exportId)));
+        }
+    }
+
+    /**
+     * Download a completed export into its type's output directory, extracting it as configured
+     */
+    private void downloadExport(TypeRun run, String exportId) {
+        Map<String, Object> exportDetail = run.exports.get(exportId);
+        Path targetDir = run.getDirectory(run.windows.get(exportId));
+        try {
+            Files.createDirectories(targetDir);
+            Path file = downloadManager.transfer(exportId, targetDir, streamExtract, null);
+            if (file != null && extractFiles) {
+                extractionEngine.extract(file, targetDir, removeZipAfterExtract);
+            }
+            if (file != null && Files.exists(file)) {
+                exportDetail.put("file", run.outputDir.toAbsolutePath().relativize(file.toAbsolutePath()).toString());
+            }
+            exportDetail.put("downloaded", true);
+            run.successful.incrementAndGet();
+            logger.info("Downloaded {} export {} for {}", run.exportType, exportId, exportDetail.get("item"));
+        } catch (Exception e) {
+            logger.error(String.format(Constants.ErrorMessages.EXPORT_DOWNLOAD_FAILED, exportId, e.getMessage()));
+            exportDetail.put("downloaded", false);
+            run.recordFailure(exportId, (String) exportDetail.get("item"), e.getMessage());
+            if (!run.continueOnFailure) {
+                run.fail(e);
+            }
+        }
+    }
+
+    /**
+     * Wait for the downloads started by completed exports; all were started once the poller is done
+     */
+    private void awaitDownloads() throws InterruptedException {
+        List<Future<?>> started;
+        synchronized (downloads) {
+            started = new ArrayList<>(downloads);
+        }
+        for (Future<?> download : started) {
+            try {
+                download.get();
+            } catch (ExecutionException e) {
+                logger.error("Download failed: {}", e.getCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Convert a type's extracted records into the configured columnar format, as one file in its
+     * session directory
+     */
+    private void convertExportFiles(TypeRun run) {
+        if (!extractFiles || !run.exporter.supportsColumnarOutput()) {
+            return;
+        }
+        Map<String, Object> columnarConfig = configManager.getColumnarConfig();
+        ParquetConverter converter = ParquetConverter.fromConfig(columnarConfig, 1, Constants.ExportFormat.JSON,
+                Paths.get(configManager.getExportOutputDirectory(run.exportType)));
+        if (converter == null) {
+            return;
+        }
+        try {
+            List<Path> files = converter.findFiles(run.outputDir);
+            if (files.isEmpty()) {
+                return;
+            }
+            Path target = run.outputDir.resolve(String.format(Constants.Columnar.EXPORT_TYPE_PARQUET_FILENAME_FORMAT, run.exportType));
+            long records = converter.convert(run.exportType, files, target);
+            run.columnar.put("file", target.toString());
+            run.columnar.put("files", files.size());
+            run.columnar.put("records", records);
+            run.columnar.put("bytes", Files.size(target));
+            logger.info("Converted {} records from {} {} files into {}", records, files.size(), run.exportType, target.getFileName());
+        } catch (IOException e) {
+            logger.error("Failed to convert {} files to columnar output: {}", run.exportType, e.getMessage());
+        }
+    }
+
+    /**
+     * Write a type's export metadata, with the metrics of the shared client, poller and downloads
+     */
+    private void saveExportMetadata(TypeRun run) {
+        LocalDateTime endTime = LocalDateTime.now();
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("export_session_id", exportSessionId);
+        metadata.put("export_type", run.exportType);
+        metadata.put("start_timestamp", startTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        metadata.put("end_timestamp", endTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        metadata.put("duration_seconds", java.time.Duration.between(startTime, endTime).toMillis() / 1000.0);
+        metadata.put("concurrent_export_types", getExportTypes());
+        metadata.put("output_directory", run.outputDir.toString());
+        metadata.put("items", new ArrayList<>(run.items));
+        metadata.put("total_exports", run.exports.size());
+        metadata.put("successful_exports", run.successful.get());
+        metadata.put("failed_exports", run.failures.size());
+        metadata.put("exports", new ArrayList<>(run.exports.values()));
+        metadata.put("failures", new ArrayList<>(run.failures));
+        metadata.put("polling", statusPoller.getMetrics());
+        metadata.put("downloads", downloadManager.getMetrics());
+        metadata.put("extraction", extractionEngine.getMetrics());
+        if (!run.columnar.isEmpty()) {
+            metadata.put("columnar", run.columnar);
+        }
+        metadata.put("rate_limits", client.getRateLimitMetrics());
+        metadata.put("retries", client.getRetryMetrics());
+
+        Helpers.saveExportMetadata(configManager.getMetadataConfig(), run.outputDir, metadata);
+        logger.info("{} exports: {} successful, {} failed; output directory: {}", run.exportType,
+                run.successful.get(), run.failures.size(), run.outputDir);
+    }
+}
@@ -0,0 +1,385 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportStatus;
+import com.vibrenthealth.apiclient.models.Survey;
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Overlapped request -> poll -> download -> extract pipeline.
+ *
+ * Each stage runs on its own workers and hands exports to the next stage through a queue, so an
+ * export is downloaded and extracted as soon as its status becomes COMPLETED instead of waiting
+ * for every other export to finish. The request and download stages hand off through bounded
+ * queues, and a full queue blocks the upstream stage, which keeps memory bounded when polling or
+ * extraction fall behind. Completed exports reach the download stage through an unbounded queue,
+ * because they are handed off on status poller workers that may be shared with other exports and
+ * must never wait for downloads. An export that fails can be replaced by
+ * exports the stages request in its place, which are polled and downloaded like the others.
+ *
+ * A pipeline instance runs once.
+ */
+public class ExportPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(ExportPipeline.class);
+
+    /**
+     * Per-export work performed by each stage. Implementations record their own metadata and
+     * report failures through the return value; an exception aborts the whole pipeline.
+     */
+    public interface Stages {
+        /**
+         * Request the export of one date range window for a survey and add it to the export
+         * mapping of export ids to platformFormIds
+         *
+         * @return the export id, or null if the request failed
+         */
+        String submit(Survey survey, DateRangeChunk chunk, int position, int total, Map<String, Integer> exportMapping);
+
+        /**
+         * Check an export's status, adding it to completedExports when COMPLETED
+         *
+         * @return COMPLETED, FAILED, TIMED_OUT or IN_PROGRESS, or null to keep the export pending
+         */
+        String checkStatus(String exportId, Survey survey, Map<String, ExportStatus> completedExports);
+
+        /**
+         * Request the exports that replace one that FAILED or TIMED_OUT, adding them to the
+         * export mapping
+         *
+         * @return ids of the replacement exports, polled like any other; empty to leave the export failed
+         */
+        default List<String> resubmit(String exportId, Survey survey, Map<String, Integer> exportMapping) {
+            return Collections.emptyList();
+        }
+
+        /**
+         * Download a completed export
+         *
+         * @return the downloaded file, or null if the download failed or the export was extracted
+         *         while downloading
+         */
+        Path download(String exportId, ExportStatus status, Survey survey, int position, int total);
+
+        /**
+         * Extract a downloaded export archive
+         */
+        void extract(Path file);
+    }
+
+    /**
+     * Outcome of a pipeline run
+     */
+    public static class Result {
+        private final Map<String, Integer> exportMapping;
+        private final Map<String, ExportStatus> completedExports;
+        private final List<Path> downloadedFiles;
+
+        Result(Map<String, Integer> exportMapping, Map<String, ExportStatus> completedExports, List<Path> downloadedFiles) {
+            this.exportMapping = exportMapping;
+            this.completedExports = completedExports;
+            this.downloadedFiles = downloadedFiles;
+        }
+
+        public Map<String, Integer> getExportMapping() {
+            return exportMapping;
+        }
+
+        public Map<String, ExportStatus> getCompletedExports() {
+            return completedExports;
+        }
+
+        public List<Path> getDownloadedFiles() {
+            return downloadedFiles;
+        }
+    }
+
+    /**
+     * An export moving through the pipeline
+     */
+    private static class Job {
+        private final Survey survey;
+        private final String exportId;
+        private ExportStatus status;
+        private Path file;
+
+        Job(Survey survey, String exportId) {
+            this.survey = survey;
+            this.exportId = exportId;
+        }
+    }
+
+    // Marks the end of a queue's input
+    private static final Job END = new Job(null, null);
+
+    private final Stages stages;
+    private final int submitWorkers;
+    private final int downloadWorkers;
+    private final int extractWorkers;
+    private final int queueCapacity;
+    private final StatusPoller statusPoller;
+    private final Integer maxWaitTime;
+
+    private final Map<String, Integer> exportMapping = new ConcurrentHashMap<>();
+    private final Map<String, ExportStatus> completedExports = new ConcurrentHashMap<>();
+    private final List<Path> downloadedFiles = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    /**
+     * @param extractWorkers 0 disables the extract stage
+     * @param statusPoller   poller for submitted exports; shut down when the run ends
+     * @param maxWaitTime    maximum seconds to wait for exports to complete, or null for unlimited
+     */
+    public ExportPipeline(Stages stages, int submitWorkers, int downloadWorkers, int extractWorkers,
+                          int queueCapacity, StatusPoller statusPoller, Integer maxWaitTime) {
+        this.stages = stages;
+        this.submitWorkers = Math.max(1, submitWorkers);
+        this.downloadWorkers = Math.max(1, downloadWorkers);
+        this.extractWorkers = Math.max(0, extractWorkers);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.statusPoller = statusPoller;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    /**
+     * Run every survey through the pipeline, one export per date range window, and wait for all
+     * stages to drain
+     *
+     * @param chunksBySurvey date range windows to request for each platformFormId
+     */
+    public Result run(List<Survey> surveys, Map<Integer, List<DateRangeChunk>> chunksBySurvey) {
+        return run(surveys, chunksBySurvey, Collections.emptyMap());
+    }
+
+    /**
+     * Run every survey through the pipeline, polling exports requested by an earlier run of the
+     * same session alongside the new ones
+     *
+     * @param resumedExports already requested exports to poll instead of requesting, by export id, with their platformFormId
+     */
+    public Result run(List<Survey> surveys, Map<Integer, List<DateRangeChunk>> chunksBySurvey,
+                      Map<String, Integer> resumedExports) {
+        BlockingQueue<Job> submitted = new ArrayBlockingQueue<>(queueCapacity);
+        // Unbounded: poller workers add to it and must not block
+        BlockingQueue<Job> completed = new LinkedBlockingQueue<>();
+        BlockingQueue<Job> downloaded = new ArrayBlockingQueue<>(queueCapacity);
+
+        List<Survey> requestSurveys = new ArrayList<>();
+        List<DateRangeChunk> requestChunks = new ArrayList<>();
+        for (Survey survey : surveys) {
+            for (DateRangeChunk chunk : chunksBySurvey.get(survey.getPlatformFormId())) {
+                requestSurveys.add(survey);
+                requestChunks.add(chunk);
+            }
+        }
+        List<Job> resumedJobs = new ArrayList<>();
+        for (Map.Entry<String, Integer> resumed : resumedExports.entrySet()) {
+            for (Survey survey : surveys) {
+                if (survey.getPlatformFormId() == resumed.getValue()) {
+                    resumedJobs.add(new Job(survey, resumed.getKey()));
+                    exportMapping.put(resumed.getKey(), resumed.getValue());
+                    break;
+                }
+            }
+        }
+        int total = requestChunks.size();
+        // Grows as exports are replaced by resubmissions
+        AtomicInteger totalExports = new AtomicInteger(total + resumedJobs.size());
+        if (resumedJobs.isEmpty()) {
+            logger.info("Starting export pipeline: {} surveys, {} exports, {} request / {} download / {} extract workers",
+                    surveys.size(), total, submitWorkers, downloadWorkers, extractWorkers);
+        } else {
+            logger.info("Resuming export pipeline: {} surveys, {} exports to request and {} to poll, "
+                            + "{} request / {} download / {} extract workers",
+                    surveys.size(), total, resumedJobs.size(), submitWorkers, downloadWorkers, extractWorkers);
+        }
+
+        ExecutorService submitPool = newPool(submitWorkers, "pipeline-request");
+        ExecutorService pollPool = newPool(1, "pipeline-poll");
+        ExecutorService downloadPool = newPool(downloadWorkers, "pipeline-download");
+        ExecutorService extractPool = extractWorkers > 0 ? newPool(extractWorkers, "pipeline-extract") : null;
+
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            // Request stage: the last worker to finish closes the submitted queue
+            AtomicInteger remainingSubmissions = new AtomicInteger(total);
+            if (total == 0) {
+                submitted.put(END);
+            }
+            for (int i = 0; i < total; i++) {
+                Survey survey = requestSurveys.get(i);
+                DateRangeChunk chunk = requestChunks.get(i);
+                int position = i + 1;
+                futures.add(submitPool.submit(guarded(() -> {
+                    try {
+                        String exportId = stages.submit(survey, chunk, position, total, exportMapping);
+                        if (exportId != null) {
+                            submitted.put(new Job(survey, exportId));
+                        }
+                    } finally {
+                        if (remainingSubmissions.decrementAndGet() == 0) {
+                            submitted.put(END);
+                        }
+                    }
+                })));
+            }
+
+            // Poll stage
+            futures.add(pollPool.submit(guarded(() -> poll(resumedJobs, submitted, completed, totalExports))));
+
+            // Download stage: the last worker to finish closes the downloaded queue
+            AtomicInteger activeDownloaders = new AtomicInteger(downloadWorkers);
+            AtomicInteger downloadCount = new AtomicInteger();
+            for (int i = 0; i < downloadWorkers; i++) {
+                futures.add(downloadPool.submit(guarded(() -> {
+                    try {
+                        for (Job job = completed.take(); job != END; job = completed.take()) {
+                            job.file = stages.download(job.exportId, job.status, job.survey,
+                                    downloadCount.incrementAndGet(), totalExports.get());
+                            if (job.file != null) {
+                                downloadedFiles.add(job.file);
+                                if (extractPool != null) {
+                                    downloaded.put(job);
+                                }
+                            }
+                        }
+                    } finally {
+                        if (activeDownloaders.decrementAndGet() == 0 && extractPool != null) {
+                            for (int j = 0; j < extractWorkers; j++) {
+                                downloaded.put(END);
+                            }
+                        }
+                    }
+                })));
+            }
+
+            // Extract stage
+            for (int i = 0; extractPool != null && i < extractWorkers; i++) {
+                futures.add(extractPool.submit(guarded(() -> {
+                    for (Job job = downloaded.take(); job != END; job = downloaded.take()) {
+                        stages.extract(job.file);
+                    }
+                })));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(new RuntimeException("Export pipeline interrupted"));
+        } catch (ExecutionException e) {
+            abort(new RuntimeException(e.getCause()));
+        } finally {
+            executors.forEach(ExecutorService::shutdownNow);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return new Result(exportMapping, completedExports, downloadedFiles);
+    }
+
+    /**
+     * Track each resumed and submitted export on a shared status poller, forwarding it to the
+     * download stage the moment it completes
+     */
+    private void poll(List<Job> resumedJobs, BlockingQueue<Job> submitted, BlockingQueue<Job> completed,
+                      AtomicInteger totalExports) throws InterruptedException {
+        long startWaitTime = System.currentTimeMillis();
+
+        try {
+            for (Job job : resumedJobs) {
+                track(job, completed, totalExports);
+            }
+            for (Job job = submitted.take(); job != END; job = submitted.take()) {
+                track(job, completed, totalExports);
+            }
+
+            if (!statusPoller.awaitCompletion(maxWaitTime, startWaitTime)) {
+                logger.warn("Maximum wait time ({}s) exceeded. {} exports still pending.", maxWaitTime, statusPoller.getPendingCount());
+            }
+        } finally {
+            statusPoller.shutdown();
+            for (int i = 0; i < downloadWorkers; i++) {
+                completed.offer(END);
+            }
+        }
+    }
+
+    /**
+     * Poll an export until it finishes. An export that did not complete is resubmitted, and its
+     * replacements are tracked before it stops being pending, so the wait never ends between them.
+     */
+    private void track(Job job, BlockingQueue<Job> completed, AtomicInteger totalExports) {
+        statusPoller.track(job.exportId, job.survey.getPlatformFormId(),
+                exportId -> stages.checkStatus(exportId, job.survey, completedExports),
+                (exportId, outcome) -> {
+                    if (Constants.ExportStatus.COMPLETED.equals(outcome)) {
+                        job.status = completedExports.get(exportId);
+                        completed.offer(job);
+                        return;
+                    }
+                    List<String> replacements = stages.resubmit(exportId, job.survey, exportMapping);
+                    if (!replacements.isEmpty()) {
+                        totalExports.addAndGet(replacements.size() - 1);
+                    }
+                    for (String replacement : replacements) {
+                        track(new Job(job.survey, replacement), completed, totalExports);
+                    }
+                });
+    }
+
+    private ExecutorService newPool(int threads, String name) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, Helpers.namedThreadFactory(name));
+        executors.add(executor);
+        return executor;
+    }
+
+    /**
+     * Stage body that may block on a queue
+     */
+    @FunctionalInterface
+    private interface StageTask {
+        void run() throws InterruptedException;
+    }
+
+    /**
+     * Wrap a stage body so that a failure in any stage stops every stage
+     */
+    private Runnable guarded(StageTask task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                abort(e);
+            }
+        };
+    }
+
+    private void abort(RuntimeException e) {
+        if (failure.compareAndSet(null, e)) {
+            logger.error("Export pipeline aborted: {}", e.getMessage());
+            executors.forEach(ExecutorService::shutdownNow);
+        }
+    }
+}
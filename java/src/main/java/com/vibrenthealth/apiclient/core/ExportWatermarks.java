@@ -0,0 +1,119 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Locally persisted high-water marks of incremental exports: for each platformFormId, the end of
+ * the date range its data has been downloaded up to.
+ *
+ * The next export of a form starts from its watermark, less an overlap that picks up records
+ * that arrived late, instead of from the configured date range. A watermark only moves forward,
+ * and only as far as the downloaded windows cover the requested range without a gap, so a window
+ * that failed is requested again next time.
+ */
+public class ExportWatermarks {
+    private static final Logger logger = LoggerFactory.getLogger(ExportWatermarks.class);
+
+    private final Path watermarkFile;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Map<String, Object>> forms;
+
+    private ExportWatermarks(Path watermarkFile, Map<String, Map<String, Object>> forms) {
+        this.watermarkFile = watermarkFile;
+        this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+        this.forms = forms;
+    }
+
+    /**
+     * Load the watermark file, starting empty if it is missing or unreadable
+     */
+    public static ExportWatermarks load(Path watermarkFile) {
+        Map<String, Map<String, Object>> forms = new TreeMap<>();
+        if (Files.exists(watermarkFile)) {
+            try {
+                forms.putAll(new ObjectMapper().readValue(watermarkFile.toFile(),
+                        new TypeReference<Map<String, Map<String, Object>>>() { }));
+                logger.debug("Loaded export watermarks for {} forms from {}", forms.size(), watermarkFile);
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable export watermarks {}: {}", watermarkFile, e.getMessage());
+            }
+        }
+        return new ExportWatermarks(watermarkFile, forms);
+    }
+
+    /**
+     * End of the date range a form has been exported up to, in milliseconds, or null if it has
+     * not been exported incrementally
+     */
+    public synchronized Long getWatermark(Integer platformFormId) {
+        Map<String, Object> entry = forms.get(String.valueOf(platformFormId));
+        Object watermark = entry != null ? entry.get("watermark") : null;
+        return watermark instanceof Number ? ((Number) watermark).longValue() : null;
+    }
+
+    /**
+     * Start of a form's next export: its watermark less the overlap, or the configured start if
+     * it has no watermark
+     */
+    public long getStartTime(Integer platformFormId, long configuredStartTime, long overlapMillis) {
+        Long watermark = getWatermark(platformFormId);
+        return watermark != null ? watermark - overlapMillis : configuredStartTime;
+    }
+
+    /**
+     * Move a form's watermark to the end of the downloaded windows that cover its requested range
+     * from startTime without a gap
+     *
+     * @param downloaded windows whose exports were downloaded, in any order
+     * @return the new watermark, or null if it did not move
+     */
+    public Long advance(Integer platformFormId, long startTime, List<DateRangeChunk> downloaded) {
+        List<DateRangeChunk> windows = new ArrayList<>(downloaded);
+        windows.sort(Comparator.comparingLong(DateRangeChunk::getStartTime));
+        long coveredUntil = startTime;
+        for (DateRangeChunk window : windows) {
+            if (window.getStartTime() > coveredUntil) {
+                break;
+            }
+            coveredUntil = Math.max(coveredUntil, window.getEndTime());
+        }
+
+        synchronized (this) {
+            Long watermark = getWatermark(platformFormId);
+            if (coveredUntil <= startTime || (watermark != null && coveredUntil <= watermark)) {
+                return null;
+            }
+            Map<String, Object> entry = forms.computeIfAbsent(String.valueOf(platformFormId), key -> new LinkedHashMap<>());
+            entry.put("watermark", coveredUntil);
+            entry.put("watermark_date", Instant.ofEpochMilli(coveredUntil).toString());
+            return coveredUntil;
+        }
+    }
+
+    /**
+     * Write the watermarks back to disk
+     */
+    public synchronized void save() {
+        try {
+            Files.createDirectories(watermarkFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(watermarkFile.toFile(), forms);
+        } catch (IOException e) {
+            logger.warn("Failed to save export watermarks {}: {}", watermarkFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.util.List;
+
+/**
+ * Export type plugged into the {@link ExportOrchestrator}.
+ *
+ * An exporter decides what to export and how to request it: it lists the items of its type,
+ * filters them by its configuration section, builds the request for an item and one date range
+ * window, and submits it through the API client. Polling, downloading, extraction and metadata
+ * are left to the orchestrator, which runs the exporters of several types side by side on one
+ * client and one poll scheduler.
+ *
+ * @param <I> item exported by one request, e.g. a batch of participants
+ * @param <R> request model sent for an item
+ */
+public interface Exporter<I, R> {
+
+    /**
+     * Export type identifier; names the <type>_export config section and the <type>_exports
+     * output directory
+     */
+    String getExportType();
+
+    /**
+     * Items that can be exported
+     */
+    List<I> getItems();
+
+    /**
+     * Apply the configured inclusion, exclusion and size limits to the items
+     *
+     * @return the items to request exports for
+     */
+    List<I> filterItems(List<I> items);
+
+    /**
+     * Build the export request for an item
+     *
+     * @param window date range window to request, or null when the export type does not use a date range
+     */
+    R createExportRequest(I item, DateRangeChunk window);
+
+    /**
+     * Submit the export request
+     *
+     * @return the export id to track
+     */
+    String requestExport(I item, R exportRequest);
+
+    /**
+     * Human-readable name of an item for logs and metadata
+     */
+    String getItemDisplayName(I item);
+
+    /**
+     * Whether the extracted files are records that the configured columnar output format can hold
+     */
+    default boolean supportsColumnarOutput() {
+        return false;
+    }
+}
@@ -0,0 +1,264 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fork/join extraction of export archives.
+ *
+ * Archives are extracted in parallel, and an archive of at least the entry threshold has its
+ * entries inflated concurrently through ZipFile random access. Inflating is bounded by the pool
+ * parallelism; writing to disk is bounded separately by a shared permit per chunk written, so CPU
+ * parallelism can be raised without multiplying concurrent disk writes. With an extraction index,
+ * entries unchanged since a previous run are reused instead of inflated.
+ */
+public class ExtractionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionEngine.class);
+
+    private final ForkJoinPool pool;
+    private final Semaphore writePermits;
+    private final int maxConcurrentWrites;
+    private final long entryThresholdBytes;
+    private final ExtractionIndex index;
+    private final AtomicInteger archives = new AtomicInteger();
+    private final AtomicInteger entries = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong firstStartNanos = new AtomicLong();
+    private final AtomicLong lastEndNanos = new AtomicLong();
+
+    /**
+     * @param parallelism         archives and entries inflated concurrently
+     * @param maxConcurrentWrites chunks written to disk concurrently
+     * @param entryThresholdBytes archives of at least this size have their entries extracted concurrently
+     * @param index               index of previously extracted entries, or null to always extract
+     */
+    public ExtractionEngine(int parallelism, int maxConcurrentWrites, long entryThresholdBytes, ExtractionIndex index) {
+        this.pool = new ForkJoinPool(Math.max(1, parallelism), extractionThreadFactory(), null, false);
+        this.maxConcurrentWrites = Math.max(1, maxConcurrentWrites);
+        this.writePermits = new Semaphore(this.maxConcurrentWrites);
+        this.entryThresholdBytes = entryThresholdBytes;
+        this.index = index;
+    }
+
+    /**
+     * Engine with the parallelism, concurrent writes and entry threshold of the extraction section
+     *
+     * @param index index of previously extracted entries, or null to always extract
+     */
+    public static ExtractionEngine fromConfig(Map<String, Object> extractionConfig, ExtractionIndex index) {
+        return new ExtractionEngine(
+                (Integer) extractionConfig.getOrDefault(Constants.ConfigKeys.PARALLELISM, Runtime.getRuntime().availableProcessors()),
+                (Integer) extractionConfig.getOrDefault(Constants.ConfigKeys.MAX_CONCURRENT_WRITES,
+                        Constants.Extraction.DEFAULT_MAX_CONCURRENT_WRITES),
+                ((Number) extractionConfig.getOrDefault(Constants.ConfigKeys.ENTRY_THRESHOLD_BYTES,
+                        Constants.Extraction.DEFAULT_ENTRY_THRESHOLD_BYTES)).longValue(),
+                index);
+    }
+
+    /**
+     * Extract a single archive into outputDir
+     *
+     * @return true if every entry was extracted
+     */
+    public boolean extract(Path archive, Path outputDir) {
+        return extract(archive, outputDir, false);
+    }
+
+    /**
+     * Extract a single archive into outputDir, deleting it once every entry was extracted if
+     * removeArchive is set
+     *
+     * @return true if every entry was extracted
+     */
+    public boolean extract(Path archive, Path outputDir, boolean removeArchive) {
+        return extractAll(Collections.singletonList(archive), outputDir, removeArchive).size() == 1;
+    }
+
+    /**
+     * Extract the archives into outputDir in parallel
+     *
+     * @return the archives whose entries were all extracted
+     */
+    public List<Path> extractAll(List<Path> archiveFiles, Path outputDir) {
+        return extractAll(archiveFiles, outputDir, false);
+    }
+
+    /**
+     * Extract the archives into outputDir in parallel, deleting each archive whose entries were all
+     * extracted if removeArchives is set
+     *
+     * @return the archives whose entries were all extracted
+     */
+    public List<Path> extractAll(List<Path> archiveFiles, Path outputDir, boolean removeArchives) {
+        List<Path> extracted = Collections.synchronizedList(new ArrayList<>());
+        firstStartNanos.compareAndSet(0L, System.nanoTime());
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<ArchiveTask> tasks = new ArrayList<>();
+                for (Path archive : archiveFiles) {
+                    tasks.add(new ArchiveTask(archive, outputDir.toAbsolutePath().normalize(), extracted));
+                }
+                ForkJoinTask.invokeAll(tasks);
+            }
+        });
+
+        lastEndNanos.accumulateAndGet(System.nanoTime(), Math::max);
+        if (removeArchives) {
+            extracted.forEach(ExtractionEngine::removeArchive);
+        }
+        return extracted;
+    }
+
+    private static void removeArchive(Path archive) {
+        try {
+            Files.delete(archive);
+            logger.debug("Removed zip file: {}", archive);
+        } catch (IOException e) {
+            logger.error("Error deleting zip file {}: {}", archive, e.getMessage());
+        }
+    }
+
+    /**
+     * Snapshot of extraction totals for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        long elapsedNanos = Math.max(0L, lastEndNanos.get() - firstStartNanos.get());
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("archives", archives.get());
+        metrics.put("entries", entries.get());
+        metrics.put("bytes", bytes.get());
+        metrics.put("seconds", Math.round(seconds * 100) / 100.0);
+        metrics.put("parallelism", pool.getParallelism());
+        metrics.put("max_concurrent_writes", maxConcurrentWrites);
+        return metrics;
+    }
+
+    /**
+     * Extracts one archive, forking an entry task per entry when the archive is large
+     */
+    private class ArchiveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Path archive;
+        private final Path outputDir;
+        private final List<Path> extracted;
+
+        ArchiveTask(Path archive, Path outputDir, List<Path> extracted) {
+            this.archive = archive;
+            this.outputDir = outputDir;
+            this.extracted = extracted;
+        }
+
+        @Override
+        protected void compute() {
+            try (ZipFile zip = new ZipFile(archive.toFile())) {
+                List<ZipArchiveEntry> zipEntries = Collections.list(zip.getEntries());
+                if (zipEntries.size() > 1 && Files.size(archive) >= entryThresholdBytes) {
+                    List<EntryTask> tasks = new ArrayList<>();
+                    for (ZipArchiveEntry entry : zipEntries) {
+                        tasks.add(new EntryTask(zip, entry, outputDir));
+                    }
+                    ForkJoinTask.invokeAll(tasks);
+                } else {
+                    for (ZipArchiveEntry entry : zipEntries) {
+                        extractEntry(zip, entry, outputDir);
+                    }
+                }
+                archives.incrementAndGet();
+                extracted.add(archive);
+            } catch (IOException | RuntimeException e) {
+                Throwable cause = e instanceof UncheckedIOException ? e.getCause() : e;
+                logger.error("Error extracting {}: {}", archive, cause.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Extracts one entry of an archive shared with its sibling entry tasks
+     */
+    private class EntryTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ZipFile zip;
+        private final ZipArchiveEntry entry;
+        private final Path outputDir;
+
+        EntryTask(ZipFile zip, ZipArchiveEntry entry, Path outputDir) {
+            this.zip = zip;
+            this.entry = entry;
+            this.outputDir = outputDir;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                extractEntry(zip, entry, outputDir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void extractEntry(ZipFile zip, ZipArchiveEntry entry, Path outputDir) throws IOException {
+        Path extractedPath = outputDir.resolve(entry.getName()).normalize();
+        if (!extractedPath.startsWith(outputDir)) {
+            throw new IOException("Entry " + entry.getName() + " is outside the output directory");
+        }
+        if (entry.isDirectory()) {
+            Files.createDirectories(extractedPath);
+            return;
+        }
+        Files.createDirectories(extractedPath.getParent());
+
+        Path relativePath = Paths.get("").toAbsolutePath().relativize(extractedPath);
+        if (index != null && index.reuse(outputDir, extractedPath, entry.getSize(), entry.getCrc())) {
+            logger.info("Unchanged: {}", relativePath);
+            return;
+        }
+
+        try (ReadableByteChannel source = Channels.newChannel(zip.getInputStream(entry))) {
+            bytes.addAndGet(FileTransfer.replace(source, extractedPath, writePermits));
+        }
+        entries.incrementAndGet();
+        if (index != null) {
+            index.recordWritten(outputDir, extractedPath, entry.getSize(), entry.getCrc());
+        }
+        logger.info("Extracted: {}", relativePath);
+    }
+
+    private static ForkJoinPool.ForkJoinWorkerThreadFactory extractionThreadFactory() {
+        AtomicInteger count = new AtomicInteger();
+        return pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("zip-extract-" + count.incrementAndGet());
+            return thread;
+        };
+    }
+}
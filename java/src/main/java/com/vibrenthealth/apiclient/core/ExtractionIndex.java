@@ -0,0 +1,204 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Locally persisted index of the archive entries extracted in previous runs.
+ *
+ * Each extracted file is recorded under the output root it was extracted into and its path
+ * relative to that root, with the size and CRC-32 of its entry. An entry whose size and CRC match
+ * the record of its own path, and whose file is still unmodified, is not inflated again. Otherwise
+ * an unmodified file with the same relative path, size and CRC under another output root is
+ * hard-linked into place. Records whose file no longer exists are dropped when the index is loaded.
+ */
+public class ExtractionIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ExtractionIndex.class);
+
+    private final Path indexFile;
+    private final ObjectMapper objectMapper;
+    // output root -> relative path -> size, crc and modified time of the extracted file
+    private final Map<String, Map<String, Map<String, Object>>> entries;
+    private final AtomicInteger entriesWritten = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicInteger entriesSkipped = new AtomicInteger();
+    private final AtomicLong bytesSkipped = new AtomicLong();
+
+    private ExtractionIndex(Path indexFile, Map<String, Map<String, Map<String, Object>>> entries) {
+        this.indexFile = indexFile;
+        this.objectMapper = new ObjectMapper();
+        this.entries = entries;
+    }
+
+    /**
+     * Load the index file, starting empty if it is missing or unreadable, and drop the records of
+     * files that no longer exist
+     */
+    public static ExtractionIndex load(Path indexFile) {
+        Map<String, Map<String, Map<String, Object>>> entries = new TreeMap<>();
+        if (Files.exists(indexFile)) {
+            try {
+                entries.putAll(new ObjectMapper().readValue(indexFile.toFile(),
+                        new TypeReference<Map<String, Map<String, Map<String, Object>>>>() { }));
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable extraction index {}: {}", indexFile, e.getMessage());
+            }
+        }
+
+        int pruned = 0;
+        for (Iterator<Map.Entry<String, Map<String, Map<String, Object>>>> roots = entries.entrySet().iterator(); roots.hasNext(); ) {
+            Map.Entry<String, Map<String, Map<String, Object>>> root = roots.next();
+            Path rootPath = Paths.get(root.getKey());
+            int before = root.getValue().size();
+            root.getValue().keySet().removeIf(relativePath -> !Files.isRegularFile(rootPath.resolve(relativePath)));
+            pruned += before - root.getValue().size();
+            if (root.getValue().isEmpty()) {
+                roots.remove();
+            }
+        }
+        logger.debug("Loaded extraction index of {} output roots from {}, {} missing files dropped",
+                entries.size(), indexFile, pruned);
+        return new ExtractionIndex(indexFile, entries);
+    }
+
+    /**
+     * Make target hold an unchanged entry without inflating it: either it already does, or an
+     * identical file extracted under another output root is hard-linked in its place.
+     *
+     * @param outputRoot directory the archive is extracted into
+     * @param target     file the entry is extracted to, under outputRoot
+     * @param size       entry size, or -1 if unknown
+     * @param crc        entry CRC-32, or -1 if unknown
+     * @return true if the entry can be skipped
+     */
+    public boolean reuse(Path outputRoot, Path target, long size, long crc) {
+        if (size < 0 || crc < 0) {
+            return false;
+        }
+        String root = rootKey(outputRoot);
+        String relativePath = relativeKey(outputRoot, target);
+
+        Path previous = null;
+        synchronized (this) {
+            Map<String, Object> record = entries.getOrDefault(root, Map.of()).get(relativePath);
+            if (record != null && isUnchanged(record, target, size, crc)) {
+                previous = target;
+            } else {
+                for (Map.Entry<String, Map<String, Map<String, Object>>> other : entries.entrySet()) {
+                    Path candidate = Paths.get(other.getKey()).resolve(relativePath);
+                    record = other.getValue().get(relativePath);
+                    if (!other.getKey().equals(root) && record != null && isUnchanged(record, candidate, size, crc)) {
+                        previous = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        if (previous == null) {
+            return false;
+        }
+
+        try {
+            if (!Files.exists(target) || !Files.isSameFile(previous, target)) {
+                Files.deleteIfExists(target);
+                Files.createLink(target, previous);
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            logger.debug("Cannot link {} to {}: {}", target, previous, e.getMessage());
+            return false;
+        }
+
+        record(root, relativePath, size, crc, target);
+        entriesSkipped.incrementAndGet();
+        bytesSkipped.addAndGet(size);
+        return true;
+    }
+
+    /**
+     * Record an entry that was written to target under outputRoot
+     */
+    public void recordWritten(Path outputRoot, Path target, long size, long crc) {
+        entriesWritten.incrementAndGet();
+        bytesWritten.addAndGet(Math.max(0L, size));
+        if (size >= 0 && crc >= 0) {
+            record(rootKey(outputRoot), relativeKey(outputRoot, target), size, crc, target);
+        }
+    }
+
+    private static boolean isUnchanged(Map<String, Object> record, Path file, long size, long crc) {
+        if (!Objects.equals(number(record.get("size")), size) || !Objects.equals(number(record.get("crc")), crc)) {
+            return false;
+        }
+        try {
+            return Files.size(file) == size
+                    && Objects.equals(number(record.get("modified")), Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void record(String root, String relativePath, long size, long crc, Path target) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("size", size);
+        record.put("crc", crc);
+        try {
+            record.put("modified", Files.getLastModifiedTime(target).toMillis());
+        } catch (IOException e) {
+            return;
+        }
+        synchronized (this) {
+            entries.computeIfAbsent(root, key -> new TreeMap<>()).put(relativePath, record);
+        }
+    }
+
+    private static String rootKey(Path outputRoot) {
+        return outputRoot.toAbsolutePath().normalize().toString();
+    }
+
+    private static String relativeKey(Path outputRoot, Path target) {
+        Path relativePath = outputRoot.toAbsolutePath().normalize().relativize(target.toAbsolutePath().normalize());
+        return relativePath.toString().replace('\\', '/');
+    }
+
+    /**
+     * Snapshot of written and skipped entries for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("entries_written", entriesWritten.get());
+        metrics.put("bytes_written", bytesWritten.get());
+        metrics.put("entries_skipped", entriesSkipped.get());
+        metrics.put("bytes_skipped", bytesSkipped.get());
+        return metrics;
+    }
+
+    /**
+     * Write the index back to disk
+     */
+    public synchronized void save() {
+        try {
+            Files.createDirectories(indexFile.toAbsolutePath().getParent());
+            objectMapper.writeValue(indexFile.toFile(), entries);
+        } catch (IOException e) {
+            logger.warn("Failed to save extraction index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    private static Long number(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+
+/**
+ * NIO transfer layer for writing downloads and extracted archive entries to disk.
+ *
+ * Bytes are gathered from the source channel into pooled direct buffers and written to the file
+ * channel in large chunks, so a transfer neither allocates per call nor issues a write per 8 KB.
+ * The chunk size starts small and doubles while the source keeps filling it, so small files stay
+ * cheap and large streams reach the maximum chunk size after a few writes. An Okio
+ * {@code BufferedSource} is a ReadableByteChannel and can be passed directly.
+ */
+public final class FileTransfer {
+
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_BUFFERS = new AtomicInteger();
+
+    private FileTransfer() {
+    }
+
+    /**
+     * Copy the source to the end of the target channel until the source is exhausted
+     *
+     * @param bandwidthLimiter shared byte-rate cap, or null for none
+     * @return number of bytes copied
+     */
+    public static long copy(ReadableByteChannel source, FileChannel target, BandwidthLimiter bandwidthLimiter) throws IOException {
+        return copy(source, target, bandwidthLimiter, null);
+    }
+
+    /**
+     * Copy the source to the end of the target channel, holding a permit for each chunk written
+     *
+     * @param bandwidthLimiter shared byte-rate cap, or null for none
+     * @param writePermits     shared cap on concurrent disk writes, or null for none
+     * @return number of bytes copied
+     */
+    public static long copy(ReadableByteChannel source, FileChannel target, BandwidthLimiter bandwidthLimiter,
+                            Semaphore writePermits) throws IOException {
+        return transfer(source, target, -1L, Long.MAX_VALUE, bandwidthLimiter, writePermits, null);
+    }
+
+    /**
+     * Copy up to length bytes of the source into the target channel at position, without moving the
+     * channel's own position, so several copies can write disjoint ranges of one channel concurrently
+     *
+     * @param bandwidthLimiter shared byte-rate cap, or null for none
+     * @param writePermits     shared cap on concurrent disk writes, or null for none
+     * @param progress         receives the byte count of each chunk once it is written, or null; a
+     *                         caller resuming after a failure continues from the bytes reported
+     * @return number of bytes copied, less than length if the source was exhausted first
+     */
+    public static long copy(ReadableByteChannel source, FileChannel target, long position, long length,
+                            BandwidthLimiter bandwidthLimiter, Semaphore writePermits, LongConsumer progress) throws IOException {
+        return transfer(source, target, Math.max(0L, position), length, bandwidthLimiter, writePermits, progress);
+    }
+
+    /**
+     * @param position file position to write at, or -1 to write at the channel's position
+     */
+    private static long transfer(ReadableByteChannel source, FileChannel target, long position, long length,
+                                 BandwidthLimiter bandwidthLimiter, Semaphore writePermits,
+                                 LongConsumer progress) throws IOException {
+        ByteBuffer buffer = acquireBuffer();
+        try {
+            long total = 0;
+            int chunk = Constants.Download.TRANSFER_MIN_CHUNK_BYTES;
+            boolean exhausted = false;
+
+            while (!exhausted && total < length) {
+                buffer.clear().limit((int) Math.min(chunk, length - total));
+                while (buffer.hasRemaining()) {
+                    if (source.read(buffer) == -1) {
+                        exhausted = true;
+                        break;
+                    }
+                }
+                if (!buffer.hasRemaining() && buffer.limit() == chunk && chunk < buffer.capacity()) {
+                    chunk = Math.min(buffer.capacity(), chunk * 2);
+                }
+
+                buffer.flip();
+                if (!buffer.hasRemaining()) {
+                    continue;
+                }
+                try {
+                    if (bandwidthLimiter != null) {
+                        bandwidthLimiter.acquire(buffer.remaining());
+                    }
+                    if (writePermits != null) {
+                        writePermits.acquire();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("File transfer interrupted");
+                }
+                int written = buffer.remaining();
+                try {
+                    while (buffer.hasRemaining()) {
+                        if (position < 0) {
+                            target.write(buffer);
+                        } else {
+                            target.write(buffer, position + total + written - buffer.remaining());
+                        }
+                    }
+                } finally {
+                    if (writePermits != null) {
+                        writePermits.release();
+                    }
+                }
+                total += written;
+                if (progress != null) {
+                    progress.accept(written);
+                }
+            }
+            return total;
+        } finally {
+            releaseBuffer(buffer);
+        }
+    }
+
+    /**
+     * Write the source to a .part file beside target and rename it over target. A file already at
+     * target, possibly a hard link to an earlier run's output, is replaced and never written through.
+     *
+     * @param writePermits shared cap on concurrent disk writes, or null for none
+     * @return number of bytes copied
+     */
+    public static long replace(ReadableByteChannel source, Path target, Semaphore writePermits) throws IOException {
+        Path partFile = target.resolveSibling(target.getFileName() + Constants.Download.PART_FILE_SUFFIX);
+        long total;
+        try (FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            total = copy(source, channel, null, writePermits);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+        moveIntoPlace(partFile, target);
+        return total;
+    }
+
+    /**
+     * Rename a completed .part file to its final name, atomically where the filesystem allows
+     */
+    public static void moveIntoPlace(Path partFile, Path target) throws IOException {
+        try {
+            Files.move(partFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+        if (buffer != null) {
+            POOLED_BUFFERS.decrementAndGet();
+            return buffer;
+        }
+        return ByteBuffer.allocateDirect(Constants.Download.TRANSFER_MAX_CHUNK_BYTES);
+    }
+
+    private static void releaseBuffer(ByteBuffer buffer) {
+        // Keep a bounded number of idle buffers; extras are left to the garbage collector
+        if (POOLED_BUFFERS.incrementAndGet() <= Constants.Download.TRANSFER_BUFFER_POOL_SIZE) {
+            BUFFER_POOL.offer(buffer);
+        } else {
+            POOLED_BUFFERS.decrementAndGet();
+        }
+    }
+}
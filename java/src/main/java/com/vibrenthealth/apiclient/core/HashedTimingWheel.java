@@ -0,0 +1,169 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for large numbers of delayed tasks.
+ *
+ * Tasks are hashed into one bucket per tick of the wheel. Scheduling is an O(1) append to a
+ * lock-free queue; on each tick a single worker thread moves new tasks into their buckets and
+ * expires the current bucket, handing due tasks to the executor. The cost of a tick therefore
+ * depends on the tasks due in that tick, not on the number of outstanding tasks, as long as the
+ * wheel spans the longest delay. Longer delays wrap around and are carried for extra rounds.
+ */
+public class HashedTimingWheel {
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    // Upper bound on new tasks moved into the wheel per tick, so a burst cannot stall expiry
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private static class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos;
+        private long remainingRounds;
+
+        Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] wheel;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTimeouts = new AtomicInteger();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+
+    // Worker thread state
+    private long tick;
+    private volatile long ticks;
+    private volatile long busyNanos;
+
+    /**
+     * @param ticksPerWheel number of buckets, rounded up to a power of two
+     * @param executor      runs expired tasks; the wheel thread only does bookkeeping
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(long tickDuration, TimeUnit unit, int ticksPerWheel, Executor executor, ThreadFactory threadFactory) {
+        this.tickNanos = Math.max(1L, unit.toNanos(tickDuration));
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.wheel = (ArrayDeque<Timeout>[]) new ArrayDeque<?>[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.start();
+    }
+
+    /**
+     * Schedule a task to run after the given delay, rounded up to the next tick
+     */
+    public void schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            return;
+        }
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0L, delay));
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(new Timeout(task, deadline));
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                continue;
+            }
+
+            long begin = System.nanoTime();
+            transferTimeouts();
+            expireTimeouts(wheel[(int) (tick & mask)], deadline);
+            tick++;
+            busyNanos += System.nanoTime() - begin;
+            ticks++;
+        }
+    }
+
+    private void transferTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            long calculated = (timeout.deadlineNanos + tickNanos - 1) / tickNanos;
+            timeout.remainingRounds = Math.max(0L, (calculated - tick) / wheel.length);
+            // Tasks already overdue go into the current bucket
+            long targetTick = Math.max(calculated, tick);
+            wheel[(int) (targetTick & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(ArrayDeque<Timeout> bucket, long deadline) {
+        for (int remaining = bucket.size(); remaining > 0; remaining--) {
+            Timeout timeout = bucket.poll();
+            if (timeout.remainingRounds <= 0 && timeout.deadlineNanos <= deadline) {
+                pendingTimeouts.decrementAndGet();
+                try {
+                    executor.execute(timeout.task);
+                } catch (RuntimeException e) {
+                    logger.debug("Dropping expired task: {}", e.getMessage());
+                }
+            } else {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+            }
+        }
+    }
+
+    /**
+     * Stop the wheel, discarding tasks that have not expired
+     */
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    public boolean isStopped() {
+        return !running;
+    }
+
+    /**
+     * Tasks scheduled but not yet handed to the executor
+     */
+    public int getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * Number of ticks processed so far
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Average wheel-thread time spent per tick in nanoseconds, excluding the tasks themselves
+     */
+    public double getAverageTickNanos() {
+        long processed = ticks;
+        return processed > 0 ? busyNanos / (double) processed : 0.0;
+    }
+}
@@ -0,0 +1,104 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibrenthealth.apiclient.models.ExportRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the records of downloaded exports to one newline-delimited JSON file per survey, in the
+ * same layout as {@link NdjsonMerger} produces from extracted files.
+ *
+ * Every line is an object tagged with the survey's platformFormId. Records of an export whose
+ * survey is not known go to a file named after the export. Records of different surveys are
+ * written concurrently; a file is flushed when an export completes and closed with the sink.
+ */
+public class NdjsonFileSink implements RecordSink {
+    private final Path outputDir;
+    // Its generators can write the JSON values records hold
+    private final JsonFactory jsonFactory = new ObjectMapper().getFactory();
+    private final Map<Path, JsonGenerator> generators = new LinkedHashMap<>();
+
+    public NdjsonFileSink(Path outputDir) {
+        this.outputDir = outputDir;
+    }
+
+    @Override
+    public void accept(ExportRecord record) throws IOException {
+        JsonGenerator generator = getGenerator(record.getExportId(), record.getPlatformFormId());
+        synchronized (generator) {
+            generator.writeStartObject();
+            if (record.getPlatformFormId() != null) {
+                generator.writeNumberField(Constants.Merge.SURVEY_FIELD, record.getPlatformFormId());
+            }
+            for (Map.Entry<String, Object> field : record.getFields().entrySet()) {
+                if (record.getPlatformFormId() != null && Constants.Merge.SURVEY_FIELD.equals(field.getKey())) {
+                    continue;
+                }
+                generator.writeFieldName(field.getKey());
+                generator.writeObject(field.getValue());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+    }
+
+    @Override
+    public void exportComplete(String exportId, Integer platformFormId, long records) throws IOException {
+        JsonGenerator generator = getGenerator(exportId, platformFormId);
+        synchronized (generator) {
+            generator.flush();
+        }
+    }
+
+    /**
+     * @return the files written so far
+     */
+    public synchronized List<Path> getFiles() {
+        return new ArrayList<>(generators.keySet());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        IOException failure = null;
+        for (JsonGenerator generator : generators.values()) {
+            try {
+                synchronized (generator) {
+                    generator.close();
+                }
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        generators.clear();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private synchronized JsonGenerator getGenerator(String exportId, Integer platformFormId) throws IOException {
+        Path file = outputDir.resolve(platformFormId != null
+                ? String.format(Constants.Merge.NDJSON_FILENAME_FORMAT, platformFormId)
+                : "export_" + exportId + ".ndjson");
+        JsonGenerator generator = generators.get(file);
+        if (generator == null) {
+            Files.createDirectories(outputDir);
+            generator = jsonFactory.createGenerator(new BufferedOutputStream(Files.newOutputStream(file)), JsonEncoding.UTF8);
+            generator.setRootValueSeparator(null);
+            generators.put(file, generator);
+        }
+        return generator;
+    }
+}
@@ -0,0 +1,98 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Merges the extracted JSON files of each survey into one newline-delimited JSON file.
+ *
+ * Files are read with the Jackson streaming parser and written token by token, so memory use does
+ * not depend on the size of a file or record. A top-level array contributes one line per element;
+ * any other top-level value is one line. Every line is an object tagged with the survey's
+ * platformFormId; values that are not objects are wrapped under "value".
+ */
+public class NdjsonMerger extends SurveyFileMerger {
+    private static final String WRAPPED_VALUE_FIELD = "value";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public NdjsonMerger(int parallelism, boolean removeSourceFiles) {
+        super(parallelism, removeSourceFiles);
+    }
+
+    @Override
+    protected String getSourceExtension() {
+        return ".json";
+    }
+
+    @Override
+    protected String getMergedFilename(int platformFormId) {
+        return String.format(Constants.Merge.NDJSON_FILENAME_FORMAT, platformFormId);
+    }
+
+    /**
+     * Write the records of the source files to target as NDJSON, each tagged with platformFormId
+     *
+     * @return the number of records written
+     */
+    @Override
+    public long merge(int platformFormId, List<Path> sources, Path target) throws IOException {
+        long count = 0;
+        try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(target));
+             JsonGenerator generator = jsonFactory.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            for (Path source : sources) {
+                try (JsonParser parser = jsonFactory.createParser(source.toFile())) {
+                    JsonToken token;
+                    while ((token = parser.nextToken()) != null) {
+                        if (token == JsonToken.START_ARRAY) {
+                            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                                writeRecord(parser, generator, platformFormId);
+                                count++;
+                            }
+                        } else {
+                            writeRecord(parser, generator, platformFormId);
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Copy the value at the parser's current token as one tagged line
+     */
+    private static void writeRecord(JsonParser parser, JsonGenerator generator, int platformFormId) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField(Constants.Merge.SURVEY_FIELD, platformFormId);
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if (Constants.Merge.SURVEY_FIELD.equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                generator.writeFieldName(field);
+                generator.copyCurrentStructure(parser);
+            }
+        } else {
+            generator.writeFieldName(WRAPPED_VALUE_FIELD);
+            generator.copyCurrentStructure(parser);
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+}
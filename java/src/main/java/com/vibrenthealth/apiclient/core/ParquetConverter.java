@@ -0,0 +1,448 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the extracted JSON or CSV files of each survey, or of a device export, into one Parquet
+ * file.
+ *
+ * The schema is flat: one optional column per top-level field, typed BOOLEAN, INT64, DOUBLE or
+ * STRING, plus a leading platformFormId column for surveys. Nested JSON objects and arrays are stored as JSON
+ * text. The schema of a survey is inferred by a pass over its files and cached in a local file, so
+ * later runs convert in a single pass; when a file has a column the cached schema lacks, or a value
+ * that does not fit its column type, the schema is inferred again. Records are streamed, and only
+ * the current row group is held in memory.
+ */
+public class ParquetConverter extends SurveyFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(ParquetConverter.class);
+
+    private static final String WRAPPED_VALUE_FIELD = "value";
+    private static final Pattern LONG_PATTERN = Pattern.compile("-?(0|[1-9]\\d{0,17})");
+    private static final Pattern DOUBLE_PATTERN = Pattern.compile("-?(0|[1-9]\\d*)(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    /**
+     * A record whose fields do not fit the schema it is written with
+     */
+    private static final class SchemaMismatchException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        SchemaMismatchException(String message) {
+            super(message);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordConsumer {
+        void accept(Map<String, Object> record) throws IOException, SchemaMismatchException;
+    }
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String exportFormat;
+    private final long rowGroupBytes;
+    private final int pageBytes;
+    private final boolean gzip;
+    private final Path schemaCacheFile;
+    private final Map<String, List<Map<String, String>>> schemaCache = new TreeMap<>();
+
+    /**
+     * @param exportFormat    format of the extracted files, JSON or CSV
+     * @param schemaCacheFile file the inferred schemas are kept in, or null to infer on every run
+     */
+    public ParquetConverter(int parallelism, String exportFormat, long rowGroupBytes, int pageBytes, boolean gzip,
+                            Path schemaCacheFile) {
+        super(parallelism, false);
+        this.exportFormat = exportFormat;
+        this.rowGroupBytes = rowGroupBytes;
+        this.pageBytes = pageBytes;
+        this.gzip = gzip;
+        this.schemaCacheFile = schemaCacheFile;
+        if (schemaCacheFile != null && Files.exists(schemaCacheFile)) {
+            try {
+                schemaCache.putAll(objectMapper.readValue(schemaCacheFile.toFile(),
+                        new TypeReference<Map<String, List<Map<String, String>>>>() { }));
+            } catch (IOException e) {
+                logger.warn("Ignoring unreadable Parquet schema cache {}: {}", schemaCacheFile, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Converter for the configured columnar output format, or null if none is configured
+     *
+     * @param exportFormat format of the extracted files, JSON or CSV
+     * @param exportsDir   exports directory the schema cache file is kept under
+     * @throws ConfigManager.ConfigurationError if the format is not supported
+     */
+    public static ParquetConverter fromConfig(Map<String, Object> columnarConfig, int parallelism, String exportFormat,
+                                              Path exportsDir) {
+        String format = (String) columnarConfig.getOrDefault(Constants.ConfigKeys.FORMAT, Constants.Columnar.FORMAT_NONE);
+        switch (format.toLowerCase()) {
+            case Constants.Columnar.FORMAT_NONE:
+                return null;
+            case Constants.Columnar.FORMAT_PARQUET:
+                String compression = (String) columnarConfig.getOrDefault(Constants.ConfigKeys.COMPRESSION,
+                        Constants.Columnar.COMPRESSION_GZIP);
+                String schemaCacheFile = (String) columnarConfig.getOrDefault(Constants.ConfigKeys.SCHEMA_CACHE_FILE,
+                        Constants.Columnar.DEFAULT_SCHEMA_CACHE_FILE);
+                return new ParquetConverter(parallelism, exportFormat,
+                        ((Number) columnarConfig.getOrDefault(Constants.ConfigKeys.ROW_GROUP_BYTES,
+                                Constants.Columnar.DEFAULT_ROW_GROUP_BYTES)).longValue(),
+                        (Integer) columnarConfig.getOrDefault(Constants.ConfigKeys.PAGE_BYTES,
+                                Constants.Columnar.DEFAULT_PAGE_BYTES),
+                        !Constants.Columnar.COMPRESSION_NONE.equalsIgnoreCase(compression),
+                        exportsDir.resolve(schemaCacheFile));
+            default:
+                throw new ConfigManager.ConfigurationError("Unsupported columnar output format: " + format);
+        }
+    }
+
+    @Override
+    protected String getSourceExtension() {
+        return isCsv() ? ".csv" : ".json";
+    }
+
+    @Override
+    protected String getMergedFilename(int platformFormId) {
+        return String.format(Constants.Columnar.PARQUET_FILENAME_FORMAT, platformFormId);
+    }
+
+    private boolean isCsv() {
+        return Constants.ExportFormat.CSV.equals(exportFormat);
+    }
+
+    /**
+     * Write the records of the source files to target as Parquet
+     *
+     * @return the number of records written
+     */
+    @Override
+    public long merge(int platformFormId, List<Path> sources, Path target) throws IOException {
+        return convert(exportFormat + ":" + platformFormId, (long) platformFormId, sources, target);
+    }
+
+    /**
+     * Write the records of files that belong to no survey, such as a device export's, to target as
+     * Parquet, without the platformFormId column
+     *
+     * @param schemaKey key the inferred schema is cached under, such as the export type
+     * @return the number of records written
+     */
+    public long convert(String schemaKey, List<Path> sources, Path target) throws IOException {
+        Path partFile = target.resolveSibling(target.getFileName() + Constants.Download.PART_FILE_SUFFIX);
+        try {
+            long count = convert(exportFormat + ":" + schemaKey, null, sources, partFile);
+            FileTransfer.moveIntoPlace(partFile, target);
+            return count;
+        } finally {
+            Files.deleteIfExists(partFile);
+        }
+    }
+
+    /**
+     * @param platformFormId value of the leading platformFormId column, or null for no such column
+     */
+    private long convert(String cacheKey, Long platformFormId, List<Path> sources, Path target) throws IOException {
+        List<ParquetWriter.Column> schema = cachedSchema(cacheKey);
+        if (schema != null && (platformFormId != null) == isSurveyColumn(schema)) {
+            try {
+                return write(platformFormId, sources, target, schema);
+            } catch (SchemaMismatchException e) {
+                logger.info("Cached schema {} no longer fits ({}); inferring it again", cacheKey, e.getMessage());
+            }
+        }
+
+        schema = inferSchema(sources, platformFormId != null);
+        try {
+            long count = write(platformFormId, sources, target, schema);
+            cacheSchema(cacheKey, schema);
+            return count;
+        } catch (SchemaMismatchException e) {
+            throw new IOException("Records do not fit their inferred schema: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isSurveyColumn(List<ParquetWriter.Column> schema) {
+        return !schema.isEmpty() && Constants.Merge.SURVEY_FIELD.equals(schema.get(0).name);
+    }
+
+    private List<ParquetWriter.Column> inferSchema(List<Path> sources, boolean surveyColumn) throws IOException {
+        Map<String, ParquetWriter.ColumnType> types = new LinkedHashMap<>();
+        try {
+            forEachRecord(sources, record -> {
+                for (Map.Entry<String, Object> field : record.entrySet()) {
+                    ParquetWriter.ColumnType valueType = typeOf(field.getValue());
+                    ParquetWriter.ColumnType current = types.get(field.getKey());
+                    types.put(field.getKey(), current == null ? valueType : widen(current, valueType));
+                }
+            });
+        } catch (SchemaMismatchException e) {
+            throw new IllegalStateException(e);
+        }
+
+        List<ParquetWriter.Column> schema = new ArrayList<>();
+        if (surveyColumn) {
+            schema.add(new ParquetWriter.Column(Constants.Merge.SURVEY_FIELD, ParquetWriter.ColumnType.INT64));
+        }
+        for (Map.Entry<String, ParquetWriter.ColumnType> type : types.entrySet()) {
+            if (!surveyColumn || !Constants.Merge.SURVEY_FIELD.equals(type.getKey())) {
+                schema.add(new ParquetWriter.Column(type.getKey(),
+                        type.getValue() != null ? type.getValue() : ParquetWriter.ColumnType.STRING));
+            }
+        }
+        return schema;
+    }
+
+    private long write(Long platformFormId, List<Path> sources, Path target, List<ParquetWriter.Column> schema)
+            throws IOException, SchemaMismatchException {
+        Map<String, Integer> columnIndexes = new HashMap<>();
+        for (int i = 0; i < schema.size(); i++) {
+            columnIndexes.put(schema.get(i).name, i);
+        }
+
+        long[] count = new long[1];
+        Object[] row = new Object[schema.size()];
+        try (ParquetWriter writer = new ParquetWriter(target, schema, rowGroupBytes, pageBytes, gzip)) {
+            forEachRecord(sources, record -> {
+                Arrays.fill(row, null);
+                if (platformFormId != null) {
+                    row[0] = platformFormId;
+                }
+                for (Map.Entry<String, Object> field : record.entrySet()) {
+                    if (platformFormId != null && Constants.Merge.SURVEY_FIELD.equals(field.getKey())) {
+                        continue;
+                    }
+                    Integer index = columnIndexes.get(field.getKey());
+                    if (index == null) {
+                        throw new SchemaMismatchException("new column " + field.getKey());
+                    }
+                    row[index] = coerce(field.getValue(), schema.get(index));
+                }
+                writer.write(row);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
+    /**
+     * Type of a record value; CSV values are typed by their text, JSON strings stay strings
+     *
+     * @return the narrowest column type that holds the value, or null for null
+     */
+    private ParquetWriter.ColumnType typeOf(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Boolean) {
+            return ParquetWriter.ColumnType.BOOLEAN;
+        }
+        if (value instanceof Long) {
+            return ParquetWriter.ColumnType.INT64;
+        }
+        if (value instanceof Double) {
+            return ParquetWriter.ColumnType.DOUBLE;
+        }
+        String text = (String) value;
+        if (!isCsv()) {
+            return ParquetWriter.ColumnType.STRING;
+        }
+        if (text.equals("true") || text.equals("false")) {
+            return ParquetWriter.ColumnType.BOOLEAN;
+        }
+        if (LONG_PATTERN.matcher(text).matches()) {
+            return ParquetWriter.ColumnType.INT64;
+        }
+        if (DOUBLE_PATTERN.matcher(text).matches()) {
+            return ParquetWriter.ColumnType.DOUBLE;
+        }
+        return ParquetWriter.ColumnType.STRING;
+    }
+
+    private static ParquetWriter.ColumnType widen(ParquetWriter.ColumnType current, ParquetWriter.ColumnType valueType) {
+        if (valueType == null || valueType == current) {
+            return current;
+        }
+        boolean numeric = (current == ParquetWriter.ColumnType.INT64 || current == ParquetWriter.ColumnType.DOUBLE)
+                && (valueType == ParquetWriter.ColumnType.INT64 || valueType == ParquetWriter.ColumnType.DOUBLE);
+        return numeric ? ParquetWriter.ColumnType.DOUBLE : ParquetWriter.ColumnType.STRING;
+    }
+
+    private Object coerce(Object value, ParquetWriter.Column column) throws SchemaMismatchException {
+        ParquetWriter.ColumnType valueType = typeOf(value);
+        if (valueType == null) {
+            return null;
+        }
+        if (column.type == ParquetWriter.ColumnType.STRING) {
+            return value.toString();
+        }
+        if (valueType == column.type) {
+            if (value instanceof String) {
+                String text = (String) value;
+                switch (valueType) {
+                    case BOOLEAN:
+                        return Boolean.valueOf(text);
+                    case INT64:
+                        return Long.valueOf(text);
+                    default:
+                        return Double.valueOf(text);
+                }
+            }
+            return value;
+        }
+        if (column.type == ParquetWriter.ColumnType.DOUBLE && valueType == ParquetWriter.ColumnType.INT64) {
+            return value instanceof Long ? ((Long) value).doubleValue() : Double.valueOf((String) value);
+        }
+        throw new SchemaMismatchException(valueType + " value in " + column.type + " column " + column.name);
+    }
+
+    private void forEachRecord(List<Path> sources, RecordConsumer consumer) throws IOException, SchemaMismatchException {
+        for (Path source : sources) {
+            if (isCsv()) {
+                forEachCsvRecord(source, consumer);
+            } else {
+                forEachJsonRecord(source, consumer);
+            }
+        }
+    }
+
+    private static void forEachCsvRecord(Path source, RecordConsumer consumer) throws IOException, SchemaMismatchException {
+        try (CsvReader reader = new CsvReader(source)) {
+            List<String> header = reader.readRecord();
+            if (header == null) {
+                return;
+            }
+            Map<String, Object> record = new LinkedHashMap<>();
+            List<String> fields;
+            while ((fields = reader.readRecord()) != null) {
+                if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                    continue;
+                }
+                record.clear();
+                for (int i = 0; i < header.size(); i++) {
+                    String value = i < fields.size() ? fields.get(i) : "";
+                    record.put(header.get(i).trim(), value.isEmpty() ? null : value);
+                }
+                consumer.accept(record);
+            }
+        }
+    }
+
+    private void forEachJsonRecord(Path source, RecordConsumer consumer) throws IOException, SchemaMismatchException {
+        try (JsonParser parser = jsonFactory.createParser(source.toFile())) {
+            Map<String, Object> record = new LinkedHashMap<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        readJsonRecord(parser, record);
+                        consumer.accept(record);
+                    }
+                } else {
+                    readJsonRecord(parser, record);
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the value at the parser's current token as a flat record
+     */
+    private void readJsonRecord(JsonParser parser, Map<String, Object> record) throws IOException {
+        record.clear();
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                record.put(field, readJsonValue(parser));
+            }
+        } else {
+            record.put(WRAPPED_VALUE_FIELD, readJsonValue(parser));
+        }
+    }
+
+    private Object readJsonValue(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? parser.getText() : parser.getLongValue();
+            case VALUE_NUMBER_FLOAT:
+                return parser.getDoubleValue();
+            case START_OBJECT:
+            case START_ARRAY:
+                StringWriter json = new StringWriter();
+                try (JsonGenerator generator = jsonFactory.createGenerator(json)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                return json.toString();
+            default:
+                return parser.getText();
+        }
+    }
+
+    private List<ParquetWriter.Column> cachedSchema(String cacheKey) {
+        List<Map<String, String>> cached;
+        synchronized (schemaCache) {
+            cached = schemaCache.get(cacheKey);
+        }
+        if (cached == null) {
+            return null;
+        }
+        List<ParquetWriter.Column> schema = new ArrayList<>();
+        for (Map<String, String> column : cached) {
+            try {
+                schema.add(new ParquetWriter.Column(column.get("name"), ParquetWriter.ColumnType.valueOf(column.get("type"))));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                return null;
+            }
+        }
+        return schema;
+    }
+
+    private void cacheSchema(String cacheKey, List<ParquetWriter.Column> schema) {
+        List<Map<String, String>> cached = new ArrayList<>();
+        for (ParquetWriter.Column column : schema) {
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("name", column.name);
+            entry.put("type", column.type.name());
+            cached.add(entry);
+        }
+        synchronized (schemaCache) {
+            schemaCache.put(cacheKey, cached);
+            if (schemaCacheFile != null) {
+                try {
+                    Files.createDirectories(schemaCacheFile.toAbsolutePath().getParent());
+                    objectMapper.writeValue(schemaCacheFile.toFile(), schemaCache);
+                } catch (IOException e) {
+                    logger.warn("Failed to save Parquet schema cache {}: {}", schemaCacheFile, e.getMessage());
+                }
+            }
+        }
+    }
+}
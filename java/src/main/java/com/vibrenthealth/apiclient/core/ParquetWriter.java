@@ -0,0 +1,445 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes Parquet files with a flat schema of optional columns, without Hadoop or parquet-mr.
+ *
+ * Values are PLAIN-encoded in version 1 data pages with RLE definition levels, optionally GZIP
+ * compressed, and the footer is written in the Thrift compact protocol. Rows are buffered column
+ * by column until the row group reaches its target size, so a reader that selects a few columns
+ * reads one contiguous chunk per column and row group and skips the rest.
+ */
+final class ParquetWriter implements Closeable {
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final String CREATED_BY = "vibrent-api-client";
+    private static final int MAX_PAGE_ROWS = 20_000;
+    private static final int ROW_GROUP_CHECK_INTERVAL = 128;
+
+    // parquet.thrift enum values
+    private static final int REPETITION_OPTIONAL = 1;
+    private static final int CONVERTED_TYPE_UTF8 = 0;
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int CODEC_UNCOMPRESSED = 0;
+    private static final int CODEC_GZIP = 2;
+    private static final int PAGE_TYPE_DATA = 0;
+
+    /**
+     * Column types, with their Parquet physical type
+     */
+    enum ColumnType {
+        BOOLEAN(0), INT64(2), DOUBLE(5), STRING(6);
+
+        final int physicalType;
+
+        ColumnType(int physicalType) {
+            this.physicalType = physicalType;
+        }
+    }
+
+    /**
+     * A named optional column
+     */
+    static final class Column {
+        final String name;
+        final ColumnType type;
+
+        Column(String name, ColumnType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private final OutputStream output;
+    private final List<Column> columns;
+    private final List<ColumnWriter> columnWriters = new ArrayList<>();
+    private final List<byte[]> rowGroups = new ArrayList<>();
+    private final long rowGroupBytes;
+    private final int pageBytes;
+    private final boolean gzip;
+    private long position;
+    private long rowGroupRows;
+    private long totalRows;
+
+    ParquetWriter(Path target, List<Column> columns, long rowGroupBytes, int pageBytes, boolean gzip) throws IOException {
+        this.output = new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024);
+        this.columns = columns;
+        this.rowGroupBytes = rowGroupBytes;
+        this.pageBytes = pageBytes;
+        this.gzip = gzip;
+        for (Column column : columns) {
+            columnWriters.add(new ColumnWriter(column));
+        }
+        write(MAGIC);
+    }
+
+    /**
+     * Append a row; values are Boolean, Long, Double or String by column type, or null
+     */
+    void write(Object[] row) throws IOException {
+        for (int i = 0; i < columnWriters.size(); i++) {
+            columnWriters.get(i).add(row[i]);
+        }
+        rowGroupRows++;
+        totalRows++;
+        if (rowGroupRows % ROW_GROUP_CHECK_INTERVAL == 0 && bufferedBytes() >= rowGroupBytes) {
+            flushRowGroup();
+        }
+    }
+
+    private long bufferedBytes() {
+        long bytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            bytes += columnWriter.bufferedBytes();
+        }
+        return bytes;
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rowGroupRows == 0) {
+            return;
+        }
+        long rowGroupOffset = position;
+        long uncompressedBytes = 0;
+        long compressedBytes = 0;
+        ThriftCompactWriter rowGroup = new ThriftCompactWriter();
+        rowGroup.beginStruct();
+        rowGroup.beginList(1, ThriftCompactWriter.STRUCT, columnWriters.size());
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnWriter.flushPage();
+            long chunkOffset = position;
+            columnWriter.chunk.writeTo(output);
+            position += columnWriter.chunk.size();
+            uncompressedBytes += columnWriter.chunkUncompressedBytes;
+            compressedBytes += columnWriter.chunk.size();
+            columnWriter.writeChunkMetadata(rowGroup, chunkOffset);
+            columnWriter.resetChunk();
+        }
+        rowGroup.i64(2, uncompressedBytes);
+        rowGroup.i64(3, rowGroupRows);
+        rowGroup.i64(5, rowGroupOffset);
+        rowGroup.i64(6, compressedBytes);
+        rowGroup.endStruct();
+        rowGroups.add(rowGroup.toByteArray());
+        rowGroupRows = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushRowGroup();
+
+            ThriftCompactWriter footer = new ThriftCompactWriter();
+            footer.beginStruct();
+            footer.i32(1, 1);
+            footer.beginList(2, ThriftCompactWriter.STRUCT, columns.size() + 1);
+            footer.beginStruct();
+            footer.string(4, "schema");
+            footer.i32(5, columns.size());
+            footer.endStruct();
+            for (Column column : columns) {
+                footer.beginStruct();
+                footer.i32(1, column.type.physicalType);
+                footer.i32(3, REPETITION_OPTIONAL);
+                footer.string(4, column.name);
+                if (column.type == ColumnType.STRING) {
+                    footer.i32(6, CONVERTED_TYPE_UTF8);
+                }
+                footer.endStruct();
+            }
+            footer.i64(3, totalRows);
+            footer.beginList(4, ThriftCompactWriter.STRUCT, rowGroups.size());
+            for (byte[] rowGroup : rowGroups) {
+                footer.raw(rowGroup);
+            }
+            footer.string(6, CREATED_BY);
+            footer.endStruct();
+
+            byte[] footerBytes = footer.toByteArray();
+            write(footerBytes);
+            write(new byte[] {(byte) footerBytes.length, (byte) (footerBytes.length >>> 8),
+                    (byte) (footerBytes.length >>> 16), (byte) (footerBytes.length >>> 24)});
+            write(MAGIC);
+        } finally {
+            output.close();
+        }
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        output.write(bytes);
+        position += bytes.length;
+    }
+
+    /**
+     * Buffers the pages of one column for the current row group
+     */
+    private final class ColumnWriter {
+        private final Column column;
+        private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        private byte[] definitionLevels = new byte[1024];
+        private int pageRows;
+        private int booleanBits;
+        private int booleanByte;
+        private long chunkValues;
+        private long chunkUncompressedBytes;
+
+        ColumnWriter(Column column) {
+            this.column = column;
+        }
+
+        void add(Object value) throws IOException {
+            if (pageRows == definitionLevels.length) {
+                definitionLevels = Arrays.copyOf(definitionLevels, pageRows * 2);
+            }
+            definitionLevels[pageRows++] = (byte) (value == null ? 0 : 1);
+            if (value != null) {
+                switch (column.type) {
+                    case BOOLEAN:
+                        if ((Boolean) value) {
+                            booleanByte |= 1 << booleanBits;
+                        }
+                        if (++booleanBits == 8) {
+                            values.write(booleanByte);
+                            booleanBits = 0;
+                            booleanByte = 0;
+                        }
+                        break;
+                    case INT64:
+                        writeLongLittleEndian(values, (Long) value);
+                        break;
+                    case DOUBLE:
+                        writeLongLittleEndian(values, Double.doubleToLongBits((Double) value));
+                        break;
+                    default:
+                        byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                        writeIntLittleEndian(values, bytes.length);
+                        values.write(bytes);
+                        break;
+                }
+            }
+            if (values.size() >= pageBytes || pageRows >= MAX_PAGE_ROWS) {
+                flushPage();
+            }
+        }
+
+        long bufferedBytes() {
+            return chunk.size() + values.size() + pageRows / 8;
+        }
+
+        void flushPage() throws IOException {
+            if (pageRows == 0) {
+                return;
+            }
+            if (booleanBits > 0) {
+                values.write(booleanByte);
+                booleanBits = 0;
+                booleanByte = 0;
+            }
+
+            ByteArrayOutputStream levels = new ByteArrayOutputStream();
+            int run = 1;
+            for (int i = 1; i <= pageRows; i++) {
+                if (i < pageRows && definitionLevels[i] == definitionLevels[i - 1]) {
+                    run++;
+                } else {
+                    ThriftCompactWriter.writeVarint(levels, (long) run << 1);
+                    levels.write(definitionLevels[i - 1]);
+                    run = 1;
+                }
+            }
+            ByteArrayOutputStream page = new ByteArrayOutputStream(4 + levels.size() + values.size());
+            writeIntLittleEndian(page, levels.size());
+            levels.writeTo(page);
+            values.writeTo(page);
+            byte[] body = page.toByteArray();
+            byte[] stored = gzip ? gzip(body) : body;
+
+            ThriftCompactWriter header = new ThriftCompactWriter();
+            header.beginStruct();
+            header.i32(1, PAGE_TYPE_DATA);
+            header.i32(2, body.length);
+            header.i32(3, stored.length);
+            header.beginStruct(5);
+            header.i32(1, pageRows);
+            header.i32(2, ENCODING_PLAIN);
+            header.i32(3, ENCODING_RLE);
+            header.i32(4, ENCODING_RLE);
+            header.endStruct();
+            header.endStruct();
+            byte[] headerBytes = header.toByteArray();
+
+            chunk.write(headerBytes);
+            chunk.write(stored);
+            chunkValues += pageRows;
+            chunkUncompressedBytes += headerBytes.length + body.length;
+            values.reset();
+            pageRows = 0;
+        }
+
+        void writeChunkMetadata(ThriftCompactWriter rowGroup, long chunkOffset) {
+            rowGroup.beginStruct();
+            rowGroup.i64(2, chunkOffset);
+            rowGroup.beginStruct(3);
+            rowGroup.i32(1, column.type.physicalType);
+            rowGroup.beginList(2, ThriftCompactWriter.I32, 2);
+            rowGroup.i32Element(ENCODING_PLAIN);
+            rowGroup.i32Element(ENCODING_RLE);
+            rowGroup.beginList(3, ThriftCompactWriter.BINARY, 1);
+            rowGroup.stringElement(column.name);
+            rowGroup.i32(4, gzip ? CODEC_GZIP : CODEC_UNCOMPRESSED);
+            rowGroup.i64(5, chunkValues);
+            rowGroup.i64(6, chunkUncompressedBytes);
+            rowGroup.i64(7, chunk.size());
+            rowGroup.i64(9, chunkOffset);
+            rowGroup.endStruct();
+            rowGroup.endStruct();
+        }
+
+        void resetChunk() {
+            chunk.reset();
+            chunkValues = 0;
+            chunkUncompressedBytes = 0;
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2 + 64);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed, 8192)) {
+            gzipStream.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void writeIntLittleEndian(ByteArrayOutputStream out, int value) {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    private static void writeLongLittleEndian(ByteArrayOutputStream out, long value) {
+        for (int i = 0; i < 8; i++) {
+            out.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    /**
+     * Thrift compact protocol encoder for the few structures of the Parquet footer and page headers
+     */
+    private static final class ThriftCompactWriter {
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Deque<Integer> lastFieldIds = new ArrayDeque<>();
+        private int lastFieldId;
+
+        /**
+         * Begin a struct that is a list element or the top-level value
+         */
+        void beginStruct() {
+            lastFieldIds.push(lastFieldId);
+            lastFieldId = 0;
+        }
+
+        /**
+         * Begin a struct-valued field
+         */
+        void beginStruct(int fieldId) {
+            fieldHeader(fieldId, STRUCT);
+            beginStruct();
+        }
+
+        void endStruct() {
+            out.write(0);
+            lastFieldId = lastFieldIds.pop();
+        }
+
+        void beginList(int fieldId, int elementType, int size) {
+            fieldHeader(fieldId, LIST);
+            if (size < 15) {
+                out.write(size << 4 | elementType);
+            } else {
+                out.write(0xF0 | elementType);
+                writeVarint(out, size);
+            }
+        }
+
+        void i32(int fieldId, int value) {
+            fieldHeader(fieldId, I32);
+            writeVarint(out, zigzag(value));
+        }
+
+        void i64(int fieldId, long value) {
+            fieldHeader(fieldId, I64);
+            writeVarint(out, (value << 1) ^ (value >> 63));
+        }
+
+        void string(int fieldId, String value) {
+            fieldHeader(fieldId, BINARY);
+            stringElement(value);
+        }
+
+        void i32Element(int value) {
+            writeVarint(out, zigzag(value));
+        }
+
+        void stringElement(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * Append an already encoded list element
+         */
+        void raw(byte[] bytes) {
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+
+        private void fieldHeader(int fieldId, int type) {
+            int delta = fieldId - lastFieldId;
+            if (delta > 0 && delta <= 15) {
+                out.write(delta << 4 | type);
+            } else {
+                out.write(type);
+                writeVarint(out, zigzag(fieldId));
+            }
+            lastFieldId = fieldId;
+        }
+
+        private static long zigzag(int value) {
+            return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+        }
+
+        static void writeVarint(ByteArrayOutputStream out, long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.vibrenthealth.apiclient.core;
+
+import java.util.Map;
+
+/**
+ * Per-export status polling schedule.
+ *
+ * With adaptive polling an export is first checked after a short initial delay, and the delay then
+ * grows by the backoff factor up to the maximum interval. When a form has a recorded completion
+ * time, the first check is instead placed just before that expected duration. Without adaptive
+ * polling every check uses the fixed polling interval.
+ */
+public class PollingPolicy {
+    private final boolean adaptive;
+    private final long fixedIntervalMillis;
+    private final long initialDelayMillis;
+    private final double backoffFactor;
+    private final long maxIntervalMillis;
+
+    public PollingPolicy(boolean adaptive, long fixedIntervalMillis, long initialDelayMillis,
+                         double backoffFactor, long maxIntervalMillis) {
+        this.adaptive = adaptive;
+        this.fixedIntervalMillis = Math.max(1L, fixedIntervalMillis);
+        this.initialDelayMillis = Math.max(1L, initialDelayMillis);
+        this.backoffFactor = Math.max(1.0, backoffFactor);
+        this.maxIntervalMillis = Math.max(this.initialDelayMillis, maxIntervalMillis);
+    }
+
+    /**
+     * Create a policy from the monitoring.adaptive_polling configuration section. Adaptive polling
+     * is used only when the section sets enabled: true.
+     *
+     * @param pollingInterval fixed polling interval in seconds, used when adaptive polling is disabled
+     */
+    public static PollingPolicy fromConfig(Map<String, Object> config, int pollingInterval) {
+        Object enabled = config.get(Constants.ConfigKeys.ENABLED);
+        return new PollingPolicy(
+            Boolean.TRUE.equals(enabled),
+            pollingInterval * 1000L,
+            (long) (getNumber(config, Constants.ConfigKeys.INITIAL_DELAY, Constants.Polling.DEFAULT_INITIAL_DELAY).doubleValue() * 1000),
+            getNumber(config, Constants.ConfigKeys.BACKOFF_FACTOR, Constants.Polling.DEFAULT_BACKOFF_FACTOR).doubleValue(),
+            (long) (getNumber(config, Constants.ConfigKeys.MAX_INTERVAL, Constants.Polling.DEFAULT_MAX_INTERVAL).doubleValue() * 1000)
+        );
+    }
+
+    private static Number getNumber(Map<String, Object> config, String key, Number defaultValue) {
+        Object value = config.get(key);
+        return value instanceof Number ? (Number) value : defaultValue;
+    }
+
+    /**
+     * Delay before the next status check of an export
+     *
+     * @param polls           number of checks already made for the export
+     * @param expectedMillis  expected completion time from history, or null if unknown
+     */
+    public long getDelayMillis(int polls, Long expectedMillis) {
+        if (!adaptive) {
+            return fixedIntervalMillis;
+        }
+        if (polls == 0 && expectedMillis != null) {
+            return Math.max(initialDelayMillis, (long) (expectedMillis * Constants.Polling.EXPECTED_DURATION_FRACTION));
+        }
+        double delay = initialDelayMillis * Math.pow(backoffFactor, polls);
+        return (long) Math.min(maxIntervalMillis, delay);
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
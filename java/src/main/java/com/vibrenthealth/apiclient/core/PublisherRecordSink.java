@@ -0,0 +1,62 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportRecord;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * Publishes the records of downloaded exports to {@link Flow.Subscriber}s.
+ *
+ * Each subscriber has a buffer of records it has not requested yet. While any subscriber's buffer
+ * is full, accepting a record blocks until that subscriber requests more or cancels, which holds
+ * back the download the record came from. Subscribe before the export is run: a record accepted
+ * while there are no subscribers fails its export rather than being dropped. Closing the sink
+ * completes every subscription once its buffered records have been delivered.
+ */
+public class PublisherRecordSink implements RecordSink, Flow.Publisher<ExportRecord> {
+    private final SubmissionPublisher<ExportRecord> publisher;
+
+    /**
+     * Deliver records to subscribers on the common pool, buffering up to
+     * {@link Flow#defaultBufferSize()} records per subscriber
+     */
+    public PublisherRecordSink() {
+        this.publisher = new SubmissionPublisher<>();
+    }
+
+    /**
+     * @param executor          runs the subscribers' callbacks
+     * @param maxBufferCapacity records buffered per subscriber before accepting blocks
+     */
+    public PublisherRecordSink(Executor executor, int maxBufferCapacity) {
+        this.publisher = new SubmissionPublisher<>(executor, maxBufferCapacity);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ExportRecord> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void accept(ExportRecord record) throws IOException {
+        if (!publisher.hasSubscribers()) {
+            throw new IOException("No subscribers for the records of export " + record.getExportId());
+        }
+        publisher.submit(record);
+    }
+
+    /**
+     * Complete every subscription with an error instead of normally
+     */
+    public void closeExceptionally(Throwable error) {
+        publisher.closeExceptionally(error);
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+    }
+}
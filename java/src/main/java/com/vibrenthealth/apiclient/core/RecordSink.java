@@ -0,0 +1,38 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives the records of downloaded exports as they are parsed, instead of extracted files.
+ *
+ * Records are delivered on the download threads, one export per thread at a time, so a sink that
+ * takes a while to accept a record slows down the download that produced it rather than buffering
+ * it. Implementations must be safe to call from several download threads at once.
+ * {@link #exportComplete} is called once every record of an export has been accepted; it is not
+ * called for an export whose download fails.
+ */
+public interface RecordSink extends Closeable {
+
+    /**
+     * Accept one record; an exception fails the export it belongs to
+     */
+    void accept(ExportRecord record) throws IOException;
+
+    /**
+     * Every record of the export has been accepted
+     *
+     * @param platformFormId survey the export was requested for, or null if it is not known
+     */
+    default void exportComplete(String exportId, Integer platformFormId, long records) throws IOException {
+    }
+
+    /**
+     * No more records will be delivered
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
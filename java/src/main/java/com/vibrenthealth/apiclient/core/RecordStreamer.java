@@ -0,0 +1,232 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibrenthealth.apiclient.models.ExportRecord;
+import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.ZipException;
+
+/**
+ * Parses the records of a zip archive and hands them to a {@link RecordSink}, without writing
+ * anything to disk.
+ *
+ * JSON entries are read with the Jackson streaming parser: a top-level array contributes one record
+ * per element and any other top-level value is one record, with values that are not objects
+ * wrapped under "value". CSV entries contribute one record per row, keyed by the header. Manifests,
+ * hidden files and entries of other types are skipped. Only the current record is held in memory.
+ *
+ * Archives are read front to back as they arrive, with the same limits as
+ * {@link StreamingExtractor}; an archive that cannot be read that way raises
+ * {@link StreamingExtractor.UnsupportedArchiveException}, and the caller should download it to a
+ * file and stream it from there. The count of records delivered from each entry is kept, so a
+ * second attempt at the same archive skips the records the sink already has.
+ */
+public final class RecordStreamer {
+    private static final Logger logger = LoggerFactory.getLogger(RecordStreamer.class);
+
+    private static final String WRAPPED_VALUE_FIELD = "value";
+    private static final TypeReference<LinkedHashMap<String, Object>> RECORD_TYPE = new TypeReference<>() {
+    };
+    // Entry streams belong to the archive and must stay open after an entry is parsed
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper(
+            new JsonFactory().disable(JsonParser.Feature.AUTO_CLOSE_SOURCE));
+
+    /**
+     * The record sink rejected a record; the export fails without being downloaded again
+     */
+    public static class SinkException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public SinkException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private RecordStreamer() {
+    }
+
+    /**
+     * Deliver the records of an archive read from a stream
+     *
+     * @param bandwidthLimiter shared byte-rate cap applied to the archive bytes, or null for none
+     * @param delivered        records already delivered from each entry, updated as records are delivered
+     * @return number of archive bytes read
+     */
+    public static long stream(InputStream archive, String exportId, Integer platformFormId, RecordSink sink,
+                              BandwidthLimiter bandwidthLimiter, Map<String, Long> delivered) throws IOException {
+        StreamingExtractor.MeteredInputStream metered = new StreamingExtractor.MeteredInputStream(archive, bandwidthLimiter);
+
+        int entries = 0;
+        try {
+            ZipArchiveInputStream zipStream = new ZipArchiveInputStream(metered);
+            ZipArchiveEntry entry;
+            while ((entry = zipStream.getNextZipEntry()) != null) {
+                entries++;
+                if (!zipStream.canReadEntryData(entry)) {
+                    throw new StreamingExtractor.UnsupportedArchiveException(
+                            "Entry " + entry.getName() + " cannot be read from a stream", null);
+                }
+                if (!entry.isDirectory()) {
+                    streamEntry(zipStream, entry.getName(), exportId, platformFormId, sink, delivered);
+                }
+            }
+        } catch (UnsupportedZipFeatureException e) {
+            throw new StreamingExtractor.UnsupportedArchiveException(e.getMessage(), e);
+        } catch (ZipException e) {
+            throw new StreamingExtractor.UnsupportedArchiveException("Unreadable local file header: " + e.getMessage(), e);
+        }
+
+        // Read the central directory too, so the connection can be reused
+        metered.transferTo(OutputStream.nullOutputStream());
+        if (entries == 0 || !metered.endsWithCentralDirectory()) {
+            throw new StreamingExtractor.UnsupportedArchiveException(
+                    "No end of central directory record after " + entries + " entries", null);
+        }
+        return metered.getBytesRead();
+    }
+
+    /**
+     * Deliver the records of an archive file, reading it through its central directory
+     *
+     * @param delivered records already delivered from each entry, updated as records are delivered
+     */
+    public static void streamFile(Path archive, String exportId, Integer platformFormId, RecordSink sink,
+                                  Map<String, Long> delivered) throws IOException {
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            List<ZipArchiveEntry> zipEntries = Collections.list(zip.getEntriesInPhysicalOrder());
+            for (ZipArchiveEntry entry : zipEntries) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                try (InputStream entryStream = zip.getInputStream(entry)) {
+                    streamEntry(entryStream, entry.getName(), exportId, platformFormId, sink, delivered);
+                }
+            }
+        }
+    }
+
+    private static void streamEntry(InputStream entryStream, String entryName, String exportId, Integer platformFormId,
+                                    RecordSink sink, Map<String, Long> delivered) throws IOException {
+        String filename = entryName.substring(entryName.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        if (filename.startsWith("manifest") || filename.startsWith(".")) {
+            return;
+        }
+
+        EntryRecords records = new EntryRecords(entryName, exportId, platformFormId, sink, delivered);
+        if (filename.endsWith(".json")) {
+            streamJson(entryStream, records);
+        } else if (filename.endsWith(".csv")) {
+            streamCsv(entryStream, records);
+        } else {
+            logger.debug("Skipping entry {} of export {}: not JSON or CSV", entryName, exportId);
+        }
+    }
+
+    private static void streamJson(InputStream entryStream, EntryRecords records) throws IOException {
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(entryStream)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        records.deliver(readJsonRecord(parser));
+                    }
+                } else {
+                    records.deliver(readJsonRecord(parser));
+                }
+            }
+        }
+    }
+
+    private static Map<String, Object> readJsonRecord(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.START_OBJECT) {
+            return OBJECT_MAPPER.readValue(parser, RECORD_TYPE);
+        }
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put(WRAPPED_VALUE_FIELD, OBJECT_MAPPER.readValue(parser, Object.class));
+        return fields;
+    }
+
+    private static void streamCsv(InputStream entryStream, EntryRecords records) throws IOException {
+        // Not closed: closing the reader would close the archive stream
+        CsvReader reader = new CsvReader(new InputStreamReader(entryStream, StandardCharsets.UTF_8));
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            return;
+        }
+
+        long truncatedRows = 0;
+        List<String> row;
+        while ((row = reader.readRecord()) != null) {
+            if (row.size() == 1 && row.get(0).isEmpty()) {
+                continue;
+            }
+            Map<String, Object> fields = new LinkedHashMap<>();
+            int width = Math.min(row.size(), header.size());
+            for (int column = 0; column < width; column++) {
+                fields.putIfAbsent(header.get(column).trim(), row.get(column));
+            }
+            if (row.size() > header.size()) {
+                truncatedRows++;
+            }
+            records.deliver(fields);
+        }
+        if (truncatedRows > 0) {
+            logger.warn("{} rows of {} have more fields than its header; the extra fields were dropped",
+                    truncatedRows, records.entryName);
+        }
+    }
+
+    /**
+     * Delivers the records of one entry, skipping those a previous attempt already delivered
+     */
+    private static final class EntryRecords {
+        private final String entryName;
+        private final String exportId;
+        private final Integer platformFormId;
+        private final RecordSink sink;
+        private final Map<String, Long> delivered;
+        private final long alreadyDelivered;
+        private long position;
+
+        EntryRecords(String entryName, String exportId, Integer platformFormId, RecordSink sink, Map<String, Long> delivered) {
+            this.entryName = entryName;
+            this.exportId = exportId;
+            this.platformFormId = platformFormId;
+            this.sink = sink;
+            this.delivered = delivered;
+            this.alreadyDelivered = delivered.getOrDefault(entryName, 0L);
+        }
+
+        void deliver(Map<String, Object> fields) throws SinkException {
+            if (position++ < alreadyDelivered) {
+                return;
+            }
+            try {
+                sink.accept(new ExportRecord(exportId, platformFormId, entryName, fields));
+            } catch (IOException | RuntimeException e) {
+                throw new SinkException("Record sink failed on " + entryName + ": " + e.getMessage(), e);
+            }
+            delivered.merge(entryName, 1L, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry policy for API calls: error classification, capped exponential backoff with full jitter,
+ * Retry-After support and a per-run retry budget.
+ *
+ * Idempotent calls (GET) are retried on any retryable status or transport error. Export requests
+ * (POST) are retried on throttling and gateway statuses and on failed connections, but not on
+ * HTTP 500 or read timeouts, where the export may already have been created server-side.
+ */
+public class RetryPolicy {
+    private static final Logger logger = LoggerFactory.getLogger(RetryPolicy.class);
+
+    private static final Set<Integer> RETRYABLE_STATUS_CODES = Set.of(408, 429, 500, 502, 503, 504);
+    private static final Set<Integer> NON_IDEMPOTENT_RETRYABLE_STATUS_CODES = Set.of(429, 502, 503, 504);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int budget;
+    private final AtomicInteger remainingBudget;
+    private final AtomicLong budgetExhausted;
+    private final Map<String, AtomicLong> retriesByEndpointClass;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, int budget) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = Math.max(1L, baseDelayMillis);
+        this.maxDelayMillis = Math.max(this.baseDelayMillis, maxDelayMillis);
+        this.budget = Math.max(0, budget);
+        this.remainingBudget = new AtomicInteger(this.budget);
+        this.budgetExhausted = new AtomicLong();
+        this.retriesByEndpointClass = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create a policy from the api.retry configuration section, falling back to defaults for missing keys
+     */
+    public static RetryPolicy fromConfig(Map<String, Object> config) {
+        return new RetryPolicy(
+            getNumber(config, Constants.ConfigKeys.MAX_ATTEMPTS, Constants.Retry.DEFAULT_MAX_ATTEMPTS).intValue(),
+            getNumber(config, Constants.ConfigKeys.BASE_DELAY_MS, Constants.Retry.DEFAULT_BASE_DELAY_MS).longValue(),
+            getNumber(config, Constants.ConfigKeys.MAX_DELAY_MS, Constants.Retry.DEFAULT_MAX_DELAY_MS).longValue(),
+            getNumber(config, Constants.ConfigKeys.RETRY_BUDGET, Constants.Retry.DEFAULT_RETRY_BUDGET).intValue()
+        );
+    }
+
+    private static Number getNumber(Map<String, Object> config, String key, Number defaultValue) {
+        Object value = config != null ? config.get(key) : null;
+        return value instanceof Number ? (Number) value : defaultValue;
+    }
+
+    /**
+     * Whether an HTTP status may succeed if the call is repeated
+     */
+    public boolean isRetryable(String method, int statusCode) {
+        if (isIdempotent(method)) {
+            return RETRYABLE_STATUS_CODES.contains(statusCode);
+        }
+        return NON_IDEMPOTENT_RETRYABLE_STATUS_CODES.contains(statusCode);
+    }
+
+    /**
+     * Whether a transport error may succeed if the call is repeated
+     */
+    public boolean isRetryable(String method, IOException error) {
+        if (error instanceof InterruptedIOException && !(error instanceof SocketTimeoutException)) {
+            // Thread interruption, not a network failure
+            return false;
+        }
+        if (isIdempotent(method)) {
+            return true;
+        }
+        return error instanceof ConnectException || error instanceof UnknownHostException;
+    }
+
+    private boolean isIdempotent(String method) {
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * Decide whether a failed attempt gets another try, consuming one unit of the run budget if so.
+     *
+     * @param attempt number of attempts already made (1 for the first failure)
+     */
+    public boolean tryRetry(String endpointClass, int attempt) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        while (true) {
+            int remaining = remainingBudget.get();
+            if (remaining <= 0) {
+                if (budgetExhausted.getAndIncrement() == 0) {
+                    logger.warn("Retry budget of {} exhausted; failing calls without retrying", budget);
+                }
+                return false;
+            }
+            if (remainingBudget.compareAndSet(remaining, remaining - 1)) {
+                retriesByEndpointClass.computeIfAbsent(endpointClass, key -> new AtomicLong()).incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Delay before the next attempt. A Retry-After value from the server takes precedence, capped
+     * at the maximum delay like any other; otherwise full jitter over a capped exponential window
+     * is used.
+     *
+     * @param attempt    number of attempts already made (1 for the first failure)
+     * @param retryAfter raw Retry-After header value, or null
+     */
+    public long getDelayMillis(int attempt, String retryAfter) {
+        Long serverDelay = parseRetryAfter(retryAfter);
+        if (serverDelay != null) {
+            if (serverDelay > maxDelayMillis) {
+                logger.debug("Retry-After of {} ms exceeds the maximum delay; retrying after {} ms", serverDelay, maxDelayMillis);
+            }
+            return Math.min(serverDelay, maxDelayMillis);
+        }
+        long window = baseDelayMillis << Math.min(attempt - 1, 30);
+        long cap = Math.min(maxDelayMillis, window > 0 ? window : maxDelayMillis);
+        return ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Parse a Retry-After header given either as delay-seconds or as an HTTP-date
+     */
+    static Long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.isBlank()) {
+            return null;
+        }
+        String value = retryAfter.trim();
+        try {
+            return Math.max(0L, Long.parseLong(value) * 1000L);
+        } catch (NumberFormatException e) {
+            // Not delay-seconds; try HTTP-date
+        }
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0L, Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt).toMillis());
+        } catch (DateTimeParseException e) {
+            logger.debug("Ignoring unparseable Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    /**
+     * Total retries performed in this run
+     */
+    public long getTotalRetries() {
+        return retriesByEndpointClass.values().stream().mapToLong(AtomicLong::get).sum();
+    }
+
+    /**
+     * Snapshot of retry counters for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> byEndpointClass = new LinkedHashMap<>();
+        retriesByEndpointClass.forEach((endpointClass, count) -> byEndpointClass.put(endpointClass, count.get()));
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("total_retries", getTotalRetries());
+        metrics.put("retries_by_endpoint_class", byEndpointClass);
+        metrics.put("retry_budget", budget);
+        metrics.put("retry_budget_remaining", Math.max(0, remainingBudget.get()));
+        metrics.put("retries_denied_by_budget", budgetExhausted.get());
+        return metrics;
+    }
+}
@@ -0,0 +1,122 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads a file as concurrent byte ranges.
+ *
+ * The target file is preallocated to its full length and every segment writes its bytes at their
+ * own offset through a shared FileChannel, so the file needs no reassembly step. Segments are
+ * written through {@link FileTransfer}, with its pooled buffers and chunk sizing. A segment that
+ * breaks off is reopened from the last byte written, subject to the retry policy.
+ */
+public class SegmentedDownloader {
+    private static final Logger logger = LoggerFactory.getLogger(SegmentedDownloader.class);
+
+    /**
+     * Opens the bytes start..end (inclusive) of the remote file
+     */
+    @FunctionalInterface
+    public interface RangeFetcher {
+        ReadableByteChannel open(long start, long end) throws IOException;
+    }
+
+    private final int segments;
+    private final BandwidthLimiter bandwidthLimiter;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * @param bandwidthLimiter shared byte-rate cap, or null for none
+     * @param retryPolicy      policy for reopening broken segments, or null to fail on the first error
+     */
+    public SegmentedDownloader(int segments, BandwidthLimiter bandwidthLimiter, RetryPolicy retryPolicy) {
+        this.segments = Math.max(1, segments);
+        this.bandwidthLimiter = bandwidthLimiter;
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Download totalLength bytes into target, replacing any existing content
+     */
+    public void download(RangeFetcher fetcher, long totalLength, Path target) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(target.toFile(), "rw")) {
+            file.setLength(totalLength);
+        }
+
+        int count = (int) Math.max(1L, Math.min(segments, totalLength));
+        long segmentLength = (totalLength + count - 1) / count;
+        logger.debug("Downloading {} bytes to {} in {} segments", totalLength, target.getFileName(), count);
+
+        ExecutorService executor = Executors.newFixedThreadPool(count, Helpers.namedThreadFactory("download-segment"));
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.WRITE)) {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (long start = 0; start < totalLength; start += segmentLength) {
+                long segmentStart = start;
+                long segmentEnd = Math.min(totalLength, start + segmentLength) - 1;
+                futures.add(executor.submit(() -> {
+                    downloadSegment(fetcher, channel, segmentStart, segmentEnd);
+                    return null;
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Segmented download interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void downloadSegment(RangeFetcher fetcher, FileChannel channel, long start, long end) throws IOException {
+        AtomicLong position = new AtomicLong(start);
+        int attempt = 0;
+
+        while (position.get() <= end) {
+            attempt++;
+            try (ReadableByteChannel source = fetcher.open(position.get(), end)) {
+                FileTransfer.copy(source, channel, position.get(), end - position.get() + 1, bandwidthLimiter, null,
+                        position::addAndGet);
+                if (position.get() <= end) {
+                    throw new IOException(String.format("Segment %d-%d ended early at byte %d", start, end, position.get()));
+                }
+            } catch (IOException e) {
+                if (retryPolicy == null || !retryPolicy.isRetryable("GET", e)
+                        || !retryPolicy.tryRetry(Constants.EndpointClass.DOWNLOAD, attempt)) {
+                    throw e;
+                }
+                long delay = retryPolicy.getDelayMillis(attempt, null);
+                logger.warn("Segment {}-{} broke off at byte {} ({}); resuming in {} ms", start, end, position.get(), e.getMessage(), delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Segment download interrupted");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Export status poller backed by a hashed timing wheel.
+ *
+ * Every tracked export is checked on its own schedule, given by the polling policy and seeded from
+ * the form's completion history, so a large batch is spread out instead of being checked in a
+ * single burst. Scheduling a check is O(1) and a tick only touches the checks that are due, so
+ * tens of thousands of outstanding exports cost no more per tick than a handful. Due checks run
+ * on a worker pool whose size caps the number of status calls in flight. Cumulative
+ * COMPLETED/FAILED/IN_PROGRESS counts are logged once per reporting interval.
+ *
+ * Pollers made with {@link #share} run their checks on this poller's wheel and workers, so exports
+ * of several kinds are spread over one schedule and one cap on status calls, while each keeps its
+ * own exports, polling policy, completion history and wait.
+ */
+public class StatusPoller {
+    private static final Logger logger = LoggerFactory.getLogger(StatusPoller.class);
+
+    /**
+     * Callback for an export that reached COMPLETED, FAILED or TIMED_OUT
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onFinished(String exportId, String outcome) throws InterruptedException;
+    }
+
+    /**
+     * Polling state of a tracked export
+     */
+    private static class TrackedExport {
+        private final Integer platformFormId;
+        private final Long expectedMillis;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger polls = new AtomicInteger();
+
+        TrackedExport(Integer platformFormId, Long expectedMillis) {
+            this.platformFormId = platformFormId;
+            this.expectedMillis = expectedMillis;
+        }
+    }
+
+    private final ExecutorService workers;
+    private final HashedTimingWheel wheel;
+    private final long reportIntervalMillis;
+    private final PollingPolicy policy;
+    private final CompletionHistory history;
+    private final Map<String, TrackedExport> exports = new ConcurrentHashMap<>();
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final Object lock = new Object();
+    private final boolean ownsScheduler;
+    private volatile boolean closed;
+
+    /**
+     * @param maxConcurrentChecks maximum status calls in flight at once
+     * @param history             completion history used to seed and updated by the schedule, or null
+     */
+    public StatusPoller(int maxConcurrentChecks, long reportIntervalMillis, PollingPolicy policy, CompletionHistory history) {
+        this.policy = policy;
+        this.history = history;
+        this.workers = Executors.newFixedThreadPool(Math.max(1, maxConcurrentChecks),
+                Helpers.namedThreadFactory("status-poll"));
+        this.wheel = new HashedTimingWheel(Constants.Polling.WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                Constants.Polling.WHEEL_SIZE, workers, Helpers.namedThreadFactory("status-poll-wheel"));
+        this.reportIntervalMillis = Math.max(1L, reportIntervalMillis);
+        this.ownsScheduler = true;
+        this.wheel.schedule(this::reportProgress, this.reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private StatusPoller(StatusPoller scheduler, long reportIntervalMillis, PollingPolicy policy, CompletionHistory history) {
+        this.policy = policy;
+        this.history = history;
+        this.workers = scheduler.workers;
+        this.wheel = scheduler.wheel;
+        this.reportIntervalMillis = Math.max(1L, reportIntervalMillis);
+        this.ownsScheduler = false;
+        this.wheel.schedule(this::reportProgress, this.reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Poller that checks its exports on this poller's wheel and workers. Shutting it down stops
+     * its own checks only; the wheel and workers stop when this poller is shut down.
+     *
+     * @param history completion history used to seed and updated by the schedule, or null
+     */
+    public StatusPoller share(long reportIntervalMillis, PollingPolicy policy, CompletionHistory history) {
+        return new StatusPoller(this, reportIntervalMillis, policy, history);
+    }
+
+    private void reportProgress() {
+        if (closed) {
+            return;
+        }
+        logProgress();
+        wheel.schedule(this::reportProgress, reportIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Track a batch of exports, staggering their first checks so they do not all fire at once
+     *
+     * @param platformFormIds form of each export, used for completion history; entries may be null
+     * @param check           returns COMPLETED, FAILED, TIMED_OUT or IN_PROGRESS for an export id; any other value
+     *                        keeps it pending
+     */
+    public void trackAll(List<String> exportIds, List<Integer> platformFormIds, Function<String, String> check, Listener listener) {
+        int count = exportIds.size();
+        for (int i = 0; i < count; i++) {
+            // Spread first checks over the second half of each export's first delay
+            int slot = i;
+            track(exportIds.get(i), platformFormIds.get(i), check, listener,
+                    firstDelay -> firstDelay * (count + slot + 1) / (2L * count));
+        }
+    }
+
+    /**
+     * Track a single export
+     */
+    public void track(String exportId, Integer platformFormId, Function<String, String> check, Listener listener) {
+        track(exportId, platformFormId, check, listener, firstDelay -> firstDelay);
+    }
+
+    private void track(String exportId, Integer platformFormId, Function<String, String> check, Listener listener,
+                       LongUnaryOperator firstDelayAdjustment) {
+        if (!pending.add(exportId)) {
+            return;
+        }
+        Long expectedMillis = history != null ? history.getExpectedMillis(platformFormId) : null;
+        TrackedExport export = new TrackedExport(platformFormId, expectedMillis);
+        exports.put(exportId, export);
+        long firstDelay = firstDelayAdjustment.applyAsLong(policy.getDelayMillis(0, expectedMillis));
+        wheel.schedule(() -> runCheck(exportId, export, check, listener), firstDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runCheck(String exportId, TrackedExport export, Function<String, String> check, Listener listener) {
+        if (failure.get() != null || closed) {
+            return;
+        }
+        try {
+            int polls = export.polls.incrementAndGet();
+            String outcome = check.apply(exportId);
+            if (Constants.ExportStatus.COMPLETED.equals(outcome) || Constants.ExportStatus.FAILED.equals(outcome)
+                    || Constants.ExportStatus.TIMED_OUT.equals(outcome)) {
+                if (Constants.ExportStatus.COMPLETED.equals(outcome)) {
+                    completed.incrementAndGet();
+                    if (history != null) {
+                        history.record(export.platformFormId, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - export.startNanos));
+                    }
+                } else {
+                    failed.incrementAndGet();
+                }
+                listener.onFinished(exportId, outcome);
+                pending.remove(exportId);
+                signal();
+            } else if (!wheel.isStopped() && !closed) {
+                wheel.schedule(() -> runCheck(exportId, export, check, listener),
+                        policy.getDelayMillis(polls, export.expectedMillis), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            signal();
+        }
+    }
+
+    private void signal() {
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Block until every tracked export has finished
+     *
+     * @param maxWaitTime    maximum seconds to wait, measured from startWaitTime, or null for unlimited
+     * @param startWaitTime  wall-clock start of the wait in milliseconds
+     * @return false if the maximum wait time was exceeded
+     */
+    public boolean awaitCompletion(Integer maxWaitTime, long startWaitTime) throws InterruptedException {
+        synchronized (lock) {
+            while (!pending.isEmpty() && failure.get() == null) {
+                if (maxWaitTime == null) {
+                    lock.wait();
+                } else {
+                    long remaining = startWaitTime + maxWaitTime * 1000L - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    lock.wait(remaining);
+                }
+            }
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return true;
+    }
+
+    private void logProgress() {
+        logger.info("Status after this check: TOTAL: {}, COMPLETED: {}, FAILED: {}, IN_PROGRESS: {}",
+                exports.size(), completed.get(), failed.get(), pending.size());
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Snapshot of polling counters for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> pollsByExport = new LinkedHashMap<>();
+        long totalPolls = 0;
+        for (Map.Entry<String, TrackedExport> entry : exports.entrySet()) {
+            int polls = entry.getValue().polls.get();
+            pollsByExport.put(entry.getKey(), polls);
+            totalPolls += polls;
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("policy", policy.isAdaptive() ? "adaptive" : "fixed");
+        metrics.put("total_polls", totalPolls);
+        metrics.put("polls_by_export", pollsByExport);
+        return metrics;
+    }
+
+    /**
+     * Log the final counts, stop all scheduled checks and persist the completion history
+     */
+    public void shutdown() {
+        closed = true;
+        if (ownsScheduler) {
+            wheel.stop();
+            workers.shutdownNow();
+        }
+        if (!exports.isEmpty()) {
+            logProgress();
+        }
+        if (history != null) {
+            history.save();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.apache.commons.compress.archivers.zip.UnsupportedZipFeatureException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.ZipException;
+
+/**
+ * Extracts a zip archive from a stream as it arrives, without writing the archive to disk.
+ *
+ * Entries are read front to back from their local file headers. An archive that can only be read
+ * through its central directory (encrypted or unsupported entries, stored entries with a data
+ * descriptor, or a malformed local header) raises {@link UnsupportedArchiveException}, and the
+ * caller should download it to a file and extract it from there instead. So does a stream that
+ * ends without an end of central directory record, since a truncated archive can otherwise look
+ * like one with fewer entries. With an extraction index, an entry whose local header carries a size
+ * and CRC matching a previous run is reused instead of written.
+ */
+public final class StreamingExtractor {
+    private static final Logger logger = LoggerFactory.getLogger(StreamingExtractor.class);
+
+    // End of central directory record: signature plus fixed fields, followed by an optional comment
+    private static final int EOCD_LENGTH = 22;
+    private static final int TAIL_BYTES = 1024;
+
+    /**
+     * The archive cannot be extracted from a stream and has to be spooled to disk
+     */
+    public static class UnsupportedArchiveException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedArchiveException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private StreamingExtractor() {
+    }
+
+    /**
+     * Extract every entry of the archive into outputDir, replacing existing files
+     *
+     * @param bandwidthLimiter shared byte-rate cap applied to the archive bytes, or null for none
+     * @param index            index of previously extracted entries, or null to always extract
+     * @return number of archive bytes read
+     */
+    public static long extract(InputStream archive, Path outputDir, BandwidthLimiter bandwidthLimiter,
+                               ExtractionIndex index) throws IOException {
+        MeteredInputStream metered = new MeteredInputStream(archive, bandwidthLimiter);
+        Path root = outputDir.toAbsolutePath().normalize();
+
+        int entries = 0;
+        ZipArchiveEntry written = null;
+        Path writtenPath = null;
+        try {
+            ZipArchiveInputStream zipStream = new ZipArchiveInputStream(metered);
+            ZipArchiveEntry entry;
+            while ((entry = zipStream.getNextZipEntry()) != null) {
+                // A data descriptor is read when the stream moves past the entry, so the previous
+                // entry's size and CRC are only known now
+                recordWritten(index, root, written, writtenPath);
+                written = null;
+                entries++;
+                if (!zipStream.canReadEntryData(entry)) {
+                    throw new UnsupportedArchiveException("Entry " + entry.getName() + " cannot be read from a stream", null);
+                }
+
+                Path extractedPath = root.resolve(entry.getName()).normalize();
+                if (!extractedPath.startsWith(root)) {
+                    throw new IOException("Entry " + entry.getName() + " is outside the output directory");
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(extractedPath);
+                    continue;
+                }
+                Files.createDirectories(extractedPath.getParent());
+
+                Path relativePath = Paths.get("").toAbsolutePath().relativize(extractedPath);
+                if (index != null && index.reuse(root, extractedPath, entry.getSize(), entry.getCrc())) {
+                    logger.info("Unchanged: {}", relativePath);
+                    continue;
+                }
+
+                // The entry channel is left open: closing it would close the archive stream
+                FileTransfer.replace(Channels.newChannel(zipStream), extractedPath, null);
+
+                written = entry;
+                writtenPath = extractedPath;
+                logger.info("Extracted: {}", relativePath);
+            }
+            recordWritten(index, root, written, writtenPath);
+        } catch (UnsupportedZipFeatureException e) {
+            throw new UnsupportedArchiveException(e.getMessage(), e);
+        } catch (ZipException e) {
+            throw new UnsupportedArchiveException("Unreadable local file header: " + e.getMessage(), e);
+        }
+
+        // Read the central directory too, so the connection can be reused
+        metered.transferTo(OutputStream.nullOutputStream());
+        if (entries == 0 || !metered.endsWithCentralDirectory()) {
+            throw new UnsupportedArchiveException("No end of central directory record after " + entries + " entries", null);
+        }
+        return metered.getBytesRead();
+    }
+
+    private static void recordWritten(ExtractionIndex index, Path root, ZipArchiveEntry entry, Path extractedPath) {
+        if (index != null && entry != null) {
+            index.recordWritten(root, extractedPath, entry.getSize(), entry.getCrc());
+        }
+    }
+
+    /**
+     * Counts the archive bytes, keeps the last of them and applies the bandwidth cap as they are read
+     */
+    static class MeteredInputStream extends FilterInputStream {
+        private final BandwidthLimiter bandwidthLimiter;
+        private final byte[] tail = new byte[TAIL_BYTES];
+        private long bytesRead;
+
+        MeteredInputStream(InputStream in, BandwidthLimiter bandwidthLimiter) {
+            super(in);
+            this.bandwidthLimiter = bandwidthLimiter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                tail[(int) (bytesRead % TAIL_BYTES)] = (byte) b;
+                consumed(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                for (int i = Math.max(0, count - TAIL_BYTES); i < count; i++) {
+                    tail[(int) ((bytesRead + i) % TAIL_BYTES)] = buffer[offset + i];
+                }
+                consumed(count);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // Read rather than skip, so skipped bytes are counted and rate limited too
+            if (n <= 0) {
+                return 0;
+            }
+            byte[] scratch = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            int count;
+            while (skipped < n && (count = read(scratch, 0, (int) Math.min(scratch.length, n - skipped))) != -1) {
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        long getBytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Whether the stream ended with an end of central directory record whose comment length
+         * matches the bytes after it
+         */
+        boolean endsWithCentralDirectory() {
+            int available = (int) Math.min(bytesRead, TAIL_BYTES);
+            for (int commentLength = 0; commentLength + EOCD_LENGTH <= available; commentLength++) {
+                long start = bytesRead - commentLength - EOCD_LENGTH;
+                if (tailByte(start) == 'P' && tailByte(start + 1) == 'K' && tailByte(start + 2) == 5 && tailByte(start + 3) == 6
+                        && ((tailByte(start + 20) & 0xff) | (tailByte(start + 21) & 0xff) << 8) == commentLength) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private byte tailByte(long position) {
+            return tail[(int) (position % TAIL_BYTES)];
+        }
+
+        private void consumed(int count) throws InterruptedIOException {
+            bytesRead += count;
+            if (bandwidthLimiter != null) {
+                try {
+                    bandwidthLimiter.acquire(count);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Streaming extraction interrupted");
+                }
+            }
+        }
+    }
+}
@@ -1,24 +1,27 @@
 package com.vibrenthealth.apiclient.core;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vibrenthealth.apiclient.models.ExportMetadata;
 import com.vibrenthealth.apiclient.models.ExportRequest;
 import com.vibrenthealth.apiclient.models.ExportStatus;
 import com.vibrenthealth.apiclient.models.Survey;
-import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
-import org.apache.commons.compress.archivers.zip.ZipFile;
+import com.vibrenthealth.apiclient.utils.Helpers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * Main class for orchestrating the survey data export process
@@ -29,24 +32,92 @@ public class SurveyDataExporter {
     private final ConfigManager configManager;
     private final String environment;
     private final VibrentHealthAPIClient client;
+    private final boolean ownsClient;
     private final String exportFormat;
+    private final boolean splitDateRange;
+    private final int chunkDays;
+    private final ChunkPlanner chunkPlanner;
+    private final ExportWatermarks watermarks;
+    private final long watermarkOverlapMillis;
     private final boolean extractFiles;
+    private final boolean virtualView;
     private final boolean removeZipAfterExtract;
+    private final boolean streamExtract;
     private final int pollingInterval;
     private final Integer maxWaitTime;
     private final boolean continueOnFailure;
+    private final int maxConcurrentRequests;
+    private final int maxConcurrentStatusChecks;
+    private final PollingPolicy pollingPolicy;
+    private final CompletionHistory completionHistory;
+    private final boolean pipelineEnabled;
+    private final int pipelineQueueCapacity;
+    private final int pipelineDownloadWorkers;
+    private final DownloadManager downloadManager;
+    private final int pipelineExtractWorkers;
+    private final ExtractionIndex extractionIndex;
+    private final ExtractionEngine extractionEngine;
+    private final SurveyFileMerger fileMerger;
+    private final SurveyFileMerger columnarConverter;
+    private final RecordSink recordSink;
     private final Path outputDir;
     private final String exportSessionId;
     private final LocalDateTime startTime;
     private final ExportMetadata exportMetadata;
     private final Map<Integer, Map<String, Object>> exportDetailsBySurvey;
-    private final ObjectMapper objectMapper;
+    private final Map<String, DateRangeChunk> exportChunks;
+    private final Map<String, List<DateRangeChunk>> replacementChunks;
+    private final Map<Integer, Long> surveyStartTimes;
+    private final Map<Integer, List<DateRangeChunk>> downloadedChunks;
+    private final Map<String, ExportStatus> resumedCompletedExports;
+    private final boolean resumeSession;
+    private final boolean journalEnabled;
+    private final long journalSyncIntervalMillis;
+    private Map<String, Object> pollingMetrics;
+    private ExportJournal journal;
+    private StatusPoller pollScheduler;
 
     public SurveyDataExporter(ConfigManager configManager, String environment, String outputBaseDir) {
+        this(configManager, environment, outputBaseDir, null);
+    }
+
+    /**
+     * Exporter that delivers the records of each downloaded export to a sink as the archive
+     * arrives, instead of writing the archives and extracted files to disk. Extraction, merging and
+     * columnar output are skipped; the sink is closed when {@link #runExport} returns.
+     *
+     * @param recordSink receives the records, or null to write files as configured
+     */
+    public SurveyDataExporter(ConfigManager configManager, String environment, String outputBaseDir, RecordSink recordSink) {
+        this(configManager, environment, outputBaseDir, recordSink, null);
+    }
+
+    /**
+     * Exporter that continues an earlier session from its journal: windows that were never
+     * requested are requested, exports that were requested are polled again, and downloaded
+     * exports are kept. Output goes to the session's existing output directory.
+     *
+     * @param resumeSession session id, output directory or its timestamp, or null to start a new session
+     */
+    public SurveyDataExporter(ConfigManager configManager, String environment, String outputBaseDir, RecordSink recordSink,
+                              String resumeSession) {
+        this(configManager, environment, null, outputBaseDir, recordSink, resumeSession);
+    }
+
+    /**
+     * Exporter on a client shared with other exports running in the same process, so they use one
+     * connection pool, access token and set of rate limiters
+     *
+     * @param client shared client, or null to create one for this exporter, closed when {@link #runExport} returns
+     */
+    public SurveyDataExporter(ConfigManager configManager, String environment, VibrentHealthAPIClient client,
+                              String outputBaseDir, RecordSink recordSink, String resumeSession) {
         this.configManager = configManager;
+        this.recordSink = recordSink;
         this.environment = environment != null ? environment :
                 (String) configManager.get(Constants.ConfigKeys.ENVIRONMENT + "." + Constants.ConfigKeys.DEFAULT);
-        this.client = new VibrentHealthAPIClient(configManager, this.environment);
+        this.ownsClient = client == null;
+        this.client = client != null ? client : new VibrentHealthAPIClient(configManager, this.environment);
 
         // Get output configuration
         Map<String, Object> outputConfig = configManager.getOutputConfig();
@@ -54,7 +125,70 @@ public class SurveyDataExporter {
         // Get export configuration
         Map<String, Object> exportConfig = (Map<String, Object>) configManager.get(Constants.ConfigKeys.EXPORT);
         this.exportFormat = (String) exportConfig.getOrDefault(Constants.ConfigKeys.FORMAT, Constants.ExportFormat.JSON);
-        this.extractFiles = (Boolean) outputConfig.getOrDefault(Constants.ConfigKeys.EXTRACT_FILES, true);
+        // Long date ranges are requested as chunk_days windows, one export per survey and window
+        this.splitDateRange = (Boolean) exportConfig.getOrDefault(Constants.ConfigKeys.SPLIT_DATE_RANGE, false);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> dateRangeConfig = (Map<String, Object>) exportConfig.get(Constants.ConfigKeys.DATE_RANGE);
+        this.chunkDays = dateRangeConfig != null
+                ? (Integer) dateRangeConfig.getOrDefault(Constants.ConfigKeys.CHUNK_DAYS, Constants.DateRange.DEFAULT_CHUNK_DAYS)
+                : Constants.DateRange.DEFAULT_CHUNK_DAYS;
+        if (this.splitDateRange && this.chunkDays <= 0) {
+            throw new ConfigManager.ConfigurationError("export.date_range.chunk_days must be positive, got " + this.chunkDays);
+        }
+        // Adaptive chunking sizes the windows per survey from what earlier runs learned instead
+        @SuppressWarnings("unchecked")
+        Map<String, Object> adaptiveChunkingConfig = dateRangeConfig != null
+                ? (Map<String, Object>) dateRangeConfig.get(Constants.ConfigKeys.ADAPTIVE_CHUNKING)
+                : null;
+        if (this.splitDateRange && adaptiveChunkingConfig != null
+                && (Boolean) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.ENABLED, false)) {
+            int initialDays = (Integer) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.INITIAL_DAYS,
+                    Constants.DateRange.DEFAULT_INITIAL_DAYS);
+            int minDays = (Integer) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.MIN_DAYS,
+                    Constants.DateRange.DEFAULT_MIN_DAYS);
+            int durationBudget = (Integer) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.DURATION_BUDGET,
+                    Constants.DateRange.DEFAULT_DURATION_BUDGET);
+            if (minDays <= 0 || initialDays < minDays) {
+                throw new ConfigManager.ConfigurationError("export.date_range.adaptive_chunking needs 0 < min_days <= initial_days, got "
+                        + minDays + " and " + initialDays);
+            }
+            int maxBisections = (Integer) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.MAX_BISECTIONS,
+                    Constants.DateRange.DEFAULT_MAX_BISECTIONS);
+            Object patterns = adaptiveChunkingConfig.get(Constants.ConfigKeys.SIZE_FAILURE_PATTERNS);
+            List<String> sizeFailurePatterns = patterns instanceof List
+                    ? ((List<?>) patterns).stream().map(String::valueOf).collect(Collectors.toList())
+                    : Constants.DateRange.DEFAULT_SIZE_FAILURE_PATTERNS;
+            String stateFile = (String) adaptiveChunkingConfig.getOrDefault(Constants.ConfigKeys.STATE_FILE,
+                    Constants.DateRange.DEFAULT_STATE_FILE);
+            this.chunkPlanner = ChunkPlanner.load(Paths.get(configManager.getSurveyOutputDirectory()).resolve(stateFile),
+                    initialDays, minDays, durationBudget * 1000L, maxBisections, sizeFailurePatterns);
+        } else {
+            this.chunkPlanner = null;
+        }
+        // Incremental exports start each survey's range from where its last downloaded export ended
+        @SuppressWarnings("unchecked")
+        Map<String, Object> incrementalConfig = dateRangeConfig != null
+                ? (Map<String, Object>) dateRangeConfig.get(Constants.ConfigKeys.INCREMENTAL)
+                : null;
+        if (incrementalConfig != null && (Boolean) incrementalConfig.getOrDefault(Constants.ConfigKeys.ENABLED, false)) {
+            int overlapHours = (Integer) incrementalConfig.getOrDefault(Constants.ConfigKeys.OVERLAP_HOURS,
+                    Constants.DateRange.DEFAULT_OVERLAP_HOURS);
+            if (overlapHours < 0) {
+                throw new ConfigManager.ConfigurationError("export.date_range.incremental.overlap_hours must not be negative, got "
+                        + overlapHours);
+            }
+            String watermarkFile = (String) incrementalConfig.getOrDefault(Constants.ConfigKeys.STATE_FILE,
+                    Constants.DateRange.DEFAULT_WATERMARK_FILE);
+            this.watermarks = ExportWatermarks.load(Paths.get(configManager.getSurveyOutputDirectory()).resolve(watermarkFile));
+            this.watermarkOverlapMillis = TimeUnit.HOURS.toMillis(overlapHours);
+        } else {
+            this.watermarks = null;
+            this.watermarkOverlapMillis = 0L;
+        }
+        // A read-only archive view replaces physical extraction and keeps the archives; a record
+        // sink replaces both
+        this.virtualView = recordSink == null && (Boolean) configManager.getExtractionConfig().getOrDefault(Constants.ConfigKeys.VIRTUAL_VIEW, false);
+        this.extractFiles = recordSink == null && !this.virtualView && (Boolean) outputConfig.getOrDefault(Constants.ConfigKeys.EXTRACT_FILES, true);
         this.removeZipAfterExtract = (Boolean) outputConfig.getOrDefault(Constants.ConfigKeys.REMOVE_ZIP_AFTER_EXTRACT, true);
 
         // Get monitoring configuration
@@ -64,13 +198,89 @@ public class SurveyDataExporter {
         Object maxWaitTimeObj = monitoringConfig.get(Constants.ConfigKeys.MAX_WAIT_TIME);
         this.maxWaitTime = maxWaitTimeObj != null ? (Integer) maxWaitTimeObj : null;
         this.continueOnFailure = (Boolean) monitoringConfig.getOrDefault(Constants.ConfigKeys.CONTINUE_ON_FAILURE, true);
+        this.maxConcurrentRequests = configManager.getMaxConcurrentRequests(this.environment);
+        this.maxConcurrentStatusChecks = (Integer) monitoringConfig.getOrDefault(Constants.ConfigKeys.MAX_CONCURRENT_STATUS_CHECKS,
+                Constants.Concurrency.DEFAULT_MAX_CONCURRENT_STATUS_CHECKS);
+
+        // Get adaptive polling configuration
+        Map<String, Object> adaptivePollingConfig = configManager.getAdaptivePollingConfig();
+        this.pollingPolicy = PollingPolicy.fromConfig(adaptivePollingConfig, this.pollingInterval);
+        String historyFile = (String) adaptivePollingConfig.getOrDefault(Constants.ConfigKeys.HISTORY_FILE,
+                Constants.Polling.DEFAULT_HISTORY_FILE);
+        this.completionHistory = this.pollingPolicy.isAdaptive()
+                ? CompletionHistory.load(Paths.get(configManager.getSurveyOutputDirectory()).resolve(historyFile))
+                : null;
+
+        // Get pipeline configuration
+        Map<String, Object> pipelineConfig = configManager.getPipelineConfig();
+        this.pipelineEnabled = (Boolean) pipelineConfig.getOrDefault(Constants.ConfigKeys.ENABLED, true);
+        this.pipelineQueueCapacity = (Integer) pipelineConfig.getOrDefault(Constants.ConfigKeys.QUEUE_CAPACITY,
+                Constants.Pipeline.DEFAULT_QUEUE_CAPACITY);
+
+        // Get download configuration; the pipeline uses the same concurrency unless it overrides it
+        Map<String, Object> downloadConfig = configManager.getDownloadConfig();
+        int maxConcurrentDownloads = (Integer) downloadConfig.getOrDefault(
+                Constants.ConfigKeys.MAX_CONCURRENT_DOWNLOADS, Constants.Download.DEFAULT_MAX_CONCURRENT_DOWNLOADS);
+        // Archives that are removed after extraction need not be written to disk at all
+        this.streamExtract = this.extractFiles && this.removeZipAfterExtract && (Boolean) downloadConfig.getOrDefault(
+                Constants.ConfigKeys.STREAM_EXTRACT, Constants.Download.DEFAULT_STREAM_EXTRACT);
+        this.downloadManager = new DownloadManager(client, maxConcurrentDownloads);
+        this.pipelineDownloadWorkers = (Integer) pipelineConfig.getOrDefault(Constants.ConfigKeys.DOWNLOAD_WORKERS,
+                maxConcurrentDownloads);
+
+        // Get extraction configuration; pipeline extract workers hand archives to the same pool
+        Map<String, Object> extractionConfig = configManager.getExtractionConfig();
+        int extractionParallelism = (Integer) extractionConfig.getOrDefault(Constants.ConfigKeys.PARALLELISM,
+                Runtime.getRuntime().availableProcessors());
+        String indexFile = (String) extractionConfig.getOrDefault(Constants.ConfigKeys.INDEX_FILE,
+                Constants.Extraction.DEFAULT_INDEX_FILE);
+        this.extractionIndex = (Boolean) extractionConfig.getOrDefault(Constants.ConfigKeys.INCREMENTAL,
+                Constants.Extraction.DEFAULT_INCREMENTAL)
+                ? ExtractionIndex.load(Paths.get(configManager.getSurveyOutputDirectory()).resolve(indexFile))
+                : null;
+        this.extractionEngine = ExtractionEngine.fromConfig(extractionConfig, extractionIndex);
+        this.pipelineExtractWorkers = (Integer) pipelineConfig.getOrDefault(Constants.ConfigKeys.EXTRACT_WORKERS,
+                extractionParallelism);
+
+        // Get merge configuration; off unless enabled, extracted JSON is merged into NDJSON and CSV under a union header
+        Map<String, Object> mergeConfig = configManager.getMergeConfig();
+        int mergeParallelism = (Integer) mergeConfig.getOrDefault(Constants.ConfigKeys.PARALLELISM,
+                Runtime.getRuntime().availableProcessors());
+        boolean removeMergedFiles = (Boolean) mergeConfig.getOrDefault(Constants.ConfigKeys.REMOVE_SOURCE_FILES, false);
+        if (!this.extractFiles || !(Boolean) mergeConfig.getOrDefault(Constants.ConfigKeys.ENABLED, false)) {
+            this.fileMerger = null;
+        } else if (Constants.ExportFormat.CSV.equals(this.exportFormat)) {
+            this.fileMerger = new CsvMerger(mergeParallelism, removeMergedFiles);
+        } else {
+            this.fileMerger = new NdjsonMerger(mergeParallelism, removeMergedFiles);
+        }
 
-        // Create output directory with timestamp
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd_MM_yyyy_HHmmss"));
+        // Get columnar output configuration; converts the extracted files before they are merged
+        Map<String, Object> columnarConfig = configManager.getColumnarConfig();
+        this.columnarConverter = this.extractFiles
+                ? ParquetConverter.fromConfig(columnarConfig,
+                        (Integer) columnarConfig.getOrDefault(Constants.ConfigKeys.PARALLELISM, mergeParallelism),
+                        exportFormat, Paths.get(configManager.getSurveyOutputDirectory()))
+                : null;
+
+        // Get journal configuration; a resumed session is always journaled
+        Map<String, Object> journalConfig = configManager.getJournalConfig();
+        this.resumeSession = resumeSession != null;
+        this.journalEnabled = this.resumeSession || (Boolean) journalConfig.getOrDefault(Constants.ConfigKeys.ENABLED, true);
+        this.journalSyncIntervalMillis = (Integer) journalConfig.getOrDefault(Constants.ConfigKeys.SYNC_INTERVAL_MS,
+                Constants.Journal.DEFAULT_SYNC_INTERVAL_MS);
+
+        // Create output directory with timestamp, or reuse the resumed session's
+        String timestamp = resumeSession != null
+                ? sessionTimestamp(resumeSession)
+                : LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd_MM_yyyy_HHmmss"));
 
         // Get the survey output directory
         String surveyOutputDir = configManager.getSurveyOutputDirectory();
         this.outputDir = Paths.get(surveyOutputDir, "survey_data_" + timestamp);
+        if (this.resumeSession && !Files.exists(this.outputDir.resolve(Constants.Journal.FILENAME))) {
+            throw new IllegalArgumentException("No export journal to resume session " + resumeSession + " in " + this.outputDir);
+        }
         try {
             Files.createDirectories(this.outputDir);
         } catch (IOException e) {
@@ -79,8 +289,12 @@ public class SurveyDataExporter {
 
         this.exportSessionId = "export_" + timestamp;
         this.startTime = LocalDateTime.now();
-        this.exportDetailsBySurvey = new HashMap<>();
-        this.objectMapper = new ObjectMapper();
+        this.exportDetailsBySurvey = new ConcurrentHashMap<>();
+        this.exportChunks = new ConcurrentHashMap<>();
+        this.replacementChunks = new ConcurrentHashMap<>();
+        this.surveyStartTimes = new ConcurrentHashMap<>();
+        this.downloadedChunks = new ConcurrentHashMap<>();
+        this.resumedCompletedExports = new ConcurrentHashMap<>();
 
         this.exportMetadata = new ExportMetadata();
         this.exportMetadata.setExportSessionId(this.exportSessionId);
@@ -89,6 +303,22 @@ public class SurveyDataExporter {
         this.exportMetadata.setSuccessfulExports(0);
         this.exportMetadata.setFailedExports(0);
         this.exportMetadata.setOutputDirectory(this.outputDir.toString());
+        // Failures are recorded from worker threads
+        this.exportMetadata.setFailures(Collections.synchronizedList(new ArrayList<>()));
+        this.exportMetadata.setFailuresV2(Collections.synchronizedList(new ArrayList<>()));
+    }
+
+    /**
+     * Timestamp of a session given as its id, its output directory or the timestamp itself
+     */
+    private static String sessionTimestamp(String session) {
+        String name = Paths.get(session).getFileName().toString();
+        for (String prefix : new String[]{"survey_data_", "export_"}) {
+            if (name.startsWith(prefix)) {
+                return name.substring(prefix.length());
+            }
+        }
+        return name;
     }
 
     /**
@@ -105,126 +335,249 @@ public class SurveyDataExporter {
     }
 
     /**
-     * Wait for all exports to complete and return completed and failed exports
+     * Create the export request for one window of the date range
      */
-    public Map<String, ExportStatus> waitForExportsCompletion(Map<Integer, String> exportMapping, List<Survey> filteredSurveys) {
-        Map<String, ExportStatus> completedExports = new HashMap<>();
-        List<String> failedExports = new ArrayList<>();
-        Set<String> pendingExports = new HashSet<>(exportMapping.values());
+    public ExportRequest createExportRequest(DateRangeChunk chunk) {
+        return new ExportRequest(chunk.getStartTime(), chunk.getEndTime(), exportFormat);
+    }
+
+    /**
+     * Windows of the configured date range to request as separate exports: chunk_days windows
+     * when split_date_range is enabled and the range is longer, otherwise the whole range
+     */
+    public List<DateRangeChunk> getDateRangeChunks() {
+        Map<String, Long> dateRange = configManager.getDateRange();
+        return DateRangeChunk.split(dateRange.get("start_time"), dateRange.get("end_time"),
+                splitDateRange ? chunkDays * Constants.TimeConstants.MS_PER_DAY : 0L);
+    }
+
+    /**
+     * Windows to request for each survey, by platformFormId: the windows of
+     * {@link #getDateRangeChunks()}, or with adaptive chunking windows of each survey's learned size.
+     * In incremental mode a survey's range starts at its watermark less the overlap, and a survey
+     * already exported up to the end of the range has no windows.
+     */
+    public Map<Integer, List<DateRangeChunk>> getDateRangeChunks(List<Survey> surveys) {
+        Map<String, Long> dateRange = configManager.getDateRange();
+        long endTime = dateRange.get("end_time");
 
-        // Build reverse lookup: exportId -> Survey for failuresV2
-        Map<String, Survey> exportIdToSurvey = new HashMap<>();
-        for (Map.Entry<Integer, String> entry : exportMapping.entrySet()) {
+        Map<Integer, List<DateRangeChunk>> chunksBySurvey = new LinkedHashMap<>();
+        for (Survey survey : surveys) {
+            Integer platformFormId = survey.getPlatformFormId();
+            long startTime = watermarks != null
+                    ? watermarks.getStartTime(platformFormId, dateRange.get("start_time"), watermarkOverlapMillis)
+                    : dateRange.get("start_time");
+            surveyStartTimes.put(platformFormId, startTime);
+
+            if (startTime >= endTime) {
+                chunksBySurvey.put(platformFormId, Collections.emptyList());
+            } else if (chunkPlanner != null) {
+                chunksBySurvey.put(platformFormId, chunkPlanner.plan(platformFormId, startTime, endTime));
+            } else {
+                chunksBySurvey.put(platformFormId, DateRangeChunk.split(startTime, endTime,
+                        splitDateRange ? chunkDays * Constants.TimeConstants.MS_PER_DAY : 0L));
+            }
+        }
+        return chunksBySurvey;
+    }
+
+    /**
+     * Wait for all exports to complete and return completed and failed exports.
+     * Status checks run concurrently on a shared scheduler, each export on its own polling schedule.
+     */
+    public Map<String, ExportStatus> waitForExportsCompletion(Map<String, Integer> exportMapping, List<Survey> filteredSurveys) {
+        Map<String, ExportStatus> completedExports = new ConcurrentHashMap<>();
+
+        // Build lookup: exportId -> Survey for failuresV2
+        Map<String, Survey> exportIdToSurvey = new ConcurrentHashMap<>();
+        List<String> exportIds = new ArrayList<>();
+        List<Integer> platformFormIds = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : exportMapping.entrySet()) {
+            exportIds.add(entry.getKey());
+            platformFormIds.add(entry.getValue());
             for (Survey survey : filteredSurveys) {
-                if (survey.getPlatformFormId() == entry.getKey()) {
-                    exportIdToSurvey.put(entry.getValue(), survey);
+                if (survey.getPlatformFormId() == entry.getValue()) {
+                    exportIdToSurvey.put(entry.getKey(), survey);
                     break;
                 }
             }
         }
         long startWaitTime = System.currentTimeMillis();
 
-        // Initialize cumulative status counts
-        Map<String, Integer> cumulativeStatusCounts = new HashMap<>();
-        cumulativeStatusCounts.put(Constants.ExportStatus.COMPLETED, 0);
-        cumulativeStatusCounts.put(Constants.ExportStatus.FAILED, 0);
-        cumulativeStatusCounts.put(Constants.ExportStatus.IN_PROGRESS, pendingExports.size());
+        logger.info("Checking Export Status: Waiting for {} exports to complete ({} concurrent status checks)",
+                exportMapping.size(), maxConcurrentStatusChecks);
 
-        logger.info("Checking Export Status: Waiting for {} exports to complete", pendingExports.size());
+        StatusPoller poller = newStatusPoller();
+        try {
+            poller.trackAll(exportIds, platformFormIds,
+                    exportId -> checkExportStatus(exportId, exportIdToSurvey.get(exportId), completedExports),
+                    (exportId, outcome) -> {
+                        if (!Constants.ExportStatus.COMPLETED.equals(outcome)) {
+                            trackReplacements(poller, exportId, exportIdToSurvey.get(exportId), completedExports, exportMapping);
+                        }
+                    });
 
-        while (!pendingExports.isEmpty()) {
-            // Check if we've exceeded max wait time
-            if (maxWaitTime != null && (System.currentTimeMillis() - startWaitTime) > maxWaitTime * 1000L) {
-                logger.warn("Maximum wait time ({}s) exceeded. {} exports still pending.", maxWaitTime, pendingExports.size());
-                break;
+            if (!poller.awaitCompletion(maxWaitTime, startWaitTime)) {
+                logger.warn("Maximum wait time ({}s) exceeded. {} exports still pending.", maxWaitTime, poller.getPendingCount());
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            poller.shutdown();
+            pollingMetrics = poller.getMetrics();
+        }
 
-            try {
-                Thread.sleep(pollingInterval * 1000L);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            }
-
-            // Reset current iteration status counts
-            Map<String, Integer> currentStatusCounts = new HashMap<>();
-            currentStatusCounts.put(Constants.ExportStatus.COMPLETED, 0);
-            currentStatusCounts.put(Constants.ExportStatus.FAILED, 0);
-            currentStatusCounts.put(Constants.ExportStatus.IN_PROGRESS, 0);
-
-            for (String exportId : new ArrayList<>(pendingExports)) {
-                try {
-                    ExportStatus status = client.getExportStatus(exportId);
-
-                    if (Constants.ExportStatus.COMPLETED.equals(status.getStatus())) {
-                        currentStatusCounts.put(Constants.ExportStatus.COMPLETED,
-                                currentStatusCounts.get(Constants.ExportStatus.COMPLETED) + 1);
-                        completedExports.put(exportId, status);
-                        pendingExports.remove(exportId);
-
-                    } else if (Constants.ExportStatus.FAILED.equals(status.getStatus())) {
-                        currentStatusCounts.put(Constants.ExportStatus.FAILED,
-                                currentStatusCounts.get(Constants.ExportStatus.FAILED) + 1);
-                        failedExports.add(exportId);
-                        pendingExports.remove(exportId);
-
-                        // Add to failures metadata
-                        Map<String, Object> failure = new HashMap<>();
-                        failure.put("exportId", exportId);
-                        failure.put("failureReason", status.getFailureReason());
-                        failure.put("status", status);
-                        exportMetadata.getFailures().add(failure);
-
-                        // Add to failuresV2 with survey context
-                        Survey survey = exportIdToSurvey.get(exportId);
-                        if (survey != null) {
-                            Map<String, Object> failureV2 = new HashMap<>();
-                            failureV2.put("id", survey.getId());
-                            failureV2.put("name", survey.getName());
-                            failureV2.put("displayName", survey.getDisplayName());
-                            failureV2.put("platformFormId", survey.getPlatformFormId());
-                            failureV2.put("downloadEndpoint", status.getDownloadEndpoint());
-                            failureV2.put("submittedOn", status.getSubmittedOn());
-                            failureV2.put("completedOn", status.getCompletedOn());
-                            failureV2.put("exportId", exportId);
-                            failureV2.put("failureReason", status.getFailureReason());
-                            failureV2.put("fileName", status.getFileName());
-                            exportMetadata.getFailuresV2().add(failureV2);
+        return completedExports;
+    }
+
+    /**
+     * Request and track the exports that replace one whose window was bisected
+     */
+    private void trackReplacements(StatusPoller poller, String exportId, Survey survey,
+                                   Map<String, ExportStatus> completedExports, Map<String, Integer> exportMapping) {
+        for (String replacement : requestReplacements(exportId, survey, exportMapping)) {
+            poller.track(replacement, survey.getPlatformFormId(),
+                    id -> checkExportStatus(id, survey, completedExports),
+                    (id, outcome) -> {
+                        if (!Constants.ExportStatus.COMPLETED.equals(outcome)) {
+                            trackReplacements(poller, id, survey, completedExports, exportMapping);
                         }
+                    });
+        }
+    }
+
+    /**
+     * Poller for this run's exports: on the scheduler shared with other export types if one was
+     * given to {@link #runExport(StatusPoller)}, otherwise on a scheduler of its own
+     */
+    private StatusPoller newStatusPoller() {
+        if (pollScheduler != null) {
+            return pollScheduler.share(pollingInterval * 1000L, pollingPolicy, completionHistory);
+        }
+        return new StatusPoller(maxConcurrentStatusChecks, pollingInterval * 1000L, pollingPolicy, completionHistory);
+    }
+
+    /**
+     * Check the status of a single export, recording failures in the metadata. With adaptive
+     * chunking, an export that runs over the duration budget, or fails because its window is too
+     * large, has its window bisected instead, unless the window is already the minimum size or its
+     * survey has used up its bisections.
+     *
+     * @return COMPLETED, FAILED, TIMED_OUT or IN_PROGRESS, or null for a status that is neither finished nor running
+     */
+    private String checkExportStatus(String exportId, Survey survey, Map<String, ExportStatus> completedExports) {
+        try {
+            ExportStatus status = client.getExportStatus(exportId);
+
+            if (Constants.ExportStatus.COMPLETED.equals(status.getStatus())) {
+                completedExports.put(exportId, status);
+                if (chunkPlanner != null) {
+                    chunkPlanner.finished(exportId);
+                }
+                if (journal != null) {
+                    journal.completed(exportId, status);
+                }
+                return Constants.ExportStatus.COMPLETED;
+
+            } else if (Constants.ExportStatus.FAILED.equals(status.getStatus())) {
+                if (bisectWindow(exportId, Constants.ExportStatus.FAILED, status.getFailureReason(),
+                        "failed: " + status.getFailureReason())) {
+                    return Constants.ExportStatus.FAILED;
+                }
+                if (journal != null) {
+                    journal.failed(exportId);
+                }
+
+                // Add to failures metadata
+                Map<String, Object> failure = new HashMap<>();
+                failure.put("exportId", exportId);
+                failure.put("failureReason", status.getFailureReason());
+                failure.put("status", status);
+                exportMetadata.getFailures().add(failure);
 
-                    } else if (Constants.ExportStatus.SUBMITTED.equals(status.getStatus()) ||
-                            Constants.ExportStatus.IN_PROGRESS.equals(status.getStatus())) {
-                        currentStatusCounts.put(Constants.ExportStatus.IN_PROGRESS,
-                                currentStatusCounts.get(Constants.ExportStatus.IN_PROGRESS) + 1);
-                    }
-
-                } catch (Exception e) {
-                    logger.error("Error checking status for {}: {}", exportId, e.getMessage());
-                    if (!continueOnFailure) {
-                        throw new RuntimeException(e);
-                    }
-                    currentStatusCounts.put(Constants.ExportStatus.FAILED,
-                            currentStatusCounts.get(Constants.ExportStatus.FAILED) + 1);
-                    failedExports.add(exportId);
-                    pendingExports.remove(exportId);
+                // Add to failuresV2 with survey context
+                if (survey != null) {
+                    Map<String, Object> failureV2 = new HashMap<>();
+                    failureV2.put("id", survey.getId());
+                    failureV2.put("name", survey.getName());
+                    failureV2.put("displayName", survey.getDisplayName());
+                    failureV2.put("platformFormId", survey.getPlatformFormId());
+                    failureV2.put("downloadEndpoint", status.getDownloadEndpoint());
+                    failureV2.put("submittedOn", status.getSubmittedOn());
+                    failureV2.put("completedOn", status.getCompletedOn());
+                    failureV2.put("exportId", exportId);
+                    failureV2.put("failureReason", status.getFailureReason());
+                    failureV2.put("fileName", status.getFileName());
+                    exportMetadata.getFailuresV2().add(failureV2);
                 }
+                return Constants.ExportStatus.FAILED;
+
+            } else if (Constants.ExportStatus.SUBMITTED.equals(status.getStatus()) ||
+                    Constants.ExportStatus.IN_PROGRESS.equals(status.getStatus())) {
+                if (chunkPlanner != null && chunkPlanner.isOverBudget(exportId)
+                        && bisectWindow(exportId, Constants.ExportStatus.TIMED_OUT, null, "exceeded the duration budget")) {
+                    return Constants.ExportStatus.TIMED_OUT;
+                }
+                return Constants.ExportStatus.IN_PROGRESS;
             }
+            return null;
 
-            // Update cumulative status counts
-            cumulativeStatusCounts.put(Constants.ExportStatus.COMPLETED,
-                    cumulativeStatusCounts.get(Constants.ExportStatus.COMPLETED) + currentStatusCounts.get(Constants.ExportStatus.COMPLETED));
-            cumulativeStatusCounts.put(Constants.ExportStatus.FAILED,
-                    cumulativeStatusCounts.get(Constants.ExportStatus.FAILED) + currentStatusCounts.get(Constants.ExportStatus.FAILED));
-            cumulativeStatusCounts.put(Constants.ExportStatus.IN_PROGRESS, pendingExports.size());
+        } catch (Exception e) {
+            logger.error("Error checking status for {}: {}", exportId, e.getMessage());
+            if (!continueOnFailure) {
+                throw new RuntimeException(e);
+            }
+            // Not journaled: the export may still complete, so a resumed run polls it again
+            return Constants.ExportStatus.FAILED;
+        }
+    }
 
-            logger.info("Status after this check: TOTAL: {}, COMPLETED: {}, FAILED: {}, IN_PROGRESS: {}",
-                    exportMapping.size(),
-                    cumulativeStatusCounts.get(Constants.ExportStatus.COMPLETED),
-                    cumulativeStatusCounts.get(Constants.ExportStatus.FAILED),
-                    cumulativeStatusCounts.get(Constants.ExportStatus.IN_PROGRESS));
+    /**
+     * Bisect the window of an export that failed or ran over budget, keeping the halves to request
+     * once the poller reports its outcome. The API has no way to cancel an export, so one that ran
+     * over budget keeps running on the server; it is no longer polled and its result is not used.
+     *
+     * @param failureReason reason the server gave for a FAILED export, or null
+     * @return false if adaptive chunking is off or the planner does not bisect the window
+     */
+    private boolean bisectWindow(String exportId, String outcome, String failureReason, String reason) {
+        if (chunkPlanner == null) {
+            return false;
+        }
+        List<DateRangeChunk> halves = chunkPlanner.bisect(exportId, outcome, failureReason);
+        if (halves.isEmpty()) {
+            return false;
+        }
+        logger.warn("Export {} ({}) {}; requesting {} and {} in its place",
+                exportId, exportChunks.get(exportId), reason, halves.get(0), halves.get(1));
+        if (Constants.ExportStatus.TIMED_OUT.equals(outcome)) {
+            logger.warn("Export {} cannot be cancelled and keeps running on the server; its result will not be downloaded", exportId);
         }
+        replacementChunks.put(exportId, halves);
+        if (journal != null) {
+            journal.replaced(exportId);
+        }
+        return true;
+    }
 
-        return completedExports;
+    /**
+     * Request the halves of a bisected export's window
+     *
+     * @return the ids of the exports requested, empty if the export was not bisected
+     */
+    private List<String> requestReplacements(String exportId, Survey survey, Map<String, Integer> exportMapping) {
+        List<DateRangeChunk> halves = replacementChunks.remove(exportId);
+        if (halves == null || survey == null) {
+            return Collections.emptyList();
+        }
+        List<String> replacements = new ArrayList<>();
+        for (int i = 0; i < halves.size(); i++) {
+            String replacement = requestExport(survey, halves.get(i), i + 1, halves.size(), exportMapping);
+            if (replacement != null) {
+                replacements.add(replacement);
+            }
+        }
+        return replacements;
     }
 
     /**
@@ -236,6 +589,11 @@ public class SurveyDataExporter {
             return;
         }
 
+        if (virtualView) {
+            logger.info("Keeping {} archives for the read-only archive view", zipFiles.size());
+            return;
+        }
+
         if (!extractFiles) {
             logger.info("File extraction disabled in configuration");
             return;
@@ -243,76 +601,130 @@ public class SurveyDataExporter {
 
         logger.info("Extracting {} files from zip archives", exportFormat);
 
+        // The archives of each date range window are extracted into that window's directory
+        Map<Path, List<Path>> zipFilesByDirectory = new TreeMap<>();
         for (Path zipFile : zipFiles) {
-            boolean extractionSuccessful = true;
-            try (ZipFile zip = new ZipFile(zipFile.toFile())) {
-                Enumeration<ZipArchiveEntry> entries = zip.getEntries();
-                while (entries.hasMoreElements()) {
-                    ZipArchiveEntry entry = entries.nextElement();
-                    Path extractedPath = outputDir.resolve(entry.getName());
-                    Files.createDirectories(extractedPath.getParent());
-
-                    try (InputStream inputStream = zip.getInputStream(entry);
-                         FileOutputStream outputStream = new FileOutputStream(extractedPath.toFile())) {
-                        byte[] buffer = new byte[8192];
-                        int bytesRead;
-                        while ((bytesRead = inputStream.read(buffer)) != -1) {
-                            outputStream.write(buffer, 0, bytesRead);
-                        }
-                    }
-
-                    Path relativePath = Paths.get("").toAbsolutePath().relativize(extractedPath);
-                    logger.info("Extracted: {}", relativePath);
+            zipFilesByDirectory.computeIfAbsent(getExtractionDirectory(zipFile), directory -> new ArrayList<>()).add(zipFile);
+        }
+        for (Map.Entry<Path, List<Path>> directory : zipFilesByDirectory.entrySet()) {
+            for (Path zipFile : extractionEngine.extractAll(directory.getValue(), directory.getKey(), removeZipAfterExtract)) {
+                if (journal != null) {
+                    journal.extracted(zipFile);
                 }
-            } catch (IOException e) {
-                logger.error("Error extracting {}: {}", zipFile, e.getMessage());
-                extractionSuccessful = false;
             }
+        }
+    }
 
-            if (extractionSuccessful && removeZipAfterExtract) {
-                try {
-                    Files.delete(zipFile);
-                    logger.debug("Removed zip file: {}", zipFile);
-                } catch (IOException e) {
-                    logger.error("Error deleting zip file {}: {}", zipFile, e.getMessage());
-                }
-            }
+    /**
+     * Extract a single zip archive into the output directory
+     */
+    private void extractExportFile(Path zipFile) {
+        if (extractionEngine.extract(zipFile, getExtractionDirectory(zipFile), removeZipAfterExtract) && journal != null) {
+            journal.extracted(zipFile);
         }
     }
 
     /**
-     * Save export metadata to JSON file
+     * The directory an archive was downloaded to when it is under the output directory, so the
+     * windows of a split date range keep entries of the same name apart; otherwise the output directory
      */
-    public void saveExportMetadata() {
-        Map<String, Object> metadataConfig = configManager.getMetadataConfig();
+    private Path getExtractionDirectory(Path zipFile) {
+        Path directory = zipFile.toAbsolutePath().getParent();
+        return directory != null && directory.startsWith(outputDir.toAbsolutePath()) ? directory : outputDir;
+    }
 
-        if (!(Boolean) metadataConfig.getOrDefault(Constants.ConfigKeys.SAVE_METADATA, true)) {
-            logger.info("Metadata saving disabled in configuration");
-            return;
+    /**
+     * Directory the exports of a date range window are downloaded to
+     */
+    private Path getChunkDirectory(DateRangeChunk chunk) {
+        return chunk != null && chunk.isSplit() ? outputDir.resolve(chunk.getDirectoryName()) : outputDir;
+    }
+
+    /**
+     * Convert each survey's extracted files into the configured columnar format
+     */
+    public void convertExportFiles(List<Survey> filteredSurveys) {
+        if (columnarConverter != null) {
+            combineSurveyFiles(columnarConverter, filteredSurveys, "columnar_file");
         }
+    }
 
-        String metadataFilename = (String) metadataConfig.getOrDefault(Constants.ConfigKeys.FILENAME,
-                Constants.FileConstants.DEFAULT_METADATA_FILENAME);
-        Path metadataFile = outputDir.resolve(metadataFilename);
+    /**
+     * Merge each survey's extracted files into one: JSON into NDJSON tagged with the platformFormId,
+     * CSV under the union of the chunk headers
+     */
+    public void mergeExportFiles(List<Survey> filteredSurveys) {
+        if (fileMerger != null) {
+            combineSurveyFiles(fileMerger, filteredSurveys, "merged_file");
+        }
+    }
 
+    /**
+     * Combine the extracted files of every exported survey with the given merger, recording each
+     * output file in the survey's export details under detailKey
+     */
+    private void combineSurveyFiles(SurveyFileMerger merger, List<Survey> filteredSurveys, String detailKey) {
+        List<Integer> platformFormIds = new ArrayList<>();
+        for (Survey survey : filteredSurveys) {
+            if (exportDetailsBySurvey.containsKey(survey.getPlatformFormId())) {
+                platformFormIds.add(survey.getPlatformFormId());
+            }
+        }
+        if (platformFormIds.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, List<Path>> filesBySurvey;
         try {
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(metadataFile.toFile(), exportMetadata);
-            Path relativePath = Paths.get("").toAbsolutePath().relativize(metadataFile);
-            logger.info(String.format(Constants.SuccessMessages.METADATA_SAVED, relativePath));
+            filesBySurvey = merger.findSurveyFiles(outputDir, platformFormIds);
         } catch (IOException e) {
-            logger.error("Failed to save metadata: {}", e.getMessage());
+            logger.error("Failed to list extracted files for {}: {}", detailKey, e.getMessage());
+            return;
+        }
+
+        for (Map.Entry<Integer, Path> combined : merger.mergeAll(filesBySurvey, outputDir).entrySet()) {
+            exportDetailsBySurvey.get(combined.getKey()).put(detailKey, combined.getValue().toString());
         }
     }
+
+    /**
+     * Open a read-only view over the archives downloaded by this export, for consumers that read
+     * entries in place instead of extracting them. The caller closes the view.
+     */
+    public ArchiveView openArchiveView() throws IOException {
+        return ArchiveView.open(outputDir);
+    }
+
+    /**
+     * Save export metadata to JSON file
+     */
+    public void saveExportMetadata() {
+        Helpers.saveExportMetadata(configManager.getMetadataConfig(), outputDir, exportMetadata);
+    }
     
     /**
      * Run the complete export process
      */
     public void runExport() {
+        runExport(null);
+    }
+
+    /**
+     * Run the complete export process, checking export status on a poll scheduler shared with the
+     * exports of other types. The scheduler's wheel and workers stay running when this returns.
+     *
+     * @param pollScheduler poller whose scheduler to share, or null for one of this exporter's own
+     */
+    public void runExport(StatusPoller pollScheduler) {
+        this.pollScheduler = pollScheduler;
         try {
             logger.info("Starting survey data export (Session: {})", exportSessionId);
+            ExportJournal.State resumedState = openJournal();
 
             List<Survey> surveys = getSurveys();
-            List<Survey> filteredSurveys = filterSurveys(surveys);
+            List<Survey> filteredSurveys = resumedState != null
+                    ? getResumedSurveys(surveys, resumedState)
+                    : filterSurveys(surveys);
 
             if (filteredSurveys.isEmpty()) {
                 logger.warn("No surveys match the filter criteria");
@@ -320,20 +732,54 @@ public class SurveyDataExporter {
             }
             logger.info("Total surveys data to be exported: {} surveys", filteredSurveys.size());
 
-            Map<Integer, String> exportMapping = requestExports(filteredSurveys);
-
-            if (exportMapping.isEmpty()) {
-                logger.error("No exports were successfully requested");
-                return;
+            Map<Integer, List<DateRangeChunk>> chunksBySurvey;
+            Map<String, Integer> resumedExports;
+            if (resumedState != null) {
+                chunksBySurvey = resumedState.getUnsubmittedChunks();
+                recordDateRange(resumedState.getPlannedChunks());
+                resumedExports = resumeExports(resumedState);
+            } else {
+                chunksBySurvey = getDateRangeChunks(filteredSurveys);
+                if (countChunks(chunksBySurvey) == 0) {
+                    logger.info("All {} surveys are exported up to the end of the date range", filteredSurveys.size());
+                    return;
+                }
+                recordDateRange(chunksBySurvey);
+                if (journal != null) {
+                    journal.planned(chunksBySurvey);
+                }
+                resumedExports = Collections.emptyMap();
             }
 
-            Map<String, ExportStatus> completedExports = waitForExportsCompletion(exportMapping, filteredSurveys);
-            List<Path> downloadedFiles = downloadCompletedExports(completedExports, exportMapping);
+            Map<String, ExportStatus> completedExports;
+            if (pipelineEnabled) {
+                ExportPipeline.Result result = runPipeline(filteredSurveys, chunksBySurvey, resumedExports);
+                if (result.getExportMapping().isEmpty() && resumedCompletedExports.isEmpty()) {
+                    logger.error("No exports were successfully requested");
+                    return;
+                }
+                completedExports = result.getCompletedExports();
+            } else {
+                Map<String, Integer> exportMapping = requestExports(filteredSurveys, chunksBySurvey);
+                exportMapping.putAll(resumedExports);
+
+                if (exportMapping.isEmpty() && resumedCompletedExports.isEmpty()) {
+                    logger.error("No exports were successfully requested");
+                    return;
+                }
+
+                completedExports = waitForExportsCompletion(exportMapping, filteredSurveys);
+                List<Path> downloadedFiles = downloadCompletedExports(completedExports, exportMapping);
 
-            if (!downloadedFiles.isEmpty()) {
-                extractExportFiles(downloadedFiles);
+                if (!downloadedFiles.isEmpty()) {
+                    extractExportFiles(downloadedFiles);
+                }
             }
+            completedExports.putAll(resumedCompletedExports);
+            advanceWatermarks();
 
+            convertExportFiles(filteredSurveys);
+            mergeExportFiles(filteredSurveys);
             updateMetadata(completedExports);
             createSurveyMetadata(filteredSurveys);
             finalizeExport();
@@ -341,6 +787,228 @@ public class SurveyDataExporter {
         } catch (Exception e) {
             logger.error("Export process failed: {}", e.getMessage(), e);
             throw new RuntimeException(e);
+        } finally {
+            closeRecordSink();
+            if (chunkPlanner != null) {
+                chunkPlanner.save();
+            }
+            closeJournal();
+            if (ownsClient) {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * Open the session's journal, replaying it first when resuming a session
+     *
+     * @return the state the journal records, or null for a new session
+     */
+    private ExportJournal.State openJournal() throws IOException {
+        Path journalFile = outputDir.resolve(Constants.Journal.FILENAME);
+        ExportJournal.State state = resumeSession ? ExportJournal.replay(journalFile) : null;
+        if (journalEnabled) {
+            journal = ExportJournal.open(journalFile, journalSyncIntervalMillis);
+        }
+        return state;
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Error closing export journal: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The surveys a resumed session planned windows for, regardless of the current survey filter
+     */
+    private List<Survey> getResumedSurveys(List<Survey> surveys, ExportJournal.State state) {
+        List<Survey> resumedSurveys = new ArrayList<>();
+        for (Survey survey : surveys) {
+            if (state.getPlannedChunks().containsKey(survey.getPlatformFormId())) {
+                resumedSurveys.add(survey);
+            }
+        }
+        if (resumedSurveys.size() < state.getPlannedChunks().size()) {
+            logger.warn("{} surveys of the resumed session are no longer available",
+                    state.getPlannedChunks().size() - resumedSurveys.size());
+        }
+        return resumedSurveys;
+    }
+
+    /**
+     * Restore the exports of a resumed session: downloaded exports are recorded as they were and
+     * archives that were not extracted yet are extracted; the others are polled again
+     *
+     * @return exports to poll, by export id, with their platformFormId
+     */
+    private Map<String, Integer> resumeExports(ExportJournal.State state) {
+        for (Map.Entry<Integer, List<DateRangeChunk>> survey : state.getPlannedChunks().entrySet()) {
+            surveyStartTimes.put(survey.getKey(),
+                    survey.getValue().stream().mapToLong(DateRangeChunk::getStartTime).min().orElse(0L));
+        }
+
+        Map<String, Integer> pendingExports = new LinkedHashMap<>();
+        List<Path> unextractedFiles = new ArrayList<>();
+        for (ExportJournal.JournalExport export : state.getExports()) {
+            exportChunks.put(export.getExportId(), export.getChunk());
+            if (export.isPending()) {
+                pendingExports.put(export.getExportId(), export.getPlatformFormId());
+                if (chunkPlanner != null) {
+                    chunkPlanner.submitted(export.getExportId(), export.getPlatformFormId(), export.getChunk());
+                }
+            } else if (export.isDownloaded()) {
+                Map<String, Object> exportDetail = new HashMap<>();
+                exportDetail.put("exportId", export.getExportId());
+                exportDetail.put("status", export.getStatus());
+                exportDetail.put("resumed", true);
+                recordExportDetail(export.getPlatformFormId(), export.getChunk(), exportDetail);
+                downloadedChunks.computeIfAbsent(export.getPlatformFormId(),
+                        id -> Collections.synchronizedList(new ArrayList<>())).add(export.getChunk());
+                if (export.getStatus() != null) {
+                    resumedCompletedExports.put(export.getExportId(), export.getStatus());
+                }
+                if (export.needsExtraction() && Files.exists(export.getFile())) {
+                    unextractedFiles.add(export.getFile());
+                }
+            }
+        }
+
+        logger.info("Resuming session {}: {} exports already downloaded, {} to poll, {} windows to request",
+                exportSessionId, resumedCompletedExports.size(), pendingExports.size(),
+                countChunks(state.getUnsubmittedChunks()));
+        if (!unextractedFiles.isEmpty()) {
+            extractExportFiles(unextractedFiles);
+        }
+        return pendingExports;
+    }
+
+    /**
+     * Record the date range and the boundaries of its windows in the metadata. With adaptive
+     * chunking or incremental exports the windows differ per survey; the planned sizes, bisected
+     * windows and watermarks are recorded as the export proceeds.
+     */
+    private void recordDateRange(Map<Integer, List<DateRangeChunk>> chunksBySurvey) {
+        List<DateRangeChunk> chunks = chunksBySurvey.values().iterator().next();
+        Map<String, Object> dateRange = new LinkedHashMap<>();
+        dateRange.put("start_time", chunksBySurvey.values().stream().flatMap(List::stream)
+                .mapToLong(DateRangeChunk::getStartTime).min().orElse(0L));
+        dateRange.put("end_time", chunksBySurvey.values().stream().flatMap(List::stream)
+                .mapToLong(DateRangeChunk::getEndTime).max().orElse(0L));
+        dateRange.put("split_date_range", splitDateRange);
+        dateRange.put("chunk_days", splitDateRange && chunkPlanner == null ? chunkDays : null);
+        if (chunkPlanner == null && watermarks == null) {
+            List<Map<String, Object>> boundaries = new ArrayList<>();
+            for (DateRangeChunk chunk : chunks) {
+                boundaries.add(chunk.toMetadata());
+            }
+            dateRange.put("chunks", boundaries);
+        }
+        exportMetadata.setDateRange(dateRange);
+
+        if (watermarks != null) {
+            long resumed = chunksBySurvey.keySet().stream().filter(id -> watermarks.getWatermark(id) != null).count();
+            logger.info("Incremental export: {} of {} surveys resume from their watermark", resumed, chunksBySurvey.size());
+        }
+        if (chunkPlanner != null) {
+            logger.info("Planned {} windows for {} surveys from learned window sizes",
+                    countChunks(chunksBySurvey), chunksBySurvey.size());
+        } else if (chunks.size() > 1) {
+            logger.info("Split date range into {} windows of up to {} days", chunks.size(), chunkDays);
+        }
+    }
+
+    /**
+     * Move each survey's watermark over the windows downloaded in this run, and record the
+     * incremental ranges in the metadata
+     */
+    private void advanceWatermarks() {
+        if (watermarks == null) {
+            return;
+        }
+        Map<String, Object> watermarksBySurvey = new TreeMap<>();
+        int advanced = 0;
+        for (Map.Entry<Integer, Long> survey : surveyStartTimes.entrySet()) {
+            List<DateRangeChunk> downloaded = downloadedChunks.getOrDefault(survey.getKey(), Collections.emptyList());
+            Long watermark;
+            synchronized (downloaded) {
+                watermark = watermarks.advance(survey.getKey(), survey.getValue(), downloaded);
+            }
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("start_time", survey.getValue());
+            entry.put("watermark", watermarks.getWatermark(survey.getKey()));
+            entry.put("advanced", watermark != null);
+            watermarksBySurvey.put(String.valueOf(survey.getKey()), entry);
+            if (watermark != null) {
+                advanced++;
+            }
+        }
+        watermarks.save();
+
+        Map<String, Object> incremental = new LinkedHashMap<>();
+        incremental.put("overlap_hours", TimeUnit.MILLISECONDS.toHours(watermarkOverlapMillis));
+        incremental.put("surveys", watermarksBySurvey);
+        exportMetadata.getDateRange().put("incremental", incremental);
+        logger.info("Export watermarks advanced for {} of {} surveys", advanced, watermarksBySurvey.size());
+    }
+
+    private void closeRecordSink() {
+        if (recordSink != null) {
+            try {
+                recordSink.close();
+            } catch (IOException e) {
+                logger.error("Error closing record sink: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Run request, poll, download and extract as overlapped stages, so each export moves on
+     * as soon as it completes
+     */
+    private ExportPipeline.Result runPipeline(List<Survey> filteredSurveys, Map<Integer, List<DateRangeChunk>> chunksBySurvey,
+                                              Map<String, Integer> resumedExports) {
+        if (extractFiles) {
+            logger.info("Extracting {} files from zip archives as downloads complete", exportFormat);
+        }
+
+        StatusPoller poller = newStatusPoller();
+        ExportPipeline pipeline = new ExportPipeline(new ExportPipeline.Stages() {
+            @Override
+            public String submit(Survey survey, DateRangeChunk chunk, int position, int total, Map<String, Integer> exportMapping) {
+                return requestExport(survey, chunk, position, total, exportMapping);
+            }
+
+            @Override
+            public String checkStatus(String exportId, Survey survey, Map<String, ExportStatus> completedExports) {
+                return checkExportStatus(exportId, survey, completedExports);
+            }
+
+            @Override
+            public List<String> resubmit(String exportId, Survey survey, Map<String, Integer> exportMapping) {
+                return requestReplacements(exportId, survey, exportMapping);
+            }
+
+            @Override
+            public Path download(String exportId, ExportStatus status, Survey survey, int position, int total) {
+                return downloadCompletedExport(exportId, status, survey.getPlatformFormId(), position, total);
+            }
+
+            @Override
+            public void extract(Path file) {
+                extractExportFile(file);
+            }
+        }, Math.min(maxConcurrentRequests, countChunks(chunksBySurvey)), pipelineDownloadWorkers,
+                extractFiles ? pipelineExtractWorkers : 0, pipelineQueueCapacity, poller, maxWaitTime);
+
+        try {
+            return pipeline.run(filteredSurveys, chunksBySurvey, resumedExports);
+        } finally {
+            pollingMetrics = poller.getMetrics();
         }
     }
 
@@ -370,76 +1038,170 @@ public class SurveyDataExporter {
         return filteredSurveys;
     }
 
-    private Map<Integer, String> requestExports(List<Survey> filteredSurveys) {
-        ExportRequest exportRequest = createExportRequest();
-        Map<Integer, String> exportMapping = new HashMap<>();
+    private static int countChunks(Map<Integer, List<DateRangeChunk>> chunksBySurvey) {
+        return chunksBySurvey.values().stream().mapToInt(List::size).sum();
+    }
 
-        for (int i = 0; i < filteredSurveys.size(); i++) {
-            Survey survey = filteredSurveys.get(i);
-            try {
-                logger.info("[{}/{}] Requesting export for survey id: {} (Name: '{}')",
-                        i + 1, filteredSurveys.size(), survey.getPlatformFormId(), survey.getName());
-                String exportId = client.requestSurveyExport(survey.getPlatformFormId(), exportRequest);
-                logger.info("[{}/{}] Requested export for survey id: {}, export id: {}",
-                        i + 1, filteredSurveys.size(), survey.getPlatformFormId(), exportId);
-                exportMapping.put(survey.getPlatformFormId(), exportId);
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
+    private Map<String, Integer> requestExports(List<Survey> filteredSurveys, Map<Integer, List<DateRangeChunk>> chunksBySurvey) {
+        Map<String, Integer> exportMapping = new ConcurrentHashMap<>();
+        int total = countChunks(chunksBySurvey);
+
+        int poolSize = Math.max(1, Math.min(maxConcurrentRequests, total));
+        logger.info("Submitting {} export requests with up to {} in flight", total, poolSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, Helpers.namedThreadFactory("export-request"));
+        try {
+            List<Future<?>> submissions = new ArrayList<>();
+            int position = 0;
+            for (Survey survey : filteredSurveys) {
+                for (DateRangeChunk chunk : chunksBySurvey.get(survey.getPlatformFormId())) {
+                    int chunkPosition = ++position;
+                    submissions.add(executor.submit(() -> requestExport(survey, chunk, chunkPosition, total, exportMapping)));
                 }
-            } catch (Exception e) {
-                logger.error(String.format(Constants.ErrorMessages.EXPORT_REQUEST_FAILED,
-                        survey.getPlatformFormId(), e.getMessage()));
+            }
 
-                Map<String, Object> failure = new HashMap<>();
-                failure.put("surveyId", survey.getPlatformFormId());
-                failure.put("error", e.getMessage());
-                failure.put("stage", "export_request");
-                exportMetadata.getFailures().add(failure);
+            for (Future<?> submission : submissions) {
+                submission.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Export submission interrupted; {} exports were requested", exportMapping.size());
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
         return exportMapping;
     }
 
-    private List<Path> downloadCompletedExports(Map<String, ExportStatus> completedExports, Map<Integer, String> exportMapping) {
-        List<Path> downloadedFiles = new ArrayList<>();
-        int completedCount = 0;
-        for (Map.Entry<String, ExportStatus> entry : completedExports.entrySet()) {
-            String exportId = entry.getKey();
-            ExportStatus status = entry.getValue();
-            completedCount++;
+    /**
+     * Request a single survey export for one window of the date range, recording it in the export
+     * mapping or the failure in the metadata.
+     *
+     * @return the export id, or null if the request failed
+     */
+    private String requestExport(Survey survey, DateRangeChunk chunk, int position, int total, Map<String, Integer> exportMapping) {
+        try {
+            if (chunk.isSplit()) {
+                logger.info("[{}/{}] Requesting export for survey id: {} (Name: '{}') - Date range: {}",
+                        position, total, survey.getPlatformFormId(), survey.getName(), chunk);
+            } else {
+                logger.info("[{}/{}] Requesting export for survey id: {} (Name: '{}')",
+                        position, total, survey.getPlatformFormId(), survey.getName());
+            }
+            String exportId = client.requestSurveyExport(survey.getPlatformFormId(), createExportRequest(chunk));
+            logger.info("[{}/{}] Requested export for survey id: {}, export id: {}",
+                    position, total, survey.getPlatformFormId(), exportId);
+            exportChunks.put(exportId, chunk);
+            if (chunkPlanner != null) {
+                chunkPlanner.submitted(exportId, survey.getPlatformFormId(), chunk);
+            }
+            if (journal != null) {
+                journal.submitted(exportId, survey.getPlatformFormId(), chunk);
+            }
+            exportMapping.put(exportId, survey.getPlatformFormId());
+            return exportId;
+        } catch (Exception e) {
+            logger.error(String.format(Constants.ErrorMessages.EXPORT_REQUEST_FAILED,
+                    survey.getPlatformFormId(), e.getMessage()));
+
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("surveyId", survey.getPlatformFormId());
+            failure.put("error", e.getMessage());
+            failure.put("stage", "export_request");
+            if (chunk.isSplit()) {
+                failure.put("chunk_index", chunk.getIndex());
+            }
+            exportMetadata.getFailures().add(failure);
+            return null;
+        }
+    }
 
-            try {
-                logger.info("[{}/{}] Downloading export: {}", completedCount, completedExports.size(), exportId);
-                Path filePath = client.downloadExport(exportId, outputDir);
-                Path relativePath = Paths.get("").toAbsolutePath().relativize(filePath);
-                logger.info("[{}/{}] Downloaded: {}", completedCount, completedExports.size(), relativePath);
-                downloadedFiles.add(filePath);
+    private List<Path> downloadCompletedExports(Map<String, ExportStatus> completedExports, Map<String, Integer> exportMapping) {
+        return downloadManager.downloadAll(completedExports, (exportId, status, position, total) ->
+                downloadCompletedExport(exportId, status, exportMapping.get(exportId), position, total));
+    }
 
-                Map<String, Object> exportDetail = new HashMap<>();
-                exportDetail.put("exportId", exportId);
-                exportDetail.put("status", status);
-
-                for (Map.Entry<Integer, String> mapping : exportMapping.entrySet()) {
-                    if (mapping.getValue().equals(exportId)) {
-                        exportDetailsBySurvey.put(mapping.getKey(), exportDetail);
-                        break;
-                    }
+    /**
+     * Download a single completed export, recording its details or the failure in the metadata.
+     * In streaming mode the export is extracted while it downloads; with a record sink its
+     * records are delivered to the sink instead.
+     *
+     * @return the downloaded file, or null if the download failed, the export was already extracted
+     *         or its records were delivered
+     */
+    private Path downloadCompletedExport(String exportId, ExportStatus status, Integer surveyId, int position, int total) {
+        try {
+            logger.info("[{}/{}] Downloading export: {}", position, total, exportId);
+            DateRangeChunk chunk = exportChunks.get(exportId);
+            Path targetDir = getChunkDirectory(chunk);
+            Map<String, Object> exportDetail = new HashMap<>();
+            exportDetail.put("exportId", exportId);
+            exportDetail.put("status", status);
+
+            Path filePath = null;
+            if (recordSink != null) {
+                long records = downloadManager.transferRecords(exportId, surveyId, recordSink, targetDir);
+                exportDetail.put("records", records);
+                logger.info("[{}/{}] Downloaded {} records of export: {}", position, total, records, exportId);
+            } else {
+                filePath = downloadManager.transfer(exportId, targetDir, streamExtract, extractionIndex);
+                if (filePath != null) {
+                    Path relativePath = Paths.get("").toAbsolutePath().relativize(filePath);
+                    logger.info("[{}/{}] Downloaded: {}", position, total, relativePath);
+                } else {
+                    logger.info("[{}/{}] Downloaded and extracted export: {}", position, total, exportId);
                 }
+            }
 
-            } catch (Exception e) {
-                logger.error(String.format(Constants.ErrorMessages.EXPORT_DOWNLOAD_FAILED, exportId, e.getMessage()));
-
-                Map<String, Object> failure = new HashMap<>();
-                failure.put("exportId", exportId);
-                failure.put("error", e.getMessage());
-                failure.put("stage", "download");
-                exportMetadata.getFailures().add(failure);
+            recordExportDetail(surveyId, chunk, exportDetail);
+            if (journal != null) {
+                journal.downloaded(exportId, filePath);
             }
+            if (surveyId != null && chunk != null) {
+                downloadedChunks.computeIfAbsent(surveyId, id -> Collections.synchronizedList(new ArrayList<>())).add(chunk);
+            }
+            return filePath;
+
+        } catch (Exception e) {
+            logger.error(String.format(Constants.ErrorMessages.EXPORT_DOWNLOAD_FAILED, exportId, e.getMessage()));
+
+            Map<String, Object> failure = new HashMap<>();
+            failure.put("exportId", exportId);
+            failure.put("error", e.getMessage());
+            failure.put("stage", "download");
+            exportMetadata.getFailures().add(failure);
+            return null;
+        }
+    }
+
+    /**
+     * Record a downloaded export in its survey's export details. The exports of a split date range
+     * are one logical export per survey, with each window listed under "chunks" in date order;
+     * the halves of a bisected window are listed in its place.
+     */
+    @SuppressWarnings("unchecked")
+    private void recordExportDetail(Integer surveyId, DateRangeChunk chunk, Map<String, Object> exportDetail) {
+        if (surveyId == null) {
+            return;
+        }
+        if (chunk == null || !chunk.isSplit()) {
+            exportDetailsBySurvey.put(surveyId, exportDetail);
+            return;
+        }
+
+        exportDetail.putAll(chunk.toMetadata());
+        Map<String, Object> surveyDetail = exportDetailsBySurvey.computeIfAbsent(surveyId, id -> {
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("total_chunks", chunk.getCount());
+            detail.put("chunks", new ArrayList<Map<String, Object>>());
+            return detail;
+        });
+        List<Map<String, Object>> chunkDetails = (List<Map<String, Object>>) surveyDetail.get("chunks");
+        synchronized (chunkDetails) {
+            chunkDetails.add(exportDetail);
+            chunkDetails.sort(Comparator.comparing(detail -> (Long) detail.get("chunk_start")));
         }
-        return downloadedFiles;
     }
 
     private void updateMetadata(Map<String, ExportStatus> completedExports) {
@@ -476,6 +1238,26 @@ public class SurveyDataExporter {
         exportMetadata.setEndTimestamp(endTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
         double durationSeconds = java.time.Duration.between(startTime, endTime).toMillis() / 1000.0;
         exportMetadata.setDurationSeconds(durationSeconds);
+        exportMetadata.setRateLimits(client.getRateLimitMetrics());
+        exportMetadata.setRetries(client.getRetryMetrics());
+        exportMetadata.setPolling(pollingMetrics);
+        exportMetadata.setDownloads(downloadManager.getMetrics());
+        Map<String, Object> extractionMetrics = extractionEngine.getMetrics();
+        extractionMetrics.put("virtual_view", virtualView);
+        if (extractionIndex != null) {
+            extractionMetrics.putAll(extractionIndex.getMetrics());
+            extractionIndex.save();
+        }
+        exportMetadata.setExtraction(extractionMetrics);
+        if (fileMerger != null) {
+            exportMetadata.setMerge(fileMerger.getMetrics());
+        }
+        if (columnarConverter != null) {
+            exportMetadata.setColumnar(columnarConverter.getMetrics());
+        }
+        if (chunkPlanner != null) {
+            exportMetadata.getDateRange().put("adaptive_chunking", chunkPlanner.getMetrics());
+        }
 
         saveExportMetadata();
 
@@ -483,6 +1265,7 @@ public class SurveyDataExporter {
         logger.info("Total surveys: {}", exportMetadata.getTotalSurveys());
         logger.info("Successful exports: {}", exportMetadata.getSuccessfulExports());
         logger.info("Failed exports: {}", exportMetadata.getFailedExports());
+        logger.info("API retries: {}", exportMetadata.getRetries().get("total_retries"));
         logger.info(String.format("Duration: %.2f seconds", exportMetadata.getDurationSeconds()));
         logger.info("Output directory: {}", outputDir);
     }
@@ -0,0 +1,233 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.utils.Helpers;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Merges the extracted files of each survey into one file, with independent surveys merged in
+ * parallel. Subclasses stream one format; this class finds the files, runs the pool and keeps the
+ * totals for the export metadata.
+ */
+public abstract class SurveyFileMerger {
+    private static final Logger logger = LoggerFactory.getLogger(SurveyFileMerger.class);
+
+    // survey_<platformFormId>_merged.<ext>, the output of an earlier merge in the same directory
+    private static final Pattern MERGED_FILENAME = Pattern.compile(Constants.Merge.MERGED_FILENAME_PATTERN);
+
+    private final int parallelism;
+    private final boolean removeSourceFiles;
+    private final AtomicInteger surveys = new AtomicInteger();
+    private final AtomicInteger files = new AtomicInteger();
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong firstStartNanos = new AtomicLong();
+    private final AtomicLong lastEndNanos = new AtomicLong();
+
+    protected SurveyFileMerger(int parallelism, boolean removeSourceFiles) {
+        this.parallelism = Math.max(1, parallelism);
+        this.removeSourceFiles = removeSourceFiles;
+    }
+
+    /**
+     * Extension of the files this merger reads, such as ".json"
+     */
+    protected abstract String getSourceExtension();
+
+    /**
+     * Name of the merged file of a survey
+     */
+    protected abstract String getMergedFilename(int platformFormId);
+
+    /**
+     * Write the records of the source files to target
+     *
+     * @return the number of records written
+     */
+    public abstract long merge(int platformFormId, List<Path> sources, Path target) throws IOException;
+
+    /**
+     * Group the extracted files under a directory by survey. A file belongs to a survey when a
+     * segment of its relative path is the platformFormId or starts with it followed by "_", as in
+     * responses/1973_Survey-Name/. Manifest files are skipped. When only one survey was exported,
+     * files that name no survey are assigned to it. Merged files are never sources, so merging a
+     * directory again reads the same files as the first merge.
+     *
+     * @return sorted files per platformFormId, for the surveys that have any
+     */
+    public Map<Integer, List<Path>> findSurveyFiles(Path directory, Collection<Integer> platformFormIds) throws IOException {
+        Map<Integer, List<Path>> filesBySurvey = new TreeMap<>();
+        List<Path> unassigned = new ArrayList<>();
+        for (Path file : findFiles(directory)) {
+            Integer surveyId = surveyOf(directory.relativize(file), platformFormIds);
+            if (surveyId != null) {
+                filesBySurvey.computeIfAbsent(surveyId, id -> new ArrayList<>()).add(file);
+            } else {
+                unassigned.add(file);
+            }
+        }
+        if (!unassigned.isEmpty()) {
+            if (platformFormIds.size() == 1) {
+                filesBySurvey.computeIfAbsent(platformFormIds.iterator().next(), id -> new ArrayList<>()).addAll(unassigned);
+            } else {
+                logger.debug("{} {} files name no exported survey and are not merged", unassigned.size(), getSourceExtension());
+            }
+        }
+        return filesBySurvey;
+    }
+
+    /**
+     * Every extracted file under a directory that this merger reads, sorted. Manifest files and
+     * merged files are skipped.
+     */
+    public List<Path> findFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) paths.filter(Files::isRegularFile).sorted()::iterator) {
+                String name = file.getFileName().toString();
+                if (name.toLowerCase(Locale.ROOT).endsWith(getSourceExtension())
+                        && !name.startsWith("manifest") && !name.startsWith(".")
+                        && !MERGED_FILENAME.matcher(name).matches()) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static Integer surveyOf(Path relativePath, Collection<Integer> platformFormIds) {
+        for (Path segment : relativePath) {
+            String text = segment.toString();
+            int end = 0;
+            while (end < text.length() && Character.isDigit(text.charAt(end))) {
+                end++;
+            }
+            if (end > 0 && end <= 9 && (end == text.length() || text.charAt(end) == '_')) {
+                int id = Integer.parseInt(text.substring(0, end));
+                if (platformFormIds.contains(id)) {
+                    return id;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Merge every survey's files into outputDir with up to parallelism surveys at a time. A survey
+     * that fails to merge is logged and left unmerged.
+     *
+     * @return the merged file of each survey that was merged
+     */
+    public Map<Integer, Path> mergeAll(Map<Integer, List<Path>> filesBySurvey, Path outputDir) {
+        Map<Integer, Path> merged = new TreeMap<>();
+        if (filesBySurvey.isEmpty()) {
+            return merged;
+        }
+
+        int poolSize = Math.min(parallelism, filesBySurvey.size());
+        logger.info("Merging {} files of {} surveys with up to {} in parallel", getSourceExtension(),
+                filesBySurvey.size(), poolSize);
+
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize, Helpers.namedThreadFactory("survey-merge"));
+        try {
+            Map<Integer, Future<Path>> merges = new LinkedHashMap<>();
+            for (Map.Entry<Integer, List<Path>> entry : filesBySurvey.entrySet()) {
+                Path target = outputDir.resolve(getMergedFilename(entry.getKey()));
+                merges.put(entry.getKey(), executor.submit(() -> mergeSurvey(entry.getKey(), entry.getValue(), target)));
+            }
+
+            for (Map.Entry<Integer, Future<Path>> entry : merges.entrySet()) {
+                Path target = entry.getValue().get();
+                if (target != null) {
+                    merged.put(entry.getKey(), target);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Merge interrupted; {} surveys were merged", merged.size());
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return merged;
+    }
+
+    private Path mergeSurvey(int platformFormId, List<Path> surveyFiles, Path target) {
+        long start = System.nanoTime();
+        firstStartNanos.compareAndSet(0L, start);
+        // Written to a .part file and renamed, so the target is never truncated while it is still read
+        Path partFile = target.resolveSibling(target.getFileName() + Constants.Download.PART_FILE_SUFFIX);
+        List<Path> sources = new ArrayList<>();
+        for (Path source : surveyFiles) {
+            if (!source.toAbsolutePath().normalize().equals(target.toAbsolutePath().normalize())) {
+                sources.add(source);
+            }
+        }
+        try {
+            long count = merge(platformFormId, sources, partFile);
+            FileTransfer.moveIntoPlace(partFile, target);
+            long size = Files.size(target);
+            surveys.incrementAndGet();
+            files.addAndGet(sources.size());
+            records.addAndGet(count);
+            bytes.addAndGet(size);
+            logger.info("Merged {} records from {} files of survey {} into {}", count, sources.size(), platformFormId,
+                    target.getFileName());
+
+            if (removeSourceFiles) {
+                for (Path source : sources) {
+                    Files.deleteIfExists(source);
+                }
+            }
+            return target;
+        } catch (IOException e) {
+            logger.error("Failed to merge files of survey {}: {}", platformFormId, e.getMessage());
+            try {
+                Files.deleteIfExists(partFile);
+            } catch (IOException deleteFailure) {
+                logger.debug("Could not remove partial merge {}: {}", target, deleteFailure.getMessage());
+            }
+            return null;
+        } finally {
+            lastEndNanos.accumulateAndGet(System.nanoTime(), Math::max);
+        }
+    }
+
+    /**
+     * Snapshot of merged surveys, files and records for the export metadata
+     */
+    public Map<String, Object> getMetrics() {
+        long elapsedNanos = Math.max(0L, lastEndNanos.get() - firstStartNanos.get());
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("surveys", surveys.get());
+        metrics.put("files", files.get());
+        metrics.put("records", records.get());
+        metrics.put("bytes", bytes.get());
+        metrics.put("seconds", Math.round(seconds * 100) / 100.0);
+        metrics.put("parallelism", parallelism);
+        return metrics;
+    }
+}
@@ -12,26 +12,42 @@ import com.vibrenthealth.apiclient.models.ExportStatus;
 import com.vibrenthealth.apiclient.models.ParticipantProfilesExportRequest;
 import com.vibrenthealth.apiclient.models.Survey;
 import com.vibrenthealth.apiclient.models.WideFormatReportRequest;
+import com.vibrenthealth.apiclient.utils.Helpers;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.channels.FileChannel;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * Main client for interacting with Vibrent Health APIs
+ * Main client for interacting with Vibrent Health APIs. Close it when done to stop the threads
+ * and connections of its asynchronous calls.
  */
-public class VibrentHealthAPIClient {
+public class VibrentHealthAPIClient implements Closeable {
     private static final Logger logger = LoggerFactory.getLogger(VibrentHealthAPIClient.class);
 
     private final ConfigManager configManager;
@@ -41,6 +57,15 @@ public class VibrentHealthAPIClient {
     private final int timeout;
     private final OkHttpClient httpClient;
     private final ObjectMapper objectMapper;
+    private final Map<String, AdaptiveRateLimiter> rateLimiters;
+    private final RetryPolicy retryPolicy;
+    private final BandwidthLimiter downloadBandwidth;
+    private final SegmentedDownloader segmentedDownloader;
+    private final long segmentThresholdBytes;
+    private final OkHttpClient asyncHttpClient;
+    private final ScheduledExecutorService asyncScheduler;
+    private final Set<CompletableFuture<Response>> pendingAsyncCalls = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
 
     public VibrentHealthAPIClient(ConfigManager configManager, String environment) {
         this.configManager = configManager;
@@ -69,37 +94,167 @@ public class VibrentHealthAPIClient {
                 .build();
 
         this.objectMapper = new ObjectMapper();
+
+        // One adaptive rate limiter per endpoint class, configured under api.rate_limits
+        this.rateLimiters = new LinkedHashMap<>();
+        for (String endpointClass : List.of(Constants.EndpointClass.FORMS, Constants.EndpointClass.EXPORT_REQUEST,
+                Constants.EndpointClass.STATUS, Constants.EndpointClass.DOWNLOAD)) {
+            rateLimiters.put(endpointClass,
+                    AdaptiveRateLimiter.fromConfig(endpointClass, configManager.getRateLimitConfig(endpointClass)));
+        }
+        this.retryPolicy = RetryPolicy.fromConfig(configManager.getRetryConfig());
+
+        // Global byte-rate cap shared by all downloads (export.download.max_bytes_per_second)
+        Map<String, Object> downloadConfig = configManager.getDownloadConfig();
+        Object maxBytesPerSecond = downloadConfig.get(Constants.ConfigKeys.MAX_BYTES_PER_SECOND);
+        this.downloadBandwidth = maxBytesPerSecond instanceof Number
+                ? new BandwidthLimiter(((Number) maxBytesPerSecond).longValue())
+                : null;
+
+        // Optional parallel range download for large files (export.download.segmented)
+        @SuppressWarnings("unchecked")
+        Map<String, Object> segmentedConfig = (Map<String, Object>) downloadConfig.getOrDefault(
+                Constants.ConfigKeys.SEGMENTED, Collections.emptyMap());
+        this.segmentedDownloader = Boolean.TRUE.equals(segmentedConfig.get(Constants.ConfigKeys.ENABLED))
+                ? new SegmentedDownloader(((Number) segmentedConfig.getOrDefault(Constants.ConfigKeys.SEGMENTS,
+                        Constants.Download.DEFAULT_SEGMENTS)).intValue(), downloadBandwidth, retryPolicy)
+                : null;
+        this.segmentThresholdBytes = ((Number) segmentedConfig.getOrDefault(Constants.ConfigKeys.THRESHOLD_BYTES,
+                Constants.Download.DEFAULT_SEGMENT_THRESHOLD_BYTES)).longValue();
+
+        // Async calls share the connection pool but get their own dispatcher limits (api.async)
+        Map<String, Object> asyncConfig = configManager.getAsyncConfig();
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(((Number) asyncConfig.getOrDefault(Constants.ConfigKeys.MAX_REQUESTS,
+                Constants.Async.DEFAULT_MAX_REQUESTS)).intValue());
+        dispatcher.setMaxRequestsPerHost(((Number) asyncConfig.getOrDefault(Constants.ConfigKeys.MAX_REQUESTS_PER_HOST,
+                Constants.Async.DEFAULT_MAX_REQUESTS_PER_HOST)).intValue());
+        this.asyncHttpClient = httpClient.newBuilder().dispatcher(dispatcher).build();
+        this.asyncScheduler = Executors.newSingleThreadScheduledExecutor(Helpers.namedThreadFactory("api-async-scheduler"));
     }
 
     /**
-     * Make an authenticated request to the API
+     * Make an authenticated, rate limited request to the API, retrying transient failures
+     * according to the retry policy
      */
-    private Response makeRequest(String method, String endpoint, RequestBody body) throws IOException {
-        String token = authManager.getValidToken();
+    private Response makeRequest(String endpointClass, String method, String endpoint, RequestBody body) throws IOException {
+        return makeRequest(endpointClass, method, endpoint, body, Collections.emptyMap());
+    }
+
+    private Response makeRequest(String endpointClass, String method, String endpoint, RequestBody body,
+                                 Map<String, String> headers) throws IOException {
+        AdaptiveRateLimiter rateLimiter = rateLimiters.get(endpointClass);
         String url = baseUrl + endpoint;
+        int attempt = 0;
+
+        while (true) {
+            attempt++;
+            try {
+                rateLimiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for " + endpointClass + " rate limit");
+            }
 
-        Request.Builder requestBuilder = new Request.Builder()
-                .url(url)
-                .addHeader(Constants.Headers.AUTHORIZATION, "Bearer " + token);
+            String token = authManager.getValidToken();
 
-        if (body != null) {
-            requestBuilder.method(method, body);
-        } else {
-            requestBuilder.method(method, null);
-        }
+            Request.Builder requestBuilder = new Request.Builder()
+                    .url(url)
+                    .addHeader(Constants.Headers.AUTHORIZATION, "Bearer " + token);
+            headers.forEach(requestBuilder::addHeader);
+
+            if (body != null) {
+                requestBuilder.method(method, body);
+            } else {
+                requestBuilder.method(method, null);
+            }
 
-        Request request = requestBuilder.build();
-        Response response = httpClient.newCall(request).execute();
+            Request request = requestBuilder.build();
+            Response response;
+            try {
+                response = httpClient.newCall(request).execute();
+            } catch (IOException e) {
+                if (!retryPolicy.isRetryable(method, e) || !retryPolicy.tryRetry(endpointClass, attempt)) {
+                    throw e;
+                }
+                long delay = retryPolicy.getDelayMillis(attempt, null);
+                logger.warn("{} {} failed ({}); retry {} in {} ms", method, endpoint, e.getMessage(), attempt, delay);
+                sleepBeforeRetry(delay);
+                continue;
+            }
+
+            if (response.code() == Constants.RateLimit.HTTP_TOO_MANY_REQUESTS
+                    || response.code() == Constants.RateLimit.HTTP_SERVICE_UNAVAILABLE) {
+                rateLimiter.onThrottle();
+            } else if (response.isSuccessful()) {
+                rateLimiter.onSuccess();
+            }
+
+            if (response.isSuccessful()) {
+                return response;
+            }
 
-        if (!response.isSuccessful()) {
             String errorBody = response.body() != null ? response.body().string() : "No response body";
+            String retryAfter = response.header(Constants.Headers.RETRY_AFTER);
+            response.close();
+
+            if (retryPolicy.isRetryable(method, response.code()) && retryPolicy.tryRetry(endpointClass, attempt)) {
+                long delay = retryPolicy.getDelayMillis(attempt, retryAfter);
+                logger.warn("{} {} returned HTTP {}; retry {} in {} ms", method, endpoint, response.code(), attempt, delay);
+                sleepBeforeRetry(delay);
+                continue;
+            }
+
             throw new AuthenticationManager.VibrentHealthAPIError(
                     String.format(Constants.ErrorMessages.API_REQUEST_FAILED,
-                            "HTTP " + response.code() + ": " + errorBody)
+                            "HTTP " + response.code() + ": " + errorBody),
+                    response.code()
             );
         }
+    }
+
+    private void sleepBeforeRetry(long delayMillis) throws InterruptedIOException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+
+    /**
+     * Retry counters for this client (total, per endpoint class and remaining budget)
+     */
+    public Map<String, Object> getRetryMetrics() {
+        return retryPolicy.getMetrics();
+    }
+
+    /**
+     * Global download byte-rate cap, or null if downloads are not throttled
+     */
+    public Long getDownloadBandwidthLimit() {
+        return downloadBandwidth != null ? downloadBandwidth.getBytesPerSecond() : null;
+    }
+
+    /**
+     * Current permitted request rate for an endpoint class, in requests per second
+     */
+    public double getCurrentRate(String endpointClass) {
+        return rateLimiters.get(endpointClass).getCurrentRate();
+    }
 
-        return response;
+    /**
+     * Snapshot of the rate limiter state for every endpoint class
+     */
+    public Map<String, Object> getRateLimitMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Map.Entry<String, AdaptiveRateLimiter> entry : rateLimiters.entrySet()) {
+            Map<String, Object> limiterMetrics = new LinkedHashMap<>();
+            limiterMetrics.put("current_rate", entry.getValue().getCurrentRate());
+            limiterMetrics.put("throttled_responses", entry.getValue().getThrottleCount());
+            metrics.put(entry.getKey(), limiterMetrics);
+        }
+        return metrics;
     }
 
     /**
@@ -126,7 +281,7 @@ public class VibrentHealthAPIClient {
                 endpoint = endpoint + "?dateFrom=" + dateFrom + "&dateTo=" + dateTo;
             }
 
-            Response response = makeRequest("GET", endpoint, null);
+            Response response = makeRequest(Constants.EndpointClass.FORMS, "GET", endpoint, null);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -166,7 +321,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", endpoint, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", endpoint, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -191,7 +346,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", endpoint, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", endpoint, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -216,7 +371,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", endpoint, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", endpoint, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -240,7 +395,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", Constants.APIEndpoints.EHR_MULTI_EXPORT_REQUEST, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", Constants.APIEndpoints.EHR_MULTI_EXPORT_REQUEST, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -265,7 +420,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", endpoint, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", endpoint, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -289,7 +444,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", Constants.APIEndpoints.DEVICE_MULTI_EXPORT_REQUEST, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", Constants.APIEndpoints.DEVICE_MULTI_EXPORT_REQUEST, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -313,7 +468,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", Constants.APIEndpoints.PARTICIPANT_PROFILES_EXPORT_REQUEST, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", Constants.APIEndpoints.PARTICIPANT_PROFILES_EXPORT_REQUEST, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -337,7 +492,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", Constants.APIEndpoints.COMMUNICATION_EVENTS_EXPORT_REQUEST, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", Constants.APIEndpoints.COMMUNICATION_EVENTS_EXPORT_REQUEST, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -365,7 +520,7 @@ public class VibrentHealthAPIClient {
             String jsonBody = objectMapper.writeValueAsString(exportRequest);
 
             RequestBody body = RequestBody.create(jsonBody, MediaType.get("application/json"));
-            Response response = makeRequest("POST", Constants.APIEndpoints.BULK_SURVEY_EXPORT_REQUEST, body);
+            Response response = makeRequest(Constants.EndpointClass.EXPORT_REQUEST, "POST", Constants.APIEndpoints.BULK_SURVEY_EXPORT_REQUEST, body);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -387,7 +542,7 @@ public class VibrentHealthAPIClient {
     public ExportStatus getExportStatus(String exportId) {
         try {
             String endpoint = Constants.APIEndpoints.EXPORT_STATUS.replace("{export_id}", exportId);
-            Response response = makeRequest("GET", endpoint, null);
+            Response response = makeRequest(Constants.EndpointClass.STATUS, "GET", endpoint, null);
 
             if (response.body() != null) {
                 String responseBody = response.body().string();
@@ -405,43 +560,630 @@ public class VibrentHealthAPIClient {
     }
 
     /**
-     * Download an export file
+     * Download an export file.
+     *
+     * The file is written to a .part file and renamed once its length is verified. If the
+     * transfer breaks, it is resumed from the bytes already written with a Range request;
+     * a server that does not honour the range gets a full re-download. With segmented downloads
+     * enabled, files above the size threshold are fetched as parallel byte ranges instead.
      */
     public Path downloadExport(String exportId, Path outputPath) {
-        try {
-            String endpoint = Constants.APIEndpoints.EXPORT_DOWNLOAD.replace("{export_id}", exportId);
-            Response response = makeRequest("GET", endpoint, null);
+        String endpoint = Constants.APIEndpoints.EXPORT_DOWNLOAD.replace("{export_id}", exportId);
+        Path partFile = getPartFile(exportId, outputPath);
+        int attempt = 0;
 
-            // Determine filename
-            String filename = "export_" + exportId + ".zip";
-            String contentDisposition = response.header("Content-Disposition");
-            if (contentDisposition != null && contentDisposition.contains("filename=")) {
-                filename = exportId + "_" + contentDisposition.split("filename=")[1].replace("\"", "");
+        try {
+            if (segmentedDownloader != null && !Files.exists(partFile)) {
+                Path filePath = downloadSegmented(exportId, endpoint, outputPath);
+                if (filePath != null) {
+                    return filePath;
+                }
             }
 
-            Path filePath = outputPath.resolve(filename);
+            while (true) {
+                attempt++;
+                long resumeFrom = Files.exists(partFile) ? Files.size(partFile) : 0L;
+                Map<String, String> headers = resumeFrom > 0
+                        ? Map.of(Constants.Headers.RANGE, "bytes=" + resumeFrom + "-")
+                        : Collections.emptyMap();
 
-            // Ensure output directory exists
-            Files.createDirectories(outputPath);
-
-            // Write file
-            if (response.body() != null) {
-                try (InputStream inputStream = response.body().byteStream();
-                     FileOutputStream outputStream = new FileOutputStream(filePath.toFile())) {
-
-                    byte[] buffer = new byte[8192];
-                    int bytesRead;
-                    while ((bytesRead = inputStream.read(buffer)) != -1) {
-                        outputStream.write(buffer, 0, bytesRead);
+                try (Response response = makeRequest(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null, headers)) {
+                    return writeExportFile(exportId, response, outputPath, resumeFrom);
+                } catch (AuthenticationManager.VibrentHealthAPIError e) {
+                    if (resumeFrom > 0 && e.getStatusCode() != null
+                            && e.getStatusCode() == Constants.Download.HTTP_RANGE_NOT_SATISFIABLE) {
+                        logger.warn("Cannot resume download of {} from byte {}; downloading from the start", exportId, resumeFrom);
+                        Files.deleteIfExists(partFile);
+                        continue;
+                    }
+                    throw e;
+                } catch (IOException e) {
+                    if (!retryPolicy.isRetryable("GET", e) || !retryPolicy.tryRetry(Constants.EndpointClass.DOWNLOAD, attempt)) {
+                        throw e;
                     }
+                    long delay = retryPolicy.getDelayMillis(attempt, null);
+                    logger.warn("Download of {} broke off at {} bytes ({}); resuming in {} ms",
+                            exportId, Files.exists(partFile) ? Files.size(partFile) : 0L, e.getMessage(), delay);
+                    sleepBeforeRetry(delay);
                 }
             }
-
-            return filePath;
         } catch (IOException e) {
             throw new AuthenticationManager.VibrentHealthAPIError(
                     String.format(Constants.ErrorMessages.EXPORT_DOWNLOAD_FAILED, exportId, e.getMessage())
             );
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Download an export and extract its entries as the archive arrives, without writing the
+     * archive to disk.
+     *
+     * A broken transfer is not resumed. Callers fall back to {@link #downloadExport} when this
+     * fails, including with {@link StreamingExtractor.UnsupportedArchiveException} for archives
+     * that can only be read through their central directory.
+     *
+     * @param index index of previously extracted entries, or null to always extract
+     * @return number of archive bytes downloaded
+     */
+    public long downloadAndExtractExport(String exportId, Path outputPath, ExtractionIndex index) throws IOException {
+        String endpoint = Constants.APIEndpoints.EXPORT_DOWNLOAD.replace("{export_id}", exportId);
+        Files.createDirectories(outputPath);
+
+        try (Response response = makeRequest(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null)) {
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                throw new IOException("Empty response body");
+            }
+
+            long archiveBytes = StreamingExtractor.extract(responseBody.byteStream(), outputPath, downloadBandwidth, index);
+            long contentLength = responseBody.contentLength();
+            if (contentLength >= 0 && archiveBytes != contentLength) {
+                throw new IOException(String.format("Incomplete download: %d of %d bytes", archiveBytes, contentLength));
+            }
+            return archiveBytes;
+        }
+    }
+
+    /**
+     * Download an export and deliver its records to the sink as the archive arrives, without
+     * writing anything to disk.
+     *
+     * A broken transfer is not resumed. Callers fall back to {@link #downloadExport} and
+     * {@link RecordStreamer#streamFile} when this fails, passing the same delivered counts so the
+     * sink does not receive a record twice; a {@link RecordStreamer.SinkException} should fail the
+     * export instead.
+     *
+     * @param platformFormId survey the export was requested for, or null if it is not known
+     * @param delivered      records already delivered from each entry, updated as records are delivered
+     * @return number of archive bytes downloaded
+     */
+    public long downloadAndStreamRecords(String exportId, Integer platformFormId, RecordSink sink,
+                                         Map<String, Long> delivered) throws IOException {
+        String endpoint = Constants.APIEndpoints.EXPORT_DOWNLOAD.replace("{export_id}", exportId);
+
+        try (Response response = makeRequest(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null)) {
+            ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                throw new IOException("Empty response body");
+            }
+
+            long archiveBytes = RecordStreamer.stream(responseBody.byteStream(), exportId, platformFormId, sink,
+                    downloadBandwidth, delivered);
+            long contentLength = responseBody.contentLength();
+            if (contentLength >= 0 && archiveBytes != contentLength) {
+                throw new IOException(String.format("Incomplete download: %d of %d bytes", archiveBytes, contentLength));
+            }
+            return archiveBytes;
+        }
+    }
+
+    private Path getPartFile(String exportId, Path outputPath) {
+        return outputPath.resolve("export_" + exportId + ".zip" + Constants.Download.PART_FILE_SUFFIX);
+    }
+
+    /**
+     * Probe the file size with a one-byte range request and, if the server supports ranges and the
+     * file is above the segment threshold, download it as parallel byte ranges.
+     *
+     * @return the downloaded file, or null if the file should be fetched as a single stream
+     */
+    private Path downloadSegmented(String exportId, String endpoint, Path outputPath) throws IOException {
+        String filename;
+        long totalLength;
+        try (Response probe = makeRequest(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null,
+                Map.of(Constants.Headers.RANGE, "bytes=0-0"))) {
+            long[] range = parseContentRange(probe.header(Constants.Headers.CONTENT_RANGE));
+            if (probe.code() != Constants.Download.HTTP_PARTIAL_CONTENT || range == null || range[1] < segmentThresholdBytes) {
+                return null;
+            }
+            filename = getExportFileName(exportId, probe);
+            totalLength = range[1];
+        } catch (AuthenticationManager.VibrentHealthAPIError e) {
+            if (e.getStatusCode() != null && e.getStatusCode() == Constants.Download.HTTP_RANGE_NOT_SATISFIABLE) {
+                return null;
+            }
+            throw e;
+        }
+
+        Path filePath = outputPath.resolve(filename);
+        Path partFile = getPartFile(exportId, outputPath);
+        Files.createDirectories(outputPath);
+        logger.info("Downloading {} ({} bytes) as parallel byte ranges", exportId, totalLength);
+
+        try {
+            segmentedDownloader.download((start, end) -> {
+                Response response = makeRequest(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null,
+                        Map.of(Constants.Headers.RANGE, "bytes=" + start + "-" + end));
+                long[] range = parseContentRange(response.header(Constants.Headers.CONTENT_RANGE));
+                if (response.code() != Constants.Download.HTTP_PARTIAL_CONTENT || range == null || range[0] != start
+                        || response.body() == null) {
+                    response.close();
+                    throw new IOException("Server did not return range " + start + "-" + end);
+                }
+                return response.body().source();
+            }, totalLength, partFile);
+        } catch (IOException e) {
+            // A preallocated part file has holes, so it must not be resumed by length
+            Files.deleteIfExists(partFile);
+            logger.warn("Segmented download of {} failed ({}); falling back to a single stream", exportId, e.getMessage());
+            return null;
+        }
+
+        FileTransfer.moveIntoPlace(partFile, filePath);
+        return filePath;
+    }
+
+    /**
+     * File name for an export, from the Content-Disposition header when present
+     */
+    private String getExportFileName(String exportId, Response response) {
+        String filename = "export_" + exportId + ".zip";
+        String contentDisposition = response.header("Content-Disposition");
+        if (contentDisposition != null && contentDisposition.contains("filename=")) {
+            filename = exportId + "_" + contentDisposition.split("filename=")[1].replace("\"", "");
+        }
+        return filename;
+    }
+
+    /**
+     * Write a download response to the export's .part file, verify its length and rename it to
+     * the final file name
+     *
+     * @param resumeFrom length of the existing .part file the request asked to resume from
+     */
+    private Path writeExportFile(String exportId, Response response, Path outputPath, long resumeFrom) throws IOException {
+        Path filePath = outputPath.resolve(getExportFileName(exportId, response));
+        Path partFile = getPartFile(exportId, outputPath);
+
+        // Ensure output directory exists
+        Files.createDirectories(outputPath);
+
+        ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            throw new IOException("Empty response body");
+        }
+
+        // Append only when the server answered the range request with the bytes we asked for
+        boolean append = false;
+        long contentLength = responseBody.contentLength();
+        Long expectedLength = contentLength >= 0 ? contentLength : null;
+        if (resumeFrom > 0 && response.code() == Constants.Download.HTTP_PARTIAL_CONTENT) {
+            long[] range = parseContentRange(response.header(Constants.Headers.CONTENT_RANGE));
+            if (range == null || range[0] != resumeFrom) {
+                Files.deleteIfExists(partFile);
+                throw new IOException("Unexpected Content-Range for resumed download: "
+                        + response.header(Constants.Headers.CONTENT_RANGE));
+            }
+            append = true;
+            if (range[1] >= 0) {
+                expectedLength = range[1];
+            } else if (expectedLength != null) {
+                expectedLength = resumeFrom + expectedLength;
+            }
+            logger.info("Resuming download of {} from byte {}", exportId, resumeFrom);
+        } else if (resumeFrom > 0) {
+            logger.info("Server does not support resuming {}; downloading from the start", exportId);
+        }
+
+        // Write file
+        try (BufferedSource source = responseBody.source();
+             FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     append ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            FileTransfer.copy(source, channel, downloadBandwidth);
+        }
+
+        // Verify the length before the file becomes visible under its final name
+        long actualLength = Files.size(partFile);
+        if (expectedLength != null && actualLength != expectedLength) {
+            if (actualLength > expectedLength) {
+                Files.deleteIfExists(partFile);
+            }
+            throw new IOException(String.format("Incomplete download: %d of %d bytes", actualLength, expectedLength));
+        }
+
+        FileTransfer.moveIntoPlace(partFile, filePath);
+        return filePath;
+    }
+
+    /**
+     * Parse a Content-Range header of the form "bytes start-end/total"
+     *
+     * @return start offset and total length (-1 if unknown), or null if the header is malformed
+     */
+    private static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        try {
+            String[] rangeAndTotal = contentRange.substring("bytes ".length()).trim().split("/");
+            long start = Long.parseLong(rangeAndTotal[0].split("-")[0].trim());
+            long total = rangeAndTotal.length > 1 && !"*".equals(rangeAndTotal[1].trim())
+                    ? Long.parseLong(rangeAndTotal[1].trim()) : -1L;
+            return new long[]{start, total};
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------------
+    // Asynchronous API
+    //
+    // Each method mirrors its blocking counterpart but returns immediately with a
+    // CompletableFuture completed from OkHttp's dispatcher threads. Calls go through the
+    // same rate limiters and retry policy as the blocking API. Failures complete the
+    // future with VibrentHealthAPIError.
+    // ---------------------------------------------------------------------
+
+    /**
+     * Get list of available surveys asynchronously
+     */
+    public CompletableFuture<List<Survey>> getSurveysAsync() {
+        return translateErrors(
+                makeRequestAsync(Constants.EndpointClass.FORMS, "GET", Constants.APIEndpoints.SURVEYS, null)
+                        .thenApply(response -> readBody(response, responseBody -> {
+                            List<Map<String, Object>> surveysData = objectMapper.readValue(responseBody,
+                                    new TypeReference<List<Map<String, Object>>>() {
+                                    });
+                            List<Survey> surveys = new ArrayList<>();
+                            for (Map<String, Object> surveyData : surveysData) {
+                                try {
+                                    surveys.add(Survey.fromMap(surveyData));
+                                } catch (Exception e) {
+                                    logger.warn("Failed to create Survey object from data: {}", e.getMessage());
+                                }
+                            }
+                            return surveys;
+                        })),
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request export for a specific survey asynchronously
+     */
+    public CompletableFuture<String> requestSurveyExportAsync(int surveyId, ExportRequest exportRequest) {
+        return submitExportAsync(
+                Constants.APIEndpoints.EXPORT_REQUEST.replace("{survey_id}", String.valueOf(surveyId)),
+                exportRequest,
+                message -> String.format(Constants.ErrorMessages.EXPORT_REQUEST_FAILED, surveyId, message));
+    }
+
+    /**
+     * Request wide-format (V2) export for a specific survey asynchronously
+     */
+    public CompletableFuture<String> requestSurveyV2ExportAsync(int surveyId, WideFormatReportRequest exportRequest) {
+        return submitExportAsync(
+                Constants.APIEndpoints.EXPORT_REQUEST_V2.replace("{survey_id}", String.valueOf(surveyId)),
+                exportRequest,
+                message -> String.format(Constants.ErrorMessages.EXPORT_REQUEST_FAILED, surveyId, message));
+    }
+
+    /**
+     * Request EHR export for a single participant asynchronously
+     */
+    public CompletableFuture<String> requestEhrExportAsync(long participantId, EHRExportRequest exportRequest) {
+        return submitExportAsync(
+                Constants.APIEndpoints.EHR_EXPORT_REQUEST.replace("{participant_id}", String.valueOf(participantId)),
+                exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request EHR export for multiple participants asynchronously
+     */
+    public CompletableFuture<String> requestMultiEhrExportAsync(EHRExportRequest exportRequest) {
+        return submitExportAsync(Constants.APIEndpoints.EHR_MULTI_EXPORT_REQUEST, exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request device data export for a single participant asynchronously
+     */
+    public CompletableFuture<String> requestDeviceExportAsync(long participantId, DeviceDataExportRequest exportRequest) {
+        return submitExportAsync(
+                Constants.APIEndpoints.DEVICE_EXPORT_REQUEST.replace("{participant_id}", String.valueOf(participantId)),
+                exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request device data export for multiple participants asynchronously
+     */
+    public CompletableFuture<String> requestMultiDeviceExportAsync(DeviceDataExportRequest exportRequest) {
+        return submitExportAsync(Constants.APIEndpoints.DEVICE_MULTI_EXPORT_REQUEST, exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request participant profiles batch export asynchronously
+     */
+    public CompletableFuture<String> requestParticipantProfilesExportAsync(ParticipantProfilesExportRequest exportRequest) {
+        return submitExportAsync(Constants.APIEndpoints.PARTICIPANT_PROFILES_EXPORT_REQUEST, exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request communication events batch export asynchronously
+     */
+    public CompletableFuture<String> requestCommunicationEventsExportAsync(CommunicationEventsExportRequest exportRequest) {
+        return submitExportAsync(Constants.APIEndpoints.COMMUNICATION_EVENTS_EXPORT_REQUEST, exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Request bulk survey export for multiple surveys in a single call asynchronously
+     */
+    public CompletableFuture<String> requestBulkSurveyExportAsync(BulkSurveyExportRequest exportRequest) {
+        return submitExportAsync(Constants.APIEndpoints.BULK_SURVEY_EXPORT_REQUEST, exportRequest,
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Get status of an export request asynchronously
+     */
+    public CompletableFuture<ExportStatus> getExportStatusAsync(String exportId) {
+        String endpoint = Constants.APIEndpoints.EXPORT_STATUS.replace("{export_id}", exportId);
+        return translateErrors(
+                makeRequestAsync(Constants.EndpointClass.STATUS, "GET", endpoint, null)
+                        .thenApply(response -> readBody(response, responseBody -> ExportStatus.fromMap(
+                                objectMapper.readValue(responseBody, new TypeReference<Map<String, Object>>() {
+                                })))),
+                message -> String.format(Constants.ErrorMessages.API_REQUEST_FAILED, message));
+    }
+
+    /**
+     * Download an export file asynchronously. The file is written on an OkHttp dispatcher thread
+     * through a .part file like {@link #downloadExport}, but a broken transfer is not resumed.
+     */
+    public CompletableFuture<Path> downloadExportAsync(String exportId, Path outputPath) {
+        String endpoint = Constants.APIEndpoints.EXPORT_DOWNLOAD.replace("{export_id}", exportId);
+        return translateErrors(
+                makeRequestAsync(Constants.EndpointClass.DOWNLOAD, "GET", endpoint, null)
+                        .thenApply(response -> {
+                            try (response) {
+                                return writeExportFile(exportId, response, outputPath, 0L);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }),
+                message -> String.format(Constants.ErrorMessages.EXPORT_DOWNLOAD_FAILED, exportId, message));
+    }
+
+    /**
+     * Submit an export request body and resolve to the returned export id
+     */
+    private CompletableFuture<String> submitExportAsync(String endpoint, Object exportRequest,
+                                                        Function<String, String> errorMessage) {
+        RequestBody body;
+        try {
+            body = RequestBody.create(objectMapper.writeValueAsString(exportRequest), MediaType.get("application/json"));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new AuthenticationManager.VibrentHealthAPIError(errorMessage.apply(e.getMessage())));
+        }
+
+        return translateErrors(
+                makeRequestAsync(Constants.EndpointClass.EXPORT_REQUEST, "POST", endpoint, body)
+                        .thenApply(response -> readBody(response,
+                                responseBody -> objectMapper.readTree(responseBody).get("exportId").asText())),
+                errorMessage);
+    }
+
+    /**
+     * Body parser that may fail with an IOException
+     */
+    @FunctionalInterface
+    private interface BodyParser<T> {
+        T parse(String responseBody) throws IOException;
+    }
+
+    private <T> T readBody(Response response, BodyParser<T> parser) {
+        try (response) {
+            if (response.body() == null) {
+                throw new AuthenticationManager.VibrentHealthAPIError("Empty response body");
+            }
+            return parser.parse(response.body().string());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Complete with VibrentHealthAPIError for I/O failures, matching the blocking API
+     */
+    private <T> CompletableFuture<T> translateErrors(CompletableFuture<T> future, Function<String, String> errorMessage) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof UncheckedIOException) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof IOException) {
+                result.completeExceptionally(new AuthenticationManager.VibrentHealthAPIError(errorMessage.apply(cause.getMessage())));
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Asynchronous counterpart of makeRequest: waits for a rate limit permit without blocking,
+     * enqueues the call and retries transient failures on the async scheduler
+     */
+    private CompletableFuture<Response> makeRequestAsync(String endpointClass, String method, String endpoint, RequestBody body) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        pendingAsyncCalls.add(future);
+        future.whenComplete((response, error) -> pendingAsyncCalls.remove(future));
+        if (closed) {
+            future.completeExceptionally(new IOException("client closed"));
+            return future;
+        }
+        acquireAndEnqueue(endpointClass, method, endpoint, body, 1, future);
+        return future;
+    }
+
+    private void acquireAndEnqueue(String endpointClass, String method, String endpoint, RequestBody body,
+                                   int attempt, CompletableFuture<Response> future) {
+        long waitNanos = rateLimiters.get(endpointClass).reserve();
+        if (waitNanos > 0) {
+            try {
+                asyncScheduler.schedule(() -> enqueueAttempt(endpointClass, method, endpoint, body, attempt, future),
+                        waitNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        } else {
+            enqueueAttempt(endpointClass, method, endpoint, body, attempt, future);
+        }
+    }
+
+    /**
+     * Fetch the access token on the dispatcher's threads, since a token refresh blocks, then enqueue
+     * the call. The scheduler thread only times permits and retries.
+     */
+    private void enqueueAttempt(String endpointClass, String method, String endpoint, RequestBody body,
+                                int attempt, CompletableFuture<Response> future) {
+        if (future.isDone()) {
+            return;
+        }
+
+        CompletableFuture<String> token;
+        try {
+            token = CompletableFuture.supplyAsync(authManager::getValidToken, asyncHttpClient.dispatcher().executorService());
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        token.whenComplete((accessToken, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                enqueueCall(endpointClass, method, endpoint, body, attempt, future, accessToken);
+            }
+        });
+    }
+
+    private void enqueueCall(String endpointClass, String method, String endpoint, RequestBody body,
+                             int attempt, CompletableFuture<Response> future, String accessToken) {
+        if (future.isDone()) {
+            return;
+        }
+
+        Call call;
+        try {
+            Request request = new Request.Builder()
+                    .url(baseUrl + endpoint)
+                    .addHeader(Constants.Headers.AUTHORIZATION, "Bearer " + accessToken)
+                    .method(method, body)
+                    .build();
+            call = asyncHttpClient.newCall(request);
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        future.whenComplete((response, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        AdaptiveRateLimiter rateLimiter = rateLimiters.get(endpointClass);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (retryPolicy.isRetryable(method, e) && retryPolicy.tryRetry(endpointClass, attempt)) {
+                    long delay = retryPolicy.getDelayMillis(attempt, null);
+                    logger.warn("{} {} failed ({}); retry {} in {} ms", method, endpoint, e.getMessage(), attempt, delay);
+                    scheduleRetry(endpointClass, method, endpoint, body, attempt, future, delay);
+                } else {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                if (response.code() == Constants.RateLimit.HTTP_TOO_MANY_REQUESTS
+                        || response.code() == Constants.RateLimit.HTTP_SERVICE_UNAVAILABLE) {
+                    rateLimiter.onThrottle();
+                } else if (response.isSuccessful()) {
+                    rateLimiter.onSuccess();
+                }
+
+                if (response.isSuccessful()) {
+                    if (!future.complete(response)) {
+                        response.close();
+                    }
+                    return;
+                }
+
+                String errorBody;
+                try (response) {
+                    errorBody = response.body() != null ? response.body().string() : "No response body";
+                } catch (IOException e) {
+                    errorBody = "Unreadable response body: " + e.getMessage();
+                }
+
+                if (retryPolicy.isRetryable(method, response.code()) && retryPolicy.tryRetry(endpointClass, attempt)) {
+                    long delay = retryPolicy.getDelayMillis(attempt, response.header(Constants.Headers.RETRY_AFTER));
+                    logger.warn("{} {} returned HTTP {}; retry {} in {} ms", method, endpoint, response.code(), attempt, delay);
+                    scheduleRetry(endpointClass, method, endpoint, body, attempt, future, delay);
+                    return;
+                }
+
+                future.completeExceptionally(new AuthenticationManager.VibrentHealthAPIError(
+                        String.format(Constants.ErrorMessages.API_REQUEST_FAILED, "HTTP " + response.code() + ": " + errorBody),
+                        response.code()));
+            }
+        });
+    }
+
+    private void scheduleRetry(String endpointClass, String method, String endpoint, RequestBody body,
+                               int attempt, CompletableFuture<Response> future, long delayMillis) {
+        try {
+            asyncScheduler.schedule(() -> acquireAndEnqueue(endpointClass, method, endpoint, body, attempt + 1, future),
+                    delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Stop the async scheduler and dispatcher threads and close pooled connections. Async calls
+     * still in flight or waiting for a permit or retry fail with an IOException.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        asyncScheduler.shutdownNow();
+        asyncHttpClient.dispatcher().cancelAll();
+        asyncHttpClient.dispatcher().executorService().shutdown();
+        for (CompletableFuture<Response> future : pendingAsyncCalls) {
+            future.completeExceptionally(new IOException("client closed"));
+        }
+        httpClient.connectionPool().evictAll();
+    }
+}
@@ -0,0 +1,40 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.DateRangeChunk;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.models.CommunicationEventsExportRequest;
+import com.vibrenthealth.apiclient.models.ParticipantBatch;
+
+/**
+ * Exporter for email and SMS communication events (communication_events_export).
+ *
+ * No participant IDs exports the events of every participant in the program. Requests can be
+ * narrowed to event_sources (ITERABLE, SES, TWILIO) and event_types (EMAIL_*, SMS_*).
+ */
+public class CommunicationEventsExporter extends ParticipantBatchExporter<CommunicationEventsExportRequest> {
+
+    public CommunicationEventsExporter(VibrentHealthAPIClient client, ConfigManager configManager) {
+        super(Constants.ExportType.COMMUNICATION_EVENTS, client, configManager);
+    }
+
+    @Override
+    public CommunicationEventsExportRequest createExportRequest(ParticipantBatch item, DateRangeChunk window) {
+        CommunicationEventsExportRequest request = new CommunicationEventsExportRequest();
+        if (window != null) {
+            request.setDateFrom(window.getStartTime());
+            request.setDateTo(window.getEndTime());
+        }
+        request.setParticipantIds(item.getParticipantIdStrings());
+        request.setManifestOnly(isManifestOnly());
+        request.setEventSources(getFilterValues(Constants.ConfigKeys.EVENT_SOURCES));
+        request.setEventTypes(getFilterValues(Constants.ConfigKeys.EVENT_TYPES));
+        return request;
+    }
+
+    @Override
+    public String requestExport(ParticipantBatch item, CommunicationEventsExportRequest exportRequest) {
+        return client.requestCommunicationEventsExport(exportRequest);
+    }
+}
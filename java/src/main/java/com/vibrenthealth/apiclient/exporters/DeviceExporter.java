@@ -0,0 +1,50 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.DateRangeChunk;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.models.DeviceDataExportRequest;
+import com.vibrenthealth.apiclient.models.ParticipantBatch;
+
+/**
+ * Exporter for wearable device data (device_export).
+ *
+ * Always uses the multi-participant endpoint: both endpoints limit data requests to 24 hours,
+ * but only the multi-participant one accepts 360-day manifest-only requests.
+ */
+public class DeviceExporter extends ParticipantBatchExporter<DeviceDataExportRequest> {
+
+    public DeviceExporter(VibrentHealthAPIClient client, ConfigManager configManager) {
+        super(Constants.ExportType.DEVICE, client, configManager);
+    }
+
+    @Override
+    protected boolean requiresParticipants() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsColumnarOutput() {
+        return true;
+    }
+
+    @Override
+    public DeviceDataExportRequest createExportRequest(ParticipantBatch item, DateRangeChunk window) {
+        DeviceDataExportRequest request = new DeviceDataExportRequest();
+        if (window != null) {
+            request.setDateFrom(window.getStartTime());
+            request.setDateTo(window.getEndTime());
+        }
+        request.setParticipantIds(item.getParticipantIds());
+        request.setDeviceTypes(getFilterValues(Constants.ConfigKeys.DEVICE_TYPES));
+        request.setDataTypes(getFilterValues(Constants.ConfigKeys.DATA_TYPES));
+        request.setManifestOnly(isManifestOnly());
+        return request;
+    }
+
+    @Override
+    public String requestExport(ParticipantBatch item, DeviceDataExportRequest exportRequest) {
+        return client.requestMultiDeviceExport(exportRequest);
+    }
+}
@@ -0,0 +1,48 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.DateRangeChunk;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.models.EHRExportRequest;
+import com.vibrenthealth.apiclient.models.ParticipantBatch;
+
+/**
+ * Exporter for Electronic Health Record (EHR) data (ehr_export).
+ *
+ * A batch of one participant uses the single-participant endpoint, which has no date range
+ * limit; larger batches use the multi-participant endpoint.
+ */
+public class EhrExporter extends ParticipantBatchExporter<EHRExportRequest> {
+
+    public EhrExporter(VibrentHealthAPIClient client, ConfigManager configManager) {
+        super(Constants.ExportType.EHR, client, configManager);
+    }
+
+    @Override
+    protected boolean requiresParticipants() {
+        return true;
+    }
+
+    @Override
+    public EHRExportRequest createExportRequest(ParticipantBatch item, DateRangeChunk window) {
+        EHRExportRequest request = new EHRExportRequest();
+        if (window != null) {
+            request.setDateFrom(window.getStartTime());
+            request.setDateTo(window.getEndTime());
+        }
+        if (item.getParticipantIds().size() > 1) {
+            request.setParticipantIds(item.getParticipantIds());
+            request.setManifestOnly(isManifestOnly());
+        }
+        return request;
+    }
+
+    @Override
+    public String requestExport(ParticipantBatch item, EHRExportRequest exportRequest) {
+        if (item.getParticipantIds().size() == 1) {
+            return client.requestEhrExport(item.getParticipantIds().get(0), exportRequest);
+        }
+        return client.requestMultiEhrExport(exportRequest);
+    }
+}
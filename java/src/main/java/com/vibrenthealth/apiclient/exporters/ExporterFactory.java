@@ -0,0 +1,61 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.Exporter;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Registry of the exporters the orchestrator can run, by export type.
+ *
+ * The built-in types are registered up front; an application can register its own
+ * {@link Exporter} under a new type, or replace a built-in one.
+ */
+public final class ExporterFactory {
+    private static final Map<String, BiFunction<VibrentHealthAPIClient, ConfigManager, Exporter<?, ?>>> REGISTRY =
+            new ConcurrentHashMap<>();
+
+    static {
+        register(Constants.ExportType.EHR, EhrExporter::new);
+        register(Constants.ExportType.DEVICE, DeviceExporter::new);
+        register(Constants.ExportType.PARTICIPANT_PROFILES, ParticipantProfilesExporter::new);
+        register(Constants.ExportType.COMMUNICATION_EVENTS, CommunicationEventsExporter::new);
+    }
+
+    private ExporterFactory() {
+    }
+
+    /**
+     * Register the exporter to create for an export type
+     */
+    public static void register(String exportType, BiFunction<VibrentHealthAPIClient, ConfigManager, Exporter<?, ?>> constructor) {
+        REGISTRY.put(exportType, constructor);
+    }
+
+    /**
+     * Create the exporter of an export type on a shared client
+     *
+     * @throws IllegalArgumentException if no exporter is registered for the type
+     */
+    public static Exporter<?, ?> create(String exportType, VibrentHealthAPIClient client, ConfigManager configManager) {
+        BiFunction<VibrentHealthAPIClient, ConfigManager, Exporter<?, ?>> constructor = REGISTRY.get(exportType);
+        if (constructor == null) {
+            throw new IllegalArgumentException("Unknown export type: '" + exportType + "'. Available types: "
+                    + String.join(", ", getExportTypes()));
+        }
+        return constructor.apply(client, configManager);
+    }
+
+    /**
+     * Registered export types, sorted
+     */
+    public static Set<String> getExportTypes() {
+        return new TreeSet<>(REGISTRY.keySet());
+    }
+}
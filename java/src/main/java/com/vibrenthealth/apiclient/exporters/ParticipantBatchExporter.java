@@ -0,0 +1,147 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.Exporter;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.models.ParticipantBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base class of the exporters whose requests carry a batch of participants.
+ *
+ * The participants come from participant_ids in the export type's config section; an empty list
+ * exports all participants, unless the type requires participants. Filtering drops
+ * exclude_participant_ids, keeps the first max_participants and splits the rest into batches of
+ * the most participants the API accepts in one request.
+ *
+ * @param <R> request model sent for a batch
+ */
+public abstract class ParticipantBatchExporter<R> implements Exporter<ParticipantBatch, R> {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+
+    protected final VibrentHealthAPIClient client;
+    protected final Map<String, Object> config;
+    private final String exportType;
+
+    protected ParticipantBatchExporter(String exportType, VibrentHealthAPIClient client, ConfigManager configManager) {
+        this.exportType = exportType;
+        this.client = client;
+        this.config = configManager.getExportConfig(exportType);
+    }
+
+    @Override
+    public String getExportType() {
+        return exportType;
+    }
+
+    /**
+     * Whether the export type needs at least one participant ID; otherwise no IDs exports all participants
+     */
+    protected boolean requiresParticipants() {
+        return false;
+    }
+
+    /**
+     * Most participants in one request, or 0 for no limit
+     */
+    protected int getMaxBatchSize() {
+        return isManifestOnly() ? 0 : Constants.ParticipantBatch.MAX_DATA_PARTICIPANTS;
+    }
+
+    protected boolean isManifestOnly() {
+        return (Boolean) config.getOrDefault(Constants.ConfigKeys.MANIFEST_ONLY, false);
+    }
+
+    /**
+     * A configured list of filter values, or null when it is empty so the API applies no filter
+     */
+    @SuppressWarnings("unchecked")
+    protected List<String> getFilterValues(String key) {
+        List<String> values = (List<String>) config.get(key);
+        return values != null && !values.isEmpty() ? values : null;
+    }
+
+    @Override
+    public List<ParticipantBatch> getItems() {
+        List<Long> participantIds = getParticipantIds(Constants.ConfigKeys.PARTICIPANT_IDS);
+        if (participantIds.isEmpty() && requiresParticipants()) {
+            throw new ConfigManager.ConfigurationError(String.format(Constants.ErrorMessages.INVALID_CONFIG,
+                    "no participant IDs configured; set participant_ids in " + exportType + Constants.ExportType.CONFIG_SECTION_SUFFIX));
+        }
+        if (participantIds.isEmpty()) {
+            logger.info("Configuration set to export {} for ALL participants", exportType);
+        } else {
+            logger.info("Loaded {} participants for {} export", participantIds.size(), exportType);
+        }
+        return Collections.singletonList(new ParticipantBatch(participantIds));
+    }
+
+    @Override
+    public List<ParticipantBatch> filterItems(List<ParticipantBatch> items) {
+        List<Long> participantIds = new ArrayList<>();
+        for (ParticipantBatch batch : items) {
+            if (batch.isAllParticipants()) {
+                logger.info("Exporting {} for all participants - no filtering applied", exportType);
+                return Collections.singletonList(batch);
+            }
+            participantIds.addAll(batch.getParticipantIds());
+        }
+
+        List<Long> excludeIds = getParticipantIds(Constants.ConfigKeys.EXCLUDE_PARTICIPANT_IDS);
+        if (!excludeIds.isEmpty()) {
+            int originalCount = participantIds.size();
+            participantIds.removeAll(new HashSet<>(excludeIds));
+            logger.info("Excluded {} participant(s) from {} export", originalCount - participantIds.size(), exportType);
+        }
+
+        Object maxParticipants = config.get(Constants.ConfigKeys.MAX_PARTICIPANTS);
+        if (maxParticipants instanceof Number && participantIds.size() > ((Number) maxParticipants).intValue()) {
+            logger.info("Limiting to first {} participants (was {})", maxParticipants, participantIds.size());
+            participantIds = participantIds.subList(0, ((Number) maxParticipants).intValue());
+        }
+
+        if (participantIds.isEmpty()) {
+            logger.warn("All {} participants were filtered out - no exports will be created", exportType);
+            return Collections.emptyList();
+        }
+
+        int batchSize = getMaxBatchSize() > 0 ? getMaxBatchSize() : participantIds.size();
+        List<ParticipantBatch> batches = new ArrayList<>();
+        for (int i = 0; i < participantIds.size(); i += batchSize) {
+            batches.add(new ParticipantBatch(new ArrayList<>(participantIds.subList(i, Math.min(i + batchSize, participantIds.size())))));
+        }
+        logger.info("After filtering: {} participant(s) will be exported in {} request(s)", participantIds.size(), batches.size());
+        return batches;
+    }
+
+    @Override
+    public String getItemDisplayName(ParticipantBatch item) {
+        return item.getDisplayName();
+    }
+
+    /**
+     * Participant IDs of a config list; YAML reads them as integers
+     */
+    private List<Long> getParticipantIds(String key) {
+        List<Long> participantIds = new ArrayList<>();
+        Object values = config.get(key);
+        if (values instanceof List) {
+            for (Object value : (List<?>) values) {
+                if (value instanceof Number) {
+                    participantIds.add(((Number) value).longValue());
+                } else if (value != null) {
+                    participantIds.add(Long.parseLong(value.toString().trim()));
+                }
+            }
+        }
+        return participantIds;
+    }
+}
@@ -0,0 +1,42 @@
+package com.vibrenthealth.apiclient.exporters;
+
+import com.vibrenthealth.apiclient.core.ConfigManager;
+import com.vibrenthealth.apiclient.core.Constants;
+import com.vibrenthealth.apiclient.core.DateRangeChunk;
+import com.vibrenthealth.apiclient.core.VibrentHealthAPIClient;
+import com.vibrenthealth.apiclient.models.ParticipantBatch;
+import com.vibrenthealth.apiclient.models.ParticipantProfilesExportRequest;
+
+/**
+ * Exporter for participant profile (user property) data (participant_profiles_export).
+ *
+ * No participant IDs exports every participant in the program; otherwise up to 1000 participants
+ * go in one request.
+ */
+public class ParticipantProfilesExporter extends ParticipantBatchExporter<ParticipantProfilesExportRequest> {
+
+    public ParticipantProfilesExporter(VibrentHealthAPIClient client, ConfigManager configManager) {
+        super(Constants.ExportType.PARTICIPANT_PROFILES, client, configManager);
+    }
+
+    @Override
+    protected int getMaxBatchSize() {
+        return Constants.ParticipantBatch.MAX_PROFILES_PARTICIPANTS;
+    }
+
+    @Override
+    public ParticipantProfilesExportRequest createExportRequest(ParticipantBatch item, DateRangeChunk window) {
+        ParticipantProfilesExportRequest request = new ParticipantProfilesExportRequest();
+        if (window != null) {
+            request.setDateFrom(window.getStartTime());
+            request.setDateTo(window.getEndTime());
+        }
+        request.setParticipantIds(item.getParticipantIdStrings());
+        return request;
+    }
+
+    @Override
+    public String requestExport(ParticipantBatch item, ParticipantProfilesExportRequest exportRequest) {
+        return client.requestParticipantProfilesExport(exportRequest);
+    }
+}
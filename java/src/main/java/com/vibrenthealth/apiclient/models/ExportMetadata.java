@@ -41,12 +41,31 @@ public class ExportMetadata {
 
     private List<Map<String, Object>> failuresV2 = new ArrayList<>();
 
+    // Requested date range and the windows it was split into
+    @JsonProperty("date_range")
+    private Map<String, Object> dateRange;
+
     @JsonProperty("end_timestamp")
     private String endTimestamp;
     
     @JsonProperty("duration_seconds")
     private Double durationSeconds;
 
+    @JsonProperty("rate_limits")
+    private Map<String, Object> rateLimits;
+
+    private Map<String, Object> retries;
+
+    private Map<String, Object> polling;
+
+    private Map<String, Object> downloads;
+
+    private Map<String, Object> extraction;
+
+    private Map<String, Object> merge;
+
+    private Map<String, Object> columnar;
+
     public static ExportMetadata fromMap(Map<String, Object> data) {
         ExportMetadata metadata = new ExportMetadata();
         metadata.setExportSessionId((String) data.getOrDefault("export_session_id", ""));
@@ -68,12 +87,44 @@ public class ExportMetadata {
         List<Map<String, Object>> failuresV2 = (List<Map<String, Object>>) data.get("failuresV2");
         metadata.setFailuresV2(failuresV2 != null ? failuresV2 : new ArrayList<>());
 
+        @SuppressWarnings("unchecked")
+        Map<String, Object> dateRange = (Map<String, Object>) data.get("date_range");
+        metadata.setDateRange(dateRange);
+
         metadata.setEndTimestamp((String) data.get("end_timestamp"));
         
         Object durationObj = data.get("duration_seconds");
         if (durationObj instanceof Number) {
             metadata.setDurationSeconds(((Number) durationObj).doubleValue());
         }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> rateLimits = (Map<String, Object>) data.get("rate_limits");
+        metadata.setRateLimits(rateLimits);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> retries = (Map<String, Object>) data.get("retries");
+        metadata.setRetries(retries);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> polling = (Map<String, Object>) data.get("polling");
+        metadata.setPolling(polling);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> downloads = (Map<String, Object>) data.get("downloads");
+        metadata.setDownloads(downloads);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> extraction = (Map<String, Object>) data.get("extraction");
+        metadata.setExtraction(extraction);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> merge = (Map<String, Object>) data.get("merge");
+        metadata.setMerge(merge);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> columnar = (Map<String, Object>) data.get("columnar");
+        metadata.setColumnar(columnar);
         
         return metadata;
     }
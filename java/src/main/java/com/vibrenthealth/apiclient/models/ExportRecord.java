@@ -0,0 +1,26 @@
+package com.vibrenthealth.apiclient.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+/**
+ * A single record parsed from an export archive entry
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExportRecord {
+
+    private String exportId;
+
+    // Survey the export was requested for, or null if it is not known
+    private Integer platformFormId;
+
+    // Name of the archive entry the record was read from
+    private String entryName;
+
+    // Fields of a JSON object or CSV row, in source order; JSON values that are not objects are under "value"
+    private Map<String, Object> fields;
+}
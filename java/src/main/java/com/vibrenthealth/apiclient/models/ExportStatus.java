@@ -30,6 +30,9 @@ public class ExportStatus {
     
     private String failureReason;
 
+    // Size of the export file in bytes, when the API reports it
+    private Long fileSize;
+
     public static ExportStatus fromMap(Map<String, Object> data) {
         ExportStatus status = new ExportStatus();
         status.setExportId((String) data.getOrDefault("exportId", ""));
@@ -39,6 +42,8 @@ public class ExportStatus {
         status.setCompletedOn((String) data.get("completedOn"));
         status.setDownloadEndpoint((String) data.get("downloadEndpoint"));
         status.setFailureReason((String) data.get("failureReason"));
+        Object fileSize = data.get("fileSize");
+        status.setFileSize(fileSize instanceof Number ? ((Number) fileSize).longValue() : null);
         return status;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.vibrenthealth.apiclient.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Represents the participants exported by one batch export request; no participant IDs means
+ * all participants in the program
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParticipantBatch {
+    private List<Long> participantIds;
+
+    public boolean isAllParticipants() {
+        return participantIds == null || participantIds.isEmpty();
+    }
+
+    /**
+     * Participant IDs as strings, for the endpoints whose API contract takes them that way
+     */
+    public List<String> getParticipantIdStrings() {
+        return isAllParticipants() ? null : participantIds.stream().map(String::valueOf).collect(Collectors.toList());
+    }
+
+    public String getDisplayName() {
+        return isAllParticipants() ? "All Participants" : "Batch Export (" + participantIds.size() + " participants)";
+    }
+}
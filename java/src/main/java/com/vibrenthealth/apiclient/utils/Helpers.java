@@ -1,5 +1,7 @@
 package com.vibrenthealth.apiclient.utils;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vibrenthealth.apiclient.core.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.logging.LogManager;
@@ -11,6 +13,8 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility helper functions for Vibrent Health API Client
@@ -114,4 +118,39 @@ public class Helpers {
             return String.format("%.2f hours", seconds / 3600);
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Save export metadata as pretty-printed JSON in the output directory, under the file name of the
+     * metadata section, unless the section disables saving it
+     */
+    public static void saveExportMetadata(Map<String, Object> metadataConfig, Path outputDir, Object metadata) {
+        if (!(Boolean) metadataConfig.getOrDefault(Constants.ConfigKeys.SAVE_METADATA, true)) {
+            logger.info("Metadata saving disabled in configuration");
+            return;
+        }
+
+        String metadataFilename = (String) metadataConfig.getOrDefault(Constants.ConfigKeys.FILENAME,
+                Constants.FileConstants.DEFAULT_METADATA_FILENAME);
+        Path metadataFile = outputDir.resolve(metadataFilename);
+
+        try {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(metadataFile.toFile(), metadata);
+            Path relativePath = Paths.get("").toAbsolutePath().relativize(metadataFile.toAbsolutePath());
+            logger.info(String.format(Constants.SuccessMessages.METADATA_SAVED, relativePath));
+        } catch (IOException e) {
+            logger.error("Failed to save metadata: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Create a thread factory producing daemon threads named {@code <prefix>-<n>}
+     */
+    public static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
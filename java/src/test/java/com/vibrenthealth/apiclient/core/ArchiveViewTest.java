@@ -0,0 +1,67 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Reads entries of export archives through an {@link ArchiveView}.
+ */
+class ArchiveViewTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void fileNameGlobMatchesEntriesInSubdirectories() throws Exception {
+        zip(tempDir.resolve("export-1.zip"), "responses/1973_Survey-Name/responses.json", "responses/1973_Survey-Name/responses.csv",
+                "manifest.json");
+
+        try (ArchiveView view = ArchiveView.open(tempDir)) {
+            assertEquals(List.of("manifest.json", "responses/1973_Survey-Name/responses.json"), names(view.find("*.json")));
+            assertEquals(List.of("responses/1973_Survey-Name/responses.csv"), names(view.find("responses/**.csv")));
+            assertEquals(List.of(), names(view.find("responses/*.csv")));
+        }
+    }
+
+    @Test
+    void writingThroughTheViewLeavesTheArchiveUnchanged() throws Exception {
+        Path archive = tempDir.resolve("export-1.zip");
+        zip(archive, "responses.json");
+        byte[] downloaded = Files.readAllBytes(archive);
+
+        try (ArchiveView view = ArchiveView.open(tempDir)) {
+            Files.writeString(view.getPath("responses.json"), "overwritten");
+        }
+
+        assertArrayEquals(downloaded, Files.readAllBytes(archive));
+        try (ArchiveView view = ArchiveView.open(tempDir)) {
+            assertEquals("content of responses.json", Files.readString(view.getPath("responses.json")));
+        }
+    }
+
+    private static void zip(Path archive, String... names) throws IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(archive))) {
+            for (String name : names) {
+                zip.putNextEntry(new ZipEntry(name));
+                zip.write(("content of " + name).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+    }
+
+    private static List<String> names(List<Path> paths) {
+        return paths.stream().map(path -> path.toString().substring(1)).collect(Collectors.toList());
+    }
+}
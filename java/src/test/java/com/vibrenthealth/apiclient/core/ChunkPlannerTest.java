@@ -0,0 +1,100 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bisects windows through {@link ChunkPlanner} and reloads the sizes it learned from its state file.
+ */
+class ChunkPlannerTest {
+    private static final long DAY = Constants.TimeConstants.MS_PER_DAY;
+    private static final int SURVEY = 1973;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void onlyTimeoutsAndSizeFailuresAreBisected() {
+        ChunkPlanner planner = load(16);
+        List<DateRangeChunk> windows = planner.plan(SURVEY, 0L, 3650 * DAY);
+
+        planner.submitted("export-1", SURVEY, windows.get(0));
+        assertTrue(planner.bisect("export-1", Constants.ExportStatus.FAILED, "Invalid form id").isEmpty());
+
+        planner.submitted("export-2", SURVEY, windows.get(0));
+        assertEquals(2, planner.bisect("export-2", Constants.ExportStatus.FAILED, "Query TIMED OUT after 600s").size());
+
+        planner.submitted("export-3", SURVEY, windows.get(0));
+        assertEquals(2, planner.bisect("export-3", Constants.ExportStatus.TIMED_OUT, null).size());
+    }
+
+    @Test
+    void persistentFailureStopsAtTheBisectionCap() {
+        ChunkPlanner planner = load(5);
+        Deque<DateRangeChunk> pending = new ArrayDeque<>(planner.plan(SURVEY, 0L, 3650 * DAY));
+
+        int requests = 0;
+        while (!pending.isEmpty()) {
+            String exportId = "export-" + ++requests;
+            planner.submitted(exportId, SURVEY, pending.pop());
+            pending.addAll(planner.bisect(exportId, Constants.ExportStatus.FAILED, "Export exceeded the maximum size"));
+        }
+
+        // One request for the planned window and two for each of the 5 bisections, instead of about 2^12
+        assertEquals(11, requests);
+    }
+
+    @Test
+    void learnedSizeShrinksOnBisectionAndGrowsBackAfterCleanRuns() {
+        ChunkPlanner first = load(16);
+        List<DateRangeChunk> windows = first.plan(SURVEY, 0L, 3650 * DAY);
+        first.submitted("export-1", SURVEY, windows.get(0));
+        List<DateRangeChunk> halves = first.bisect("export-1", Constants.ExportStatus.TIMED_OUT, null);
+        first.submitted("export-2", SURVEY, halves.get(0));
+        first.submitted("export-3", SURVEY, halves.get(1));
+        first.finished("export-2");
+        first.finished("export-3");
+        first.save();
+        assertEquals(1825, load(16).getWindowDays(SURVEY));
+
+        // A run with every window completed doubles the size, back to the initial size
+        ChunkPlanner second = load(16);
+        List<DateRangeChunk> smaller = second.plan(SURVEY, 0L, 3650 * DAY);
+        for (int i = 0; i < smaller.size(); i++) {
+            second.submitted("export-" + (10 + i), SURVEY, smaller.get(i));
+            second.finished("export-" + (10 + i));
+        }
+        second.save();
+        assertEquals(3650, load(16).getWindowDays(SURVEY));
+    }
+
+    @Test
+    void learnedSizeDoesNotGrowWhileAnExportIsUnfinished() {
+        ChunkPlanner first = load(16);
+        first.submitted("export-1", SURVEY, first.plan(SURVEY, 0L, 3650 * DAY).get(0));
+        first.bisect("export-1", Constants.ExportStatus.TIMED_OUT, null);
+        first.save();
+
+        ChunkPlanner second = load(16);
+        List<DateRangeChunk> windows = second.plan(SURVEY, 0L, 3650 * DAY);
+        second.submitted("export-2", SURVEY, windows.get(0));
+        second.submitted("export-3", SURVEY, windows.get(1));
+        second.finished("export-2");
+        second.save();
+
+        assertEquals(1825, load(16).getWindowDays(SURVEY));
+    }
+
+    private ChunkPlanner load(int maxBisections) {
+        return ChunkPlanner.load(tempDir.resolve(Constants.DateRange.DEFAULT_STATE_FILE), 3650, 1, 0L, maxBisections,
+                Constants.DateRange.DEFAULT_SIZE_FAILURE_PATTERNS);
+    }
+}
@@ -0,0 +1,154 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.vibrenthealth.apiclient.models.ExportStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes export journals and rebuilds the session state from them with {@link ExportJournal#replay}.
+ */
+class ExportJournalTest {
+    private static final long DAY = Constants.TimeConstants.MS_PER_DAY;
+    private static final int SURVEY = 1973;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void truncatedLastLineIsIgnored() throws Exception {
+        List<DateRangeChunk> windows = DateRangeChunk.split(0L, 20 * DAY, 10 * DAY);
+        Path journalFile = tempDir.resolve(Constants.Journal.FILENAME);
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.planned(Map.of(SURVEY, windows));
+            journal.submitted("export-1", SURVEY, windows.get(0));
+        }
+        // A run that died while appending the completion of export-1
+        Files.writeString(journalFile, "{\"event\":\"completed\",\"exportId\":\"export-1\",\"sta",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ExportJournal.State state = ExportJournal.replay(journalFile);
+
+        assertEquals(metadata(windows), metadata(state.getPlannedChunks().get(SURVEY)));
+        ExportJournal.JournalExport export = state.getExports().get(0);
+        assertTrue(export.isPending());
+        assertNull(export.getStatus());
+        assertEquals(metadata(List.of(windows.get(1))), metadata(state.getUnsubmittedChunks().get(SURVEY)));
+
+        // The resumed run's events start on a line of their own
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.submitted("export-2", SURVEY, windows.get(1));
+        }
+        assertEquals(List.of("export-1", "export-2"), ExportJournal.replay(journalFile).getExports().stream()
+                .map(ExportJournal.JournalExport::getExportId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void replacedWindowIsRequiredAsItsHalves() throws Exception {
+        List<DateRangeChunk> windows = DateRangeChunk.split(0L, 20 * DAY, 10 * DAY);
+        List<DateRangeChunk> halves = windows.get(0).bisect();
+        Path journalFile = tempDir.resolve(Constants.Journal.FILENAME);
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.planned(Map.of(SURVEY, windows));
+            journal.submitted("export-1", SURVEY, windows.get(0));
+            journal.submitted("export-2", SURVEY, windows.get(1));
+            journal.replaced("export-1");
+            journal.submitted("export-3", SURVEY, halves.get(0));
+        }
+
+        ExportJournal.State state = ExportJournal.replay(journalFile);
+
+        // Only the second half was never requested; the replaced export itself is not polled again
+        assertEquals(metadata(List.of(halves.get(1))), metadata(state.getUnsubmittedChunks().get(SURVEY)));
+        Map<String, ExportJournal.JournalExport> exports = byId(state);
+        assertFalse(exports.get("export-1").isPending());
+        assertTrue(exports.get("export-2").isPending());
+        assertTrue(exports.get("export-3").isPending());
+        assertEquals(1, exports.get("export-3").getChunk().getBisections());
+    }
+
+    @Test
+    void extractedEventMarksTheExportDownloadedToItsFile() throws Exception {
+        List<DateRangeChunk> windows = DateRangeChunk.split(0L, 20 * DAY, 10 * DAY);
+        Path first = tempDir.resolve("export-1.zip");
+        Path second = tempDir.resolve("export-2.zip");
+        Path journalFile = tempDir.resolve(Constants.Journal.FILENAME);
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.planned(Map.of(SURVEY, windows));
+            journal.submitted("export-1", SURVEY, windows.get(0));
+            journal.submitted("export-2", SURVEY, windows.get(1));
+            journal.completed("export-1", status("export-1"));
+            journal.completed("export-2", status("export-2"));
+            journal.downloaded("export-1", first);
+            journal.downloaded("export-2", second);
+            journal.extracted(second);
+        }
+
+        Map<String, ExportJournal.JournalExport> exports = byId(ExportJournal.replay(journalFile));
+
+        assertTrue(exports.get("export-1").isDownloaded());
+        assertTrue(exports.get("export-1").needsExtraction());
+        assertEquals(first.toAbsolutePath(), exports.get("export-1").getFile());
+        assertTrue(exports.get("export-2").isDownloaded());
+        assertFalse(exports.get("export-2").needsExtraction());
+        assertEquals("COMPLETED", exports.get("export-2").getStatus().getStatus());
+    }
+
+    @Test
+    void failedExportHasItsWindowRequestedAgain() throws Exception {
+        List<DateRangeChunk> windows = DateRangeChunk.split(0L, 20 * DAY, 10 * DAY);
+        Path journalFile = tempDir.resolve(Constants.Journal.FILENAME);
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.planned(Map.of(SURVEY, windows));
+            journal.submitted("export-1", SURVEY, windows.get(0));
+            journal.submitted("export-2", SURVEY, windows.get(1));
+            journal.failed("export-1");
+        }
+
+        ExportJournal.State state = ExportJournal.replay(journalFile);
+
+        assertEquals(metadata(List.of(windows.get(0))), metadata(state.getUnsubmittedChunks().get(SURVEY)));
+        Map<String, ExportJournal.JournalExport> exports = byId(state);
+        assertFalse(exports.get("export-1").isPending());
+        assertTrue(exports.get("export-2").isPending());
+
+        // Once requested again, the window's latest export is the new one
+        try (ExportJournal journal = ExportJournal.open(journalFile, 0)) {
+            journal.submitted("export-4", SURVEY, windows.get(0));
+        }
+        assertTrue(ExportJournal.replay(journalFile).getUnsubmittedChunks().get(SURVEY).isEmpty());
+    }
+
+    private static ExportStatus status(String exportId) {
+        ExportStatus status = new ExportStatus();
+        status.setExportId(exportId);
+        status.setStatus("COMPLETED");
+        status.setFileName(exportId + ".zip");
+        return status;
+    }
+
+    /**
+     * Windows have no equals, so they are compared by their boundaries
+     */
+    private static List<Map<String, Object>> metadata(List<DateRangeChunk> windows) {
+        return windows.stream().map(DateRangeChunk::toMetadata).collect(Collectors.toList());
+    }
+
+    private static Map<String, ExportJournal.JournalExport> byId(ExportJournal.State state) {
+        return state.getExports().stream()
+                .collect(Collectors.toMap(ExportJournal.JournalExport::getExportId, Function.identity()));
+    }
+}
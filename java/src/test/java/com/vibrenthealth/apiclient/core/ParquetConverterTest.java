@@ -0,0 +1,142 @@
+package com.vibrenthealth.apiclient.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Converts extracted survey and device files and reads the Parquet output back with DuckDB.
+ */
+class ParquetConverterTest {
+    @TempDir
+    Path tempDir;
+
+    private Connection duckdb;
+
+    @BeforeEach
+    void openReader() throws SQLException {
+        duckdb = DriverManager.getConnection("jdbc:duckdb:");
+    }
+
+    @AfterEach
+    void closeReader() throws SQLException {
+        duckdb.close();
+    }
+
+    @Test
+    void mergeInfersTypedColumnsFromJsonWithLeadingSurveyColumn() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("1973_part_1.json"),
+                "[{\"id\": 1, \"score\": 2, \"done\": true, \"name\": \"a\", \"answers\": {\"q1\": [1, 2]}},"
+                        + " {\"id\": 2, \"score\": 2.5, \"done\": null, \"name\": \"b\"}]");
+        Path target = tempDir.resolve("survey_1973.parquet");
+
+        long records = converter(tempDir.resolve("schemas.json")).merge(1973, List.of(source), target);
+
+        assertEquals(2, records);
+        assertEquals(List.of(
+                Arrays.asList("platformFormId", "BIGINT"),
+                Arrays.asList("id", "BIGINT"),
+                Arrays.asList("score", "DOUBLE"),
+                Arrays.asList("done", "BOOLEAN"),
+                Arrays.asList("name", "VARCHAR"),
+                Arrays.asList("answers", "VARCHAR")),
+                query("SELECT column_name, column_type FROM (DESCRIBE SELECT * FROM read_parquet(?))", target));
+        assertEquals(List.of(
+                Arrays.asList(1973L, 1L, 2.0, true, "a", "{\"q1\":[1,2]}"),
+                Arrays.asList(1973L, 2L, 2.5, null, "b", null)),
+                query("SELECT * FROM read_parquet(?, file_row_number = true) ORDER BY file_row_number", target).stream()
+                        .map(row -> row.subList(0, 6)).collect(Collectors.toList()));
+    }
+
+    @Test
+    void convertWritesDeviceRecordsWithoutSurveyColumn() throws Exception {
+        Path sleep = Files.writeString(tempDir.resolve("sleep.json"), "[{\"participantId\": 7, \"minutes\": 420}]");
+        Path steps = Files.writeString(tempDir.resolve("steps.json"), "{\"participantId\": 8, \"steps\": 9000}");
+        Path target = tempDir.resolve("device_data.parquet");
+
+        long records = converter(null).convert(Constants.ExportType.DEVICE, List.of(sleep, steps), target);
+
+        assertEquals(2, records);
+        assertEquals(List.of(
+                Arrays.asList(7L, 420L, null),
+                Arrays.asList(8L, null, 9000L)),
+                query("SELECT participantId, minutes, steps FROM read_parquet(?, file_row_number = true) ORDER BY file_row_number", target));
+        assertEquals(List.of(List.of(0L)),
+                query("SELECT COUNT(*) FROM (DESCRIBE SELECT * FROM read_parquet(?)) WHERE column_name = 'platformFormId'", target));
+        assertFalse(Files.exists(tempDir.resolve("device_data.parquet" + Constants.Download.PART_FILE_SUFFIX)));
+    }
+
+    @Test
+    void cachedSchemaIsInferredAgainWhenRecordsNoLongerFit() throws Exception {
+        Path schemaCache = tempDir.resolve("schemas.json");
+        Path first = Files.writeString(tempDir.resolve("first.json"), "[{\"id\": 1}]");
+        converter(schemaCache).merge(5, List.of(first), tempDir.resolve("first.parquet"));
+        assertEquals(List.of(Map.of("name", "platformFormId", "type", "INT64"), Map.of("name", "id", "type", "INT64")),
+                new ObjectMapper().readValue(schemaCache.toFile(), Map.class).get("JSON:5"));
+
+        // A new column and a string in the INT64 column both invalidate the cached schema
+        Path second = Files.writeString(tempDir.resolve("second.json"), "[{\"id\": \"x-1\", \"extra\": true}]");
+        Path target = tempDir.resolve("second.parquet");
+        assertEquals(1, converter(schemaCache).merge(5, List.of(second), target));
+
+        assertEquals(List.of(Arrays.asList(5L, "x-1", true)), query("SELECT platformFormId, id, extra FROM read_parquet(?)", target));
+        assertTrue(new ObjectMapper().readValue(schemaCache.toFile(), Map.class).get("JSON:5").toString().contains("extra"));
+    }
+
+    @Test
+    void csvValuesAreTypedByTheirText() throws Exception {
+        Path source = Files.writeString(tempDir.resolve("1973_part_1.csv"),
+                "id,score,done,name,empty\r\n1,2,true,\"a, b\",\r\n2,2.5,false,c,\r\n");
+        Path target = tempDir.resolve("survey_1973.parquet");
+
+        ParquetConverter converter = new ParquetConverter(1, Constants.ExportFormat.CSV, 64L * 1024 * 1024, 1024 * 1024,
+                false, null);
+        assertEquals(2, converter.merge(1973, List.of(source), target));
+
+        List<List<Object>> rows = query("SELECT id, score, done, name, empty FROM read_parquet(?, file_row_number = true) "
+                + "ORDER BY file_row_number", target);
+        assertEquals(Arrays.asList(1L, 2.0, true, "a, b", null), rows.get(0));
+        assertEquals(Arrays.asList(2L, 2.5, false, "c", null), rows.get(1));
+    }
+
+    private static ParquetConverter converter(Path schemaCacheFile) {
+        return new ParquetConverter(1, Constants.ExportFormat.JSON, 64L * 1024 * 1024, 1024 * 1024, true, schemaCacheFile);
+    }
+
+    private List<List<Object>> query(String sql, Path file) throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (PreparedStatement statement = duckdb.prepareStatement(sql)) {
+            statement.setString(1, file.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    List<Object> row = new ArrayList<>();
+                    for (int i = 1; i <= columns; i++) {
+                        row.add(resultSet.getObject(i));
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,200 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round-trips files written by {@link ParquetWriter} through DuckDB's Parquet reader, which shares
+ * no code with the writer.
+ */
+class ParquetWriterTest {
+    private static final List<ParquetWriter.Column> COLUMNS = List.of(
+            new ParquetWriter.Column("flag", ParquetWriter.ColumnType.BOOLEAN),
+            new ParquetWriter.Column("count", ParquetWriter.ColumnType.INT64),
+            new ParquetWriter.Column("score", ParquetWriter.ColumnType.DOUBLE),
+            new ParquetWriter.Column("answer", ParquetWriter.ColumnType.STRING));
+
+    @TempDir
+    Path tempDir;
+
+    private Connection duckdb;
+
+    @BeforeEach
+    void openReader() throws SQLException {
+        duckdb = DriverManager.getConnection("jdbc:duckdb:");
+    }
+
+    @AfterEach
+    void closeReader() throws SQLException {
+        duckdb.close();
+    }
+
+    @Test
+    void roundTripsEveryColumnType() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[] {true, 1L, 1.5, "first"},
+                new Object[] {false, Long.MIN_VALUE, -0.25, ""},
+                new Object[] {null, Long.MAX_VALUE, null, "ünïcødé ✓"},
+                new Object[] {true, null, 1e300, null},
+                new Object[] {null, null, null, null},
+                new Object[] {false, 0L, 0.0, "{\"nested\":[1,2]}"});
+
+        for (boolean gzip : new boolean[] {false, true}) {
+            Path file = write("types_" + gzip + ".parquet", rows, 64L * 1024 * 1024, 1024 * 1024, gzip);
+            assertRowsEqual(rows, read(file));
+        }
+    }
+
+    @Test
+    void footerDescribesOptionalColumnsAndRowGroups() throws Exception {
+        Path file = write("footer.parquet", generateRows(1000), 64L * 1024 * 1024, 1024 * 1024, true);
+
+        List<List<Object>> schema = query("SELECT name, type, repetition_type, converted_type FROM parquet_schema(?) "
+                + "WHERE name <> 'schema' ORDER BY name", file);
+        assertEquals(List.of(
+                Arrays.asList("answer", "BYTE_ARRAY", "OPTIONAL", "UTF8"),
+                Arrays.asList("count", "INT64", "OPTIONAL", null),
+                Arrays.asList("flag", "BOOLEAN", "OPTIONAL", null),
+                Arrays.asList("score", "DOUBLE", "OPTIONAL", null)), schema);
+
+        List<List<Object>> fileMetadata = query("SELECT num_rows, num_row_groups, created_by FROM parquet_file_metadata(?)", file);
+        assertEquals(List.of(Arrays.asList(1000L, 1L, "vibrent-api-client")), fileMetadata);
+
+        List<List<Object>> chunks = query("SELECT path_in_schema, compression, num_values, encodings FROM parquet_metadata(?) "
+                + "ORDER BY path_in_schema", file);
+        assertEquals(4, chunks.size());
+        for (List<Object> chunk : chunks) {
+            assertEquals("GZIP", chunk.get(1));
+            assertEquals(1000L, ((Number) chunk.get(2)).longValue());
+            assertTrue(chunk.get(3).toString().contains("PLAIN"), "encodings of " + chunk.get(0));
+        }
+    }
+
+    @Test
+    void splitsRowGroupsAndPagesByTheirTargetSizes() throws Exception {
+        List<Object[]> rows = generateRows(20_000);
+        Path file = write("groups.parquet", rows, 64 * 1024, 4 * 1024, false);
+
+        List<List<Object>> rowGroups = query("SELECT row_group_id, ANY_VALUE(row_group_num_rows) FROM parquet_metadata(?) "
+                + "GROUP BY row_group_id ORDER BY row_group_id", file);
+        assertTrue(rowGroups.size() > 1, "expected several row groups, got " + rowGroups.size());
+        long total = 0;
+        for (List<Object> rowGroup : rowGroups) {
+            total += ((Number) rowGroup.get(1)).longValue();
+        }
+        assertEquals(rows.size(), total);
+        assertRowsEqual(rows, read(file));
+    }
+
+    @Test
+    void definitionLevelsEncodeNullRunsAcrossPages() throws Exception {
+        // Long runs of nulls and of values, single values between them, and runs that cross pages
+        List<Object[]> rows = new ArrayList<>();
+        int[] runLengths = {1, 1, 7, 8, 9, 63, 64, 65, 127, 128, 129, 1000, 3, 20_001, 2};
+        boolean present = false;
+        long next = 0;
+        for (int runLength : runLengths) {
+            for (int i = 0; i < runLength; i++) {
+                rows.add(present
+                        ? new Object[] {next % 3 == 0, next, next / 4.0, "v" + next}
+                        : new Object[] {null, null, null, null});
+                next++;
+            }
+            present = !present;
+        }
+        rows.add(new Object[] {true, null, 2.0, null});
+
+        Path file = write("levels.parquet", rows, 64L * 1024 * 1024, 8 * 1024, true);
+        assertRowsEqual(rows, read(file));
+
+        List<List<Object>> nulls = query("SELECT COUNT(*) - COUNT(count) FROM read_parquet(?)", file);
+        long expectedNulls = rows.stream().filter(row -> row[1] == null).count();
+        assertEquals(expectedNulls, ((Number) nulls.get(0).get(0)).longValue());
+    }
+
+    @Test
+    void writesAllNullColumnsAndEmptyFiles() throws Exception {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            rows.add(new Object[] {null, (long) i, null, null});
+        }
+        assertRowsEqual(rows, read(write("nulls.parquet", rows, 64L * 1024 * 1024, 1024 * 1024, false)));
+
+        Path empty = write("empty.parquet", List.of(), 64L * 1024 * 1024, 1024 * 1024, false);
+        assertEquals(List.of(Arrays.asList(0L, 0L)), query("SELECT num_rows, num_row_groups FROM parquet_file_metadata(?)", empty));
+        assertEquals(0, read(empty).size());
+    }
+
+    private Path write(String name, List<Object[]> rows, long rowGroupBytes, int pageBytes, boolean gzip) throws Exception {
+        Path file = tempDir.resolve(name);
+        try (ParquetWriter writer = new ParquetWriter(file, COLUMNS, rowGroupBytes, pageBytes, gzip)) {
+            for (Object[] row : rows) {
+                writer.write(row);
+            }
+        }
+        return file;
+    }
+
+    private List<Object[]> read(Path file) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (List<Object> row : query("SELECT flag, count, score, answer FROM read_parquet(?, file_row_number = true) "
+                + "ORDER BY file_row_number", file)) {
+            rows.add(row.toArray());
+        }
+        return rows;
+    }
+
+    private List<List<Object>> query(String sql, Path file) throws SQLException {
+        List<List<Object>> rows = new ArrayList<>();
+        try (PreparedStatement statement = duckdb.prepareStatement(sql)) {
+            statement.setString(1, file.toString());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
+                while (resultSet.next()) {
+                    List<Object> row = new ArrayList<>();
+                    for (int i = 1; i <= columns; i++) {
+                        Object value = resultSet.getObject(i);
+                        row.add(value instanceof java.sql.Array ? Arrays.asList((Object[]) ((java.sql.Array) value).getArray()) : value);
+                    }
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static List<Object[]> generateRows(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[] {
+                    i % 5 == 0 ? null : i % 2 == 0,
+                    i % 7 == 0 ? null : (long) i * 1_000_003L,
+                    i % 11 == 0 ? null : i / 3.0,
+                    i % 13 == 0 ? null : "answer " + i});
+        }
+        return rows;
+    }
+
+    private static void assertRowsEqual(List<Object[]> expected, List<Object[]> actual) {
+        assertEquals(expected.size(), actual.size(), "row count");
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), actual.get(i), "row " + i);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Builds polling schedules with {@link PollingPolicy#fromConfig}.
+ */
+class PollingPolicyTest {
+
+    @Test
+    void missingSectionKeepsTheFixedInterval() {
+        PollingPolicy policy = PollingPolicy.fromConfig(Map.of(), 10);
+
+        assertFalse(policy.isAdaptive());
+        assertEquals(10_000L, policy.getDelayMillis(0, null));
+        assertEquals(10_000L, policy.getDelayMillis(5, 60_000L));
+    }
+
+    @Test
+    void enabledSectionBacksOffFromTheInitialDelay() {
+        PollingPolicy policy = PollingPolicy.fromConfig(Map.of(Constants.ConfigKeys.ENABLED, true,
+                Constants.ConfigKeys.INITIAL_DELAY, 2, Constants.ConfigKeys.BACKOFF_FACTOR, 2.0,
+                Constants.ConfigKeys.MAX_INTERVAL, 5), 10);
+
+        assertTrue(policy.isAdaptive());
+        assertEquals(2_000L, policy.getDelayMillis(0, null));
+        assertEquals(4_000L, policy.getDelayMillis(1, null));
+        assertEquals(5_000L, policy.getDelayMillis(2, null));
+    }
+}
@@ -0,0 +1,30 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Computes backoff delays with {@link RetryPolicy#getDelayMillis}.
+ */
+class RetryPolicyTest {
+
+    @Test
+    void retryAfterIsHonouredUpToTheMaximumDelay() {
+        RetryPolicy policy = new RetryPolicy(3, 100L, 5_000L, 10);
+
+        assertEquals(2_000L, policy.getDelayMillis(1, "2"));
+        assertEquals(5_000L, policy.getDelayMillis(1, "3600"));
+    }
+
+    @Test
+    void backoffWithoutRetryAfterStaysWithinTheMaximumDelay() {
+        RetryPolicy policy = new RetryPolicy(3, 100L, 5_000L, 10);
+
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            long delay = policy.getDelayMillis(attempt, null);
+            assertTrue(delay >= 0 && delay <= 5_000L, "delay " + delay + " for attempt " + attempt);
+        }
+    }
+}
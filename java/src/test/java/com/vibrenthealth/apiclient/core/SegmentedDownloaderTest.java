@@ -0,0 +1,78 @@
+package com.vibrenthealth.apiclient.core;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Downloads byte ranges with {@link SegmentedDownloader} from an in-memory source whose ranges break off.
+ */
+class SegmentedDownloaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void brokenSegmentsResumeFromTheLastByteWritten() throws Exception {
+        byte[] data = new byte[3 * 1024 * 1024 + 17];
+        new Random(1973).nextBytes(data);
+        Set<Long> brokenSegments = ConcurrentHashMap.newKeySet();
+        Set<Long> resumedSegments = ConcurrentHashMap.newKeySet();
+
+        SegmentedDownloader downloader = new SegmentedDownloader(4, null, new RetryPolicy(3, 1L, 1L, 100));
+        Path target = tempDir.resolve("export.zip");
+        downloader.download((start, end) -> {
+            int length = (int) (end - start + 1);
+            // Segments are told apart by their end, which stays the same when one resumes
+            if (brokenSegments.add(end)) {
+                // First request of each segment stops after 100 KB
+                return breakingChannel(data, (int) start, Math.min(length, 100 * 1024));
+            }
+            resumedSegments.add(end);
+            return Channels.newChannel(new ByteArrayInputStream(data, (int) start, length));
+        }, data.length, target);
+
+        assertArrayEquals(data, Files.readAllBytes(target));
+        assertEquals(4, resumedSegments.size());
+    }
+
+    /**
+     * Channel over length bytes of data that then fails like a dropped connection
+     */
+    private static ReadableByteChannel breakingChannel(byte[] data, int offset, int length) {
+        ReadableByteChannel channel = Channels.newChannel(new ByteArrayInputStream(data, offset, length));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer buffer) throws IOException {
+                int read = channel.read(buffer);
+                if (read == -1) {
+                    throw new IOException("Connection reset");
+                }
+                return read;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return channel.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        };
+    }
+}